@@ -0,0 +1,49 @@
+package com.example.elasticdemo.autocomplete;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 20 만 개 검색어 사전에서 접두어로 상위 10 개를 꺼내는 비용.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SuggestionIndexBenchmark {
+
+    @Param({"가", "개발", "a"})
+    String prefix;
+
+    SuggestionIndex index;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        Map<String, Long> frequencies = new HashMap<>();
+        while (frequencies.size() < 200_000) {
+            StringBuilder term = new StringBuilder();
+            int length = 2 + random.nextInt(4);
+            for (int i = 0; i < length; i++) {
+                //== 한글 음절 일부와 영문 소문자를 섞는다. ==//
+                term.append(random.nextBoolean() ? (char) ('가' + random.nextInt(400)) : (char) ('a' + random.nextInt(26)));
+            }
+            frequencies.put(term.toString(), (long) random.nextInt(10_000));
+        }
+        frequencies.put("개발", 5_000L);
+        frequencies.put("개발자", 9_000L);
+        index = SuggestionIndex.of(frequencies);
+    }
+
+    @Benchmark
+    public List<Suggestion> suggest() {
+        return index.suggest(prefix, 10);
+    }
+}
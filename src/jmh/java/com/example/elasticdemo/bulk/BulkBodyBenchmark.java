@@ -0,0 +1,87 @@
+package com.example.elasticdemo.bulk;
+
+import com.example.elasticdemo.ingest.RecruitCorpusReader;
+import com.example.elasticdemo.ingest.StreamingJsonReader;
+import com.example.elasticdemo.model.BulkRequestModel;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 500 건짜리 bulk body 를 만드는 비용 비교.
+ * legacy : IndexTest 방식(문서마다 new ObjectMapper, String 직렬화, IndexRequest, 전송 직전 body 재인코딩)
+ * ndjson : NdjsonBulkEncoder 로 재사용 buffer 에 바로 직렬화
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BulkBodyBenchmark {
+
+    private static final String INDEX = "test_recruit_data";
+
+    private List<BulkRequestModel> documents;
+    private NdjsonBulkEncoder encoder;
+    private ByteArrayOutputStream buffer;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        RecruitCorpusReader corpusReader = new RecruitCorpusReader(new StreamingJsonReader(objectMapper));
+        try (Stream<BulkRequestModel> stream = corpusReader.read(RecruitCorpusReader.DEFAULT_LOCATION)) {
+            documents = stream.limit(500).collect(Collectors.toList());
+        }
+        encoder = new NdjsonBulkEncoder(objectMapper);
+        buffer = new ByteArrayOutputStream(1024 * 1024);
+    }
+
+    @Benchmark
+    public int legacy() throws IOException {
+        BulkRequest bulkRequest = new BulkRequest();
+        for (BulkRequestModel document : documents) {
+            String jsonString = new ObjectMapper().writeValueAsString(document);
+            bulkRequest.add(new IndexRequest(INDEX).id(document.getPositionId()).source(jsonString, XContentType.JSON));
+        }
+
+        //== RequestConverters.bulk 가 전송 직전에 하는 body 인코딩 ==//
+        BytesStreamOutput out = new BytesStreamOutput();
+        for (DocWriteRequest<?> request : bulkRequest.requests()) {
+            IndexRequest indexRequest = (IndexRequest) request;
+            XContentBuilder metadata = XContentFactory.jsonBuilder();
+            metadata.startObject().startObject("index")
+                    .field("_index", indexRequest.index())
+                    .field("_id", indexRequest.id())
+                    .endObject().endObject();
+            BytesReference.bytes(metadata).writeTo(out);
+            out.write('\n');
+            BytesRef source = indexRequest.source().toBytesRef();
+            out.write(source.bytes, source.offset, source.length);
+            out.write('\n');
+        }
+        return out.size();
+    }
+
+    @Benchmark
+    public int ndjson() throws IOException {
+        buffer.reset();
+        encoder.encode(INDEX, documents, BulkRequestModel::getPositionId, buffer);
+        return buffer.size();
+    }
+}
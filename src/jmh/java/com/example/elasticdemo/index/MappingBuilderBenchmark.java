@@ -0,0 +1,25 @@
+package com.example.elasticdemo.index;
+
+import org.elasticsearch.common.bytes.BytesReference;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 구직공고 인덱스의 settings/mappings 를 XContentBuilder 로 만들어 bytes 로 뽑는 비용.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MappingBuilderBenchmark {
+
+    @Benchmark
+    public int settingsAndMappings() throws IOException {
+        return BytesReference.bytes(RecruitIndexDefinition.settings()).length()
+                + BytesReference.bytes(RecruitIndexDefinition.mappings()).length();
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.elasticdemo.ingest;
+
+import com.example.elasticdemo.model.BulkRequestModel;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * test-json 파일 전체(약 580 개)를 파싱하는 비용 비교. 파일 I/O 는 제외하기 위해 미리 메모리에 올려둔다.
+ * treeMap   : IndexTest 방식(파일마다 new ObjectMapper, 전체를 Map 으로 읽은 뒤 result.detail 추출)
+ * streaming : StreamingJsonReader 로 /result/detail 만 BulkRequestModel 로 읽기
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CorpusParsingBenchmark {
+
+    private byte[][] files;
+    private StreamingJsonReader jsonReader;
+
+    @Setup
+    public void setUp() throws IOException {
+        Resource[] resources = new PathMatchingResourcePatternResolver().getResources(RecruitCorpusReader.DEFAULT_LOCATION);
+        files = new byte[resources.length][];
+        for (int i = 0; i < resources.length; i++) {
+            try (InputStream inputStream = resources[i].getInputStream()) {
+                files[i] = StreamUtils.copyToByteArray(inputStream);
+            }
+        }
+        jsonReader = new StreamingJsonReader(new ObjectMapper());
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public void treeMap(Blackhole blackhole) throws IOException {
+        for (byte[] file : files) {
+            ObjectMapper objectMapper = new ObjectMapper();
+            objectMapper.configure(JsonParser.Feature.AUTO_CLOSE_SOURCE, true);
+            Map<String, Object> mappedObject = objectMapper.readValue(new ByteArrayInputStream(file), new TypeReference<Map<String, Object>>() {
+            });
+            blackhole.consume(((Map<String, Object>) mappedObject.get("result")).get("detail"));
+        }
+    }
+
+    @Benchmark
+    public void streaming(Blackhole blackhole) throws IOException {
+        for (byte[] file : files) {
+            blackhole.consume(jsonReader.readAt(new ByteArrayInputStream(file), "/result/detail", BulkRequestModel.class));
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.elasticdemo.search;
+
+import com.example.elasticdemo.ElasticDemoApplication;
+import com.example.elasticdemo.ingest.RecruitCorpusReader;
+import com.example.elasticdemo.ingest.StreamingJsonReader;
+import com.example.elasticdemo.model.BulkRequestModel;
+import com.example.elasticdemo.model.ElasticRecruitModel;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.search.SearchHit;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 검색 결과 hit 의 _source 를 ElasticRecruitModel 로 바꾸는 비용. 한 번에 hit 수만큼 변환한다.
+ * SearchHit 은 getSourceAsMap 결과를 캐시하므로 매 호출마다 hit 을 새로 만든다(source bytes 는 공유).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HitMappingBenchmark {
+
+    @Param({"1000"})
+    public int hits;
+
+    private List<BytesArray> sources;
+    private ModelMapper modelMapper;
+    private HitDecoder hitDecoder;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        RecruitCorpusReader corpusReader = new RecruitCorpusReader(new StreamingJsonReader(objectMapper));
+        List<BulkRequestModel> documents;
+        try (Stream<BulkRequestModel> stream = corpusReader.read(RecruitCorpusReader.DEFAULT_LOCATION)) {
+            documents = stream.collect(Collectors.toList());
+        }
+
+        //== saramin 인덱스의 문서 형태로 만든다. ==//
+        sources = new ArrayList<>(hits);
+        for (int i = 0; i < hits; i++) {
+            BulkRequestModel document = documents.get(i % documents.size());
+            Map<String, Object> source = new LinkedHashMap<>();
+            source.put("positionId", document.getPositionId());
+            source.put("source", document.getSource());
+            source.put("pageId", String.valueOf(i));
+            source.put("pageUrl", document.getRecruitUrl());
+            source.put("company", document.getCompanyName());
+            source.put("subject", document.getSubject());
+            source.put("etc", document.getHashTag());
+            source.put("finished", document.getFinished());
+            sources.add(new BytesArray(objectMapper.writeValueAsBytes(source)));
+        }
+        modelMapper = new ElasticDemoApplication().modelMapper();
+        hitDecoder = new HitDecoder(JsonMapper.builder()
+                .addModule(new BlackbirdModule())
+                .build());
+    }
+
+    @Benchmark
+    public void modelMapper(Blackhole blackhole) {
+        for (SearchHit hit : newHits()) {
+            blackhole.consume(modelMapper.map(hit.getSourceAsMap(), ElasticRecruitModel.class));
+        }
+    }
+
+    @Benchmark
+    public void hitDecoder(Blackhole blackhole) {
+        blackhole.consume(hitDecoder.decodeAll(newHits(), ElasticRecruitModel.class));
+    }
+
+    private SearchHit[] newHits() {
+        SearchHit[] searchHits = new SearchHit[sources.size()];
+        for (int i = 0; i < searchHits.length; i++) {
+            searchHits[i] = new SearchHit(i).sourceRef(sources.get(i));
+        }
+        return searchHits;
+    }
+}
@@ -1,12 +1,15 @@
 package com.example.elasticdemo;
 
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
 import org.modelmapper.ModelMapper;
 import org.modelmapper.convention.MatchingStrategies;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 import org.springframework.context.annotation.Bean;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
 public class ElasticDemoApplication {
 
     public static void main(String[] args) {
@@ -21,4 +24,12 @@ public class ElasticDemoApplication {
                 .setMatchingStrategy(MatchingStrategies.LOOSE);
         return mapper;
     }
+
+    /**
+     * Spring Boot 가 만드는 ObjectMapper 에 등록된다. getter/setter 호출을 reflection 대신 생성된 lambda 로 한다.
+     */
+    @Bean
+    public BlackbirdModule blackbirdModule() {
+        return new BlackbirdModule();
+    }
 }
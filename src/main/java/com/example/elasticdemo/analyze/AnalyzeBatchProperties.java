@@ -0,0 +1,19 @@
+package com.example.elasticdemo.analyze;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "elastic.analyze.batch")
+public class AnalyzeBatchProperties {
+
+    //== 하나의 AnalyzeRequest 에 담는 텍스트 수와 글자 수 상한. ==//
+    //== 토큰 수가 index.analyze.max_token_count(기본 10,000)를 넘지 않도록 글자 수로도 자른다. ==//
+    private int textsPerRequest = 64;
+    private int charsPerRequest = 8 * 1024;
+
+    //== 동시에 보내는 AnalyzeRequest 수 ==//
+    private int concurrency = 4;
+}
@@ -0,0 +1,76 @@
+package com.example.elasticdemo.analyze;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * (index, analyzer, text) 별 분석 결과 캐시.
+ * Caffeine 의 W-TinyLFU 정책을 사용하므로 한 번 스쳐간 긴 문장이 자주 쓰이는 짧은 키워드를 밀어내지 않는다.
+ * 크기는 항목 수가 아니라 대략적인 바이트 수(weigher)로 제한한다.
+ */
+@Component
+public class AnalyzeCache {
+
+    static final String CACHE_NAME = "elastic.analyze";
+
+    //== 객체 헤더와 참조 등 문자열 길이와 무관한 대략적인 비용 ==//
+    private static final int ENTRY_OVERHEAD = 64;
+    private static final int TOKEN_OVERHEAD = 48;
+
+    private final Cache<AnalyzeKey, List<AnalyzedToken>> cache;
+
+    public AnalyzeCache(AnalyzeCacheProperties properties, MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(properties.getMaximumSize().toBytes())
+                .weigher(AnalyzeCache::weigh)
+                .expireAfterAccess(properties.getExpireAfterAccess())
+                .recordStats()
+                .build();
+        //== cache.gets{result=hit|miss}, cache.evictions, cache.size 등을 노출한다. ==//
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    public List<AnalyzedToken> get(AnalyzeKey key, Function<AnalyzeKey, List<AnalyzedToken>> loader) {
+        return cache.get(key, loader);
+    }
+
+    public List<AnalyzedToken> getIfPresent(AnalyzeKey key) {
+        return cache.getIfPresent(key);
+    }
+
+    public void invalidateIndex(String index) {
+        cache.asMap().keySet().removeIf(key -> Objects.equals(key.getIndex(), index));
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public long estimatedSize() {
+        return cache.estimatedSize();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    static int weigh(AnalyzeKey key, List<AnalyzedToken> tokens) {
+        long weight = ENTRY_OVERHEAD + 2L * (length(key.getIndex()) + length(key.getAnalyzer()) + length(key.getText()));
+        for (AnalyzedToken token : tokens) {
+            weight += TOKEN_OVERHEAD + 2L * (length(token.getTerm()) + length(token.getType()));
+        }
+        return (int) Math.min(weight, Integer.MAX_VALUE);
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+}
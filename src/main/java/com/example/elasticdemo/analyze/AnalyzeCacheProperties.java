@@ -0,0 +1,23 @@
+package com.example.elasticdemo.analyze;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "elastic.analyze.cache")
+public class AnalyzeCacheProperties {
+
+    //== 캐시가 차지할 수 있는 대략적인 메모리. 넘치면 W-TinyLFU 로 덜 쓰이는 항목부터 내보낸다. ==//
+    private DataSize maximumSize = DataSize.ofMegabytes(16);
+
+    //== 이 시간 동안 조회되지 않은 분석 결과는 버린다. ==//
+    private Duration expireAfterAccess = Duration.ofHours(1);
+
+    //== 인덱스의 analysis 설정이 바뀌었는지 확인하는 주기. 0 이면 확인하지 않는다. ==//
+    private Duration settingsCheckInterval = Duration.ofSeconds(30);
+}
@@ -0,0 +1,20 @@
+package com.example.elasticdemo.analyze;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * 분석 결과 캐시의 키. index 가 null 이면 전역 분석기이다.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+@RequiredArgsConstructor
+public class AnalyzeKey {
+
+    private final String index;
+    private final String analyzer;
+    private final String text;
+}
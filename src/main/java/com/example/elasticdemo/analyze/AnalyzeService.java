@@ -0,0 +1,243 @@
+package com.example.elasticdemo.analyze;
+
+import com.example.elasticdemo.client.InstrumentedElasticClient;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.admin.indices.settings.get.GetSettingsRequest;
+import org.elasticsearch.action.admin.indices.settings.get.GetSettingsResponse;
+import org.elasticsearch.client.indices.AnalyzeRequest;
+import org.elasticsearch.client.indices.AnalyzeResponse;
+import org.elasticsearch.common.settings.Settings;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
+
+/**
+ * AnalyzeRequest 결과를 캐시해서 같은 키워드를 반복해서 분석하지 않는다.
+ * 인덱스의 uuid 와 analysis 설정을 주기적으로 확인해서 바뀌었으면 그 인덱스의 캐시를 비운다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AnalyzeService {
+
+    private static final String[] FINGERPRINT_SETTINGS = {"index.uuid", "index.analysis.*"};
+
+    private final InstrumentedElasticClient client;
+    private final AnalyzeCache cache;
+    private final AnalyzeCacheProperties properties;
+    private final AnalyzeBatchProperties batchProperties;
+
+    //== 인덱스별 마지막으로 확인한 설정 값과 확인 시각 ==//
+    private final Map<String, Fingerprint> fingerprints = new ConcurrentHashMap<>();
+    //== 지금 설정을 확인하고 있는 인덱스 ==//
+    private final Set<String> checking = ConcurrentHashMap.newKeySet();
+
+    public List<AnalyzedToken> analyze(String index, String analyzer, String text) {
+        if (index != null) {
+            checkSettings(index);
+        }
+        return cache.get(new AnalyzeKey(index, analyzer, text), this::load);
+    }
+
+    public List<String> terms(String index, String analyzer, String text) {
+        return analyze(index, analyzer, text).stream()
+                .map(AnalyzedToken::getTerm)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 여러 텍스트를 여러 값을 담은 AnalyzeRequest 로 묶어 분석한다. 묶음은 batch.concurrency 개까지 동시에 보낸다.
+     * 캐시에 있는 텍스트와 중복 입력은 다시 요청하지 않는다. 일회성 대량 분석이 자주 쓰는 키워드를
+     * 밀어내지 않도록 결과는 캐시에 넣지 않는다.
+     */
+    public BatchAnalyzeResult analyzeAll(String index, String analyzer, List<String> texts) {
+        long start = System.nanoTime();
+        if (index != null) {
+            checkSettings(index);
+        }
+
+        List<List<AnalyzedToken>> results = new ArrayList<>(Collections.nCopies(texts.size(), null));
+        //== 텍스트별로 결과를 채워 넣을 입력 위치 ==//
+        Map<String, List<Integer>> pending = new LinkedHashMap<>();
+        for (int i = 0; i < texts.size(); i++) {
+            String text = texts.get(i);
+            List<AnalyzedToken> cached = cache.getIfPresent(new AnalyzeKey(index, analyzer, text));
+            if (cached != null) {
+                results.set(i, cached);
+            } else {
+                pending.computeIfAbsent(text, key -> new ArrayList<>()).add(i);
+            }
+        }
+
+        List<List<String>> chunks = chunk(pending.keySet());
+        Semaphore permits = new Semaphore(batchProperties.getConcurrency());
+        List<CompletableFuture<Void>> futures = new ArrayList<>(chunks.size());
+        try {
+            for (List<String> chunk : chunks) {
+                //== 동시에 보내는 요청 수를 제한해서 커넥션 풀과 클러스터가 밀리지 않게 한다. ==//
+                permits.acquire();
+                futures.add(analyzeAsync(index, analyzer, chunk)
+                        .thenAccept(tokens -> {
+                            for (int j = 0; j < chunk.size(); j++) {
+                                for (Integer position : pending.get(chunk.get(j))) {
+                                    results.set(position, tokens.get(j));
+                                }
+                            }
+                        })
+                        .whenComplete((ignored, e) -> permits.release()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while analyzing", e);
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+
+        BatchAnalyzeResult result = new BatchAnalyzeResult(results, texts.size(), texts.size() - pending.size(),
+                chunks.size(), System.nanoTime() - start);
+        log.debug("batch analyze finished: {}", result);
+        return result;
+    }
+
+    private List<List<String>> chunk(Collection<String> texts) {
+        List<List<String>> chunks = new ArrayList<>();
+        List<String> current = new ArrayList<>();
+        int chars = 0;
+        for (String text : texts) {
+            if (!current.isEmpty() && (current.size() == batchProperties.getTextsPerRequest()
+                    || chars + text.length() > batchProperties.getCharsPerRequest())) {
+                chunks.add(current);
+                current = new ArrayList<>();
+                chars = 0;
+            }
+            current.add(text);
+            chars += text.length();
+        }
+        if (!current.isEmpty()) {
+            chunks.add(current);
+        }
+        return chunks;
+    }
+
+    private CompletableFuture<List<List<AnalyzedToken>>> analyzeAsync(String index, String analyzer, List<String> texts) {
+        String[] values = texts.toArray(new String[0]);
+        AnalyzeRequest request = index == null
+                ? AnalyzeRequest.withGlobalAnalyzer(analyzer, values)
+                : AnalyzeRequest.withIndexAnalyzer(index, analyzer, values);
+        CompletableFuture<List<List<AnalyzedToken>>> future = new CompletableFuture<>();
+        client.analyzeAsync(request, ActionListener.wrap(
+                response -> future.complete(MultiValuedTokens.split(texts, toTokens(response))),
+                future::completeExceptionally));
+        return future;
+    }
+
+    /**
+     * 분석기 설정을 바꾼 직후처럼 확인 주기를 기다리지 않고 비워야 할 때 호출한다.
+     */
+    public void invalidateIndex(String index) {
+        fingerprints.remove(index);
+        cache.invalidateIndex(index);
+    }
+
+    private List<AnalyzedToken> load(AnalyzeKey key) {
+        AnalyzeRequest request = key.getIndex() == null
+                ? AnalyzeRequest.withGlobalAnalyzer(key.getAnalyzer(), key.getText())
+                : AnalyzeRequest.withIndexAnalyzer(key.getIndex(), key.getAnalyzer(), key.getText());
+        try {
+            AnalyzeResponse response = client.analyze(request);
+            return Collections.unmodifiableList(toTokens(response));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static List<AnalyzedToken> toTokens(AnalyzeResponse response) {
+        return response.getTokens().stream()
+                .map(AnalyzedToken::from)
+                .collect(Collectors.toList());
+    }
+
+    private void checkSettings(String index) {
+        long interval = properties.getSettingsCheckInterval().toMillis();
+        if (interval <= 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        Fingerprint current = fingerprints.get(index);
+        if (current != null && now - current.checkedAt < interval) {
+            return;
+        }
+        //== 같은 인덱스는 한 스레드만 확인하고 나머지는 기존 캐시를 그대로 사용한다. ==//
+        //== 설정 조회는 HTTP 왕복이므로 map 의 compute 안에서 하지 않는다. 같은 bin 의 다른 인덱스까지 막힌다. ==//
+        if (!checking.add(index)) {
+            return;
+        }
+        try {
+            Fingerprint previous = fingerprints.get(index);
+            if (previous != null && now - previous.checkedAt < interval) {
+                return;
+            }
+            String settings = fetchSettings(index);
+            long checkedAt = System.currentTimeMillis();
+            if (settings == null) {
+                //== 확인에 실패하면 기존 캐시를 유지하고 다음 주기에 다시 확인한다. ==//
+                if (previous != null) {
+                    fingerprints.replace(index, previous, new Fingerprint(previous.settings, checkedAt));
+                }
+                return;
+            }
+            if (previous == null) {
+                fingerprints.putIfAbsent(index, new Fingerprint(settings, checkedAt));
+                return;
+            }
+            if (!Objects.equals(previous.settings, settings)) {
+                log.info("analysis settings of [{}] changed, invalidating analyze cache", index);
+                cache.invalidateIndex(index);
+            }
+            //== 그 사이 invalidateIndex() 로 지워졌으면 다음 호출이 처음부터 다시 확인한다. ==//
+            fingerprints.replace(index, previous, new Fingerprint(settings, checkedAt));
+        } finally {
+            checking.remove(index);
+        }
+    }
+
+    private String fetchSettings(String index) {
+        GetSettingsRequest request = new GetSettingsRequest()
+                .indices(index)
+                .names(FINGERPRINT_SETTINGS);
+        try {
+            GetSettingsResponse response = client.getSettings(request);
+            Iterator<Settings> settings = response.getIndexToSettings().valuesIt();
+            return settings.hasNext() ? settings.next().toString() : Settings.EMPTY.toString();
+        } catch (IOException | RuntimeException e) {
+            log.warn("failed to check analysis settings of [{}]", index, e);
+            return null;
+        }
+    }
+
+    private static class Fingerprint {
+
+        private final String settings;
+        private final long checkedAt;
+
+        private Fingerprint(String settings, long checkedAt) {
+            this.settings = settings;
+            this.checkedAt = checkedAt;
+        }
+    }
+}
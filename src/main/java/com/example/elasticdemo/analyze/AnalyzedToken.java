@@ -0,0 +1,27 @@
+package com.example.elasticdemo.analyze;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+import org.elasticsearch.client.indices.AnalyzeResponse;
+
+/**
+ * 캐시에 보관하는 분석 결과 토큰. 응답 객체의 attributes 등은 버리고 필요한 값만 남긴다.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+@RequiredArgsConstructor
+public class AnalyzedToken {
+
+    private final String term;
+    private final int startOffset;
+    private final int endOffset;
+    private final int position;
+    private final String type;
+
+    public static AnalyzedToken from(AnalyzeResponse.AnalyzeToken token) {
+        return new AnalyzedToken(token.getTerm(), token.getStartOffset(), token.getEndOffset(), token.getPosition(), token.getType());
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.elasticdemo.analyze;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+@Getter
+@RequiredArgsConstructor
+public class BatchAnalyzeResult {
+
+    //== 입력과 같은 순서의 텍스트별 토큰 목록 ==//
+    private final List<List<AnalyzedToken>> tokens;
+    private final int texts;
+    //== 캐시나 중복 입력으로 요청하지 않은 텍스트 수 ==//
+    private final int reused;
+    private final int requests;
+    private final long elapsedNanos;
+
+    public double getTextsPerSecond() {
+        return elapsedNanos == 0 ? texts : texts * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("texts=%d, reused=%d, requests=%d, elapsed=%dms, texts/s=%.1f",
+                texts, reused, requests, elapsedNanos / 1_000_000, getTextsPerSecond());
+    }
+}
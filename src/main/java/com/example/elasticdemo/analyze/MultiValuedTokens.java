@@ -0,0 +1,49 @@
+package com.example.elasticdemo.analyze;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 여러 텍스트를 한 번에 분석한 결과를 입력별로 나눈다.
+ * Elasticsearch 는 두 번째 텍스트부터 offset 에 (앞 텍스트 길이 + offset gap 1) 을 더해서 돌려주므로
+ * offset 으로 어느 입력의 토큰인지 알 수 있다. 나눈 토큰의 offset 은 각 입력 기준으로,
+ * position 은 각 입력의 첫 토큰이 0 이 되도록 되돌린다.
+ */
+final class MultiValuedTokens {
+
+    private static final int OFFSET_GAP = 1;
+
+    private MultiValuedTokens() {
+    }
+
+    static List<List<AnalyzedToken>> split(List<String> texts, List<AnalyzedToken> tokens) {
+        List<List<AnalyzedToken>> result = new ArrayList<>(texts.size());
+        int textIndex = 0;
+        int base = 0;
+        int firstPosition = -1;
+        List<AnalyzedToken> current = new ArrayList<>();
+        for (AnalyzedToken token : tokens) {
+            //== 토큰의 시작 위치가 현재 입력의 범위를 넘으면 다음 입력으로 넘어간다. ==//
+            while (textIndex < texts.size() - 1 && token.getStartOffset() >= base + texts.get(textIndex).length() + OFFSET_GAP) {
+                result.add(current);
+                current = new ArrayList<>();
+                base += texts.get(textIndex).length() + OFFSET_GAP;
+                textIndex++;
+                firstPosition = -1;
+            }
+            if (firstPosition < 0) {
+                firstPosition = token.getPosition();
+            }
+            current.add(new AnalyzedToken(token.getTerm(),
+                    token.getStartOffset() - base,
+                    token.getEndOffset() - base,
+                    token.getPosition() - firstPosition,
+                    token.getType()));
+        }
+        result.add(current);
+        while (result.size() < texts.size()) {
+            result.add(new ArrayList<>());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.elasticdemo.autocomplete;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.Arrays;
+import java.util.List;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "elastic.autocomplete")
+public class AutocompleteProperties {
+
+    //== 자동 완성 검색어를 추출할 인덱스와 필드 ==//
+    private String index = "saramin";
+    private List<String> fields = Arrays.asList("etc", "subject", "company");
+
+    //== 증분 수집 기준 필드. date 타입이어야 한다. ==//
+    private String checkpointField = "created";
+
+    //== mtermvectors 한 번에 요청하는 문서 수 ==//
+    private int batchSize = 200;
+
+    //== 이보다 짧은 검색어는 버린다. ==//
+    private int minTermLength = 2;
+
+    private int defaultSize = 10;
+}
@@ -0,0 +1,71 @@
+package com.example.elasticdemo.autocomplete;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 자동 완성 검색어를 Elasticsearch 왕복 없이 메모리에서 바로 돌려준다.
+ * rebuild()/refresh() 는 사전을 새로 만들어 통째로 교체하며, 조회 중인 요청은 이전 사전을 그대로 사용한다.
+ */
+@Service
+@RequiredArgsConstructor
+public class AutocompleteService {
+
+    private final TermHarvester termHarvester;
+    private final AutocompleteProperties properties;
+
+    private final AtomicReference<SuggestionIndex> index = new AtomicReference<>(SuggestionIndex.EMPTY);
+
+    //== 사전을 바꾸는 작업(rebuild/refresh)끼리만 직렬화하고, 조회는 잠그지 않는다. ==//
+    private final Object writeLock = new Object();
+    private HarvestCheckpoint checkpoint;
+
+    public SuggestionIndex rebuild() throws IOException {
+        synchronized (writeLock) {
+            Harvest harvest = termHarvester.harvest();
+            SuggestionIndex rebuilt = SuggestionIndex.of(harvest.getFrequencies());
+            index.set(rebuilt);
+            checkpoint = harvest.getCheckpoint();
+            return rebuilt;
+        }
+    }
+
+    /**
+     * 마지막 수집 이후에 색인된 문서의 검색어만 읽어 현재 사전에 더한다.
+     * 합친 사전은 새로 만들어 교체하므로(copy-on-write) 조회는 멈추지 않는다.
+     * 삭제되거나 수정된 문서의 이전 검색어 빈도는 빼지 않으므로, 주기적으로 rebuild() 하는 것이 좋다.
+     */
+    public SuggestionIndex refresh() throws IOException {
+        synchronized (writeLock) {
+            if (checkpoint == null) {
+                return rebuild();
+            }
+            Harvest harvest = termHarvester.harvest(checkpoint);
+            //== 기준 필드가 date 로 매핑되어 있지 않으면 전체를 다시 읽어 오므로 더하면 두 번 센다. ==//
+            SuggestionIndex merged = harvest.isFull()
+                    ? SuggestionIndex.of(harvest.getFrequencies())
+                    : index.get().merge(harvest.getFrequencies());
+            index.set(merged);
+            checkpoint = harvest.getCheckpoint();
+            return merged;
+        }
+    }
+
+    public List<Suggestion> suggest(String prefix) {
+        return suggest(prefix, properties.getDefaultSize());
+    }
+
+    public List<Suggestion> suggest(String prefix, int size) {
+        //== term vector 의 검색어는 분석기를 거쳐 소문자로 저장되어 있다. ==//
+        return index.get().suggest(prefix.trim().toLowerCase(Locale.ROOT), size);
+    }
+
+    public SuggestionIndex current() {
+        return index.get();
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.elasticdemo.autocomplete;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 기준 필드 오름차순으로 순회하며 본 값으로 다음 checkpoint 를 만든다.
+ * 이전 checkpoint 와 같은 값을 가진 문서 중 이미 수집한 것은 걸러낸다.
+ */
+class CheckpointTracker {
+
+    private final HarvestCheckpoint since;
+    //== 가장 최신 값과 그 값을 가진 문서 id ==//
+    private long latest;
+    private final Set<String> latestIds;
+
+    CheckpointTracker(HarvestCheckpoint since) {
+        this.since = since;
+        this.latest = since == null ? Long.MIN_VALUE : since.getMillis();
+        this.latestIds = since == null ? new HashSet<>() : new HashSet<>(since.getIds());
+    }
+
+    /**
+     * 수집할 문서면 true. value 가 null 이면 기준 필드가 없는 문서로, 수집하지만 checkpoint 에는 반영하지 않는다.
+     */
+    boolean accept(Long value, String id) {
+        if (value == null) {
+            return true;
+        }
+        if (since != null && since.isHarvested(value, id)) {
+            return false;
+        }
+        if (value > latest) {
+            latest = value;
+            latestIds.clear();
+        }
+        if (value == latest) {
+            latestIds.add(id);
+        }
+        return true;
+    }
+
+    /**
+     * 새 문서가 없으면 이전 checkpoint 를 그대로, 기준 필드 값을 하나도 보지 못했으면 null 을 돌려준다.
+     */
+    HarvestCheckpoint checkpoint() {
+        return latest == Long.MIN_VALUE ? null : new HarvestCheckpoint(latest, latestIds);
+    }
+}
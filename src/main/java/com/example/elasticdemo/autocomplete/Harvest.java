@@ -0,0 +1,18 @@
+package com.example.elasticdemo.autocomplete;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Map;
+
+@Getter
+@RequiredArgsConstructor
+public class Harvest {
+
+    private final Map<String, Long> frequencies;
+    private final long documents;
+    //== checkpoint 이후만이 아니라 인덱스 전체를 수집했으면 true. 기존 사전에 더하지 않고 교체해야 한다. ==//
+    private final boolean full;
+    //== 기준 필드 값이 있는 문서가 하나도 없으면 null ==//
+    private final HarvestCheckpoint checkpoint;
+}
@@ -0,0 +1,37 @@
+package com.example.elasticdemo.autocomplete;
+
+import lombok.Getter;
+import org.elasticsearch.index.query.QueryBuilder;
+
+import java.util.Collections;
+import java.util.Set;
+
+import static org.elasticsearch.index.query.QueryBuilders.rangeQuery;
+
+/**
+ * 마지막으로 수집한 문서의 기준 필드 값(epoch millis).
+ * 같은 millis 에 색인된 문서가 다음 수집에서 빠지지 않도록 gte 로 조회하고,
+ * 이미 수집한 문서는 ids 로 걸러낸다.
+ */
+@Getter
+public class HarvestCheckpoint {
+
+    private final long millis;
+    private final Set<String> ids;
+
+    public HarvestCheckpoint(long millis, Set<String> ids) {
+        this.millis = millis;
+        this.ids = Collections.unmodifiableSet(ids);
+    }
+
+    /**
+     * checkpoint 값과 같은 문서도 포함한다(gte). 이미 수집한 문서는 isHarvested() 로 걸러낸다.
+     */
+    public QueryBuilder query(String field) {
+        return rangeQuery(field).gte(millis).format("epoch_millis");
+    }
+
+    public boolean isHarvested(long value, String id) {
+        return value == millis && ids.contains(id);
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.elasticdemo.autocomplete;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+@Getter
+@ToString
+@EqualsAndHashCode
+@RequiredArgsConstructor
+public class Suggestion {
+
+    private final String term;
+    private final long frequency;
+}
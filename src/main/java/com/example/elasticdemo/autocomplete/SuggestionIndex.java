@@ -0,0 +1,162 @@
+package com.example.elasticdemo.autocomplete;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * 메모리에 올려 두는 읽기 전용 자동 완성 사전.
+ * 검색어를 정렬된 배열로 들고 있으므로 같은 접두어를 가진 검색어는 연속된 구간이 되고,
+ * 구간 최댓값을 O(1) 로 구하는 sparse table 로 빈도 상위 k 개를 O(log n + k log k) 에 꺼낸다.
+ * 한 번 만들면 바뀌지 않으므로 여러 스레드가 잠금 없이 조회할 수 있다.
+ */
+public final class SuggestionIndex {
+
+    public static final SuggestionIndex EMPTY = of(Collections.emptyMap());
+
+    private final String[] terms;
+    private final long[] frequencies;
+    //== table[j][i] = [i, i + 2^j) 구간에서 빈도가 가장 높은 검색어의 위치 ==//
+    private final int[][] table;
+
+    private SuggestionIndex(String[] terms, long[] frequencies) {
+        this.terms = terms;
+        this.frequencies = frequencies;
+        this.table = buildSparseTable(frequencies.length);
+    }
+
+    public static SuggestionIndex of(Map<String, Long> termFrequencies) {
+        String[] terms = termFrequencies.keySet().toArray(new String[0]);
+        Arrays.sort(terms);
+        long[] frequencies = new long[terms.length];
+        for (int i = 0; i < terms.length; i++) {
+            frequencies[i] = termFrequencies.get(terms[i]);
+        }
+        return new SuggestionIndex(terms, frequencies);
+    }
+
+    /**
+     * delta 의 빈도를 더한 새 사전을 만든다. 이 사전은 바뀌지 않으므로 기존 조회에는 영향이 없다.
+     * 두 정렬 배열을 한 번 훑어 합치므로 전체를 다시 정렬하지 않는다.
+     */
+    public SuggestionIndex merge(Map<String, Long> delta) {
+        if (delta.isEmpty()) {
+            return this;
+        }
+        String[] added = delta.keySet().toArray(new String[0]);
+        Arrays.sort(added);
+
+        String[] mergedTerms = new String[terms.length + added.length];
+        long[] mergedFrequencies = new long[mergedTerms.length];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < terms.length || j < added.length) {
+            int compare = i == terms.length ? 1 : j == added.length ? -1 : terms[i].compareTo(added[j]);
+            if (compare < 0) {
+                mergedTerms[n] = terms[i];
+                mergedFrequencies[n++] = frequencies[i++];
+            } else if (compare > 0) {
+                mergedTerms[n] = added[j];
+                mergedFrequencies[n++] = delta.get(added[j++]);
+            } else {
+                mergedTerms[n] = terms[i];
+                mergedFrequencies[n++] = frequencies[i++] + delta.get(added[j++]);
+            }
+        }
+        return new SuggestionIndex(Arrays.copyOf(mergedTerms, n), Arrays.copyOf(mergedFrequencies, n));
+    }
+
+    public int size() {
+        return terms.length;
+    }
+
+    public long frequency(String term) {
+        int i = Arrays.binarySearch(terms, term);
+        return i < 0 ? 0 : frequencies[i];
+    }
+
+    /**
+     * prefix 로 시작하는 검색어를 빈도가 높은 순서로 최대 size 개 반환한다.
+     * 빈도가 같으면 사전 순서가 앞선 검색어가 먼저 온다.
+     */
+    public List<Suggestion> suggest(String prefix, int size) {
+        int from = lowerBound(prefix);
+        int to = lowerBound(prefix + Character.MAX_VALUE);
+        if (from >= to || size <= 0) {
+            return Collections.emptyList();
+        }
+
+        List<Suggestion> result = new ArrayList<>(Math.min(size, to - from));
+        PriorityQueue<int[]> ranges = new PriorityQueue<>(this::compareRange);
+        ranges.add(range(from, to));
+        while (!ranges.isEmpty() && result.size() < size) {
+            int[] range = ranges.poll();
+            int best = range[2];
+            result.add(new Suggestion(terms[best], frequencies[best]));
+            //== 꺼낸 위치를 기준으로 구간을 둘로 나눠 다시 넣는다. ==//
+            if (range[0] < best) {
+                ranges.add(range(range[0], best));
+            }
+            if (best + 1 < range[1]) {
+                ranges.add(range(best + 1, range[1]));
+            }
+        }
+        return result;
+    }
+
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = terms.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (terms[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int[] range(int from, int to) {
+        return new int[]{from, to, argMax(from, to)};
+    }
+
+    private int compareRange(int[] a, int[] b) {
+        return better(a[2], b[2]) == a[2] ? -1 : 1;
+    }
+
+    private int argMax(int from, int to) {
+        int level = 31 - Integer.numberOfLeadingZeros(to - from);
+        return better(table[level][from], table[level][to - (1 << level)]);
+    }
+
+    private int better(int i, int j) {
+        if (frequencies[i] != frequencies[j]) {
+            return frequencies[i] > frequencies[j] ? i : j;
+        }
+        return Math.min(i, j);
+    }
+
+    private int[][] buildSparseTable(int n) {
+        int levels = n == 0 ? 1 : 32 - Integer.numberOfLeadingZeros(n);
+        int[][] table = new int[levels][];
+        table[0] = new int[n];
+        for (int i = 0; i < n; i++) {
+            table[0][i] = i;
+        }
+        for (int j = 1; j < levels; j++) {
+            int half = 1 << (j - 1);
+            int length = n - (1 << j) + 1;
+            table[j] = new int[length];
+            for (int i = 0; i < length; i++) {
+                table[j][i] = better(table[j - 1][i], table[j - 1][i + half]);
+            }
+        }
+        return table;
+    }
+}
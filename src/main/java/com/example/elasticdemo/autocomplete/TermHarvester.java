@@ -0,0 +1,166 @@
+package com.example.elasticdemo.autocomplete;
+
+import com.example.elasticdemo.client.InstrumentedElasticClient;
+import com.example.elasticdemo.search.PitSearchIterator;
+import com.example.elasticdemo.search.PitSearchService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.client.core.MultiTermVectorsRequest;
+import org.elasticsearch.client.core.MultiTermVectorsResponse;
+import org.elasticsearch.client.core.TermVectorsRequest;
+import org.elasticsearch.client.core.TermVectorsResponse;
+import org.elasticsearch.client.indices.GetFieldMappingsRequest;
+import org.elasticsearch.client.indices.GetFieldMappingsResponse;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.sort.SortBuilders;
+import org.elasticsearch.search.sort.SortOrder;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static org.elasticsearch.index.query.QueryBuilders.matchAllQuery;
+
+/**
+ * 인덱스 전체 문서의 term vector 를 모아 검색어별 빈도를 센다.
+ * 문서 id 는 PIT 로 순회하고, batchSize 개씩 묶어 mtermvectors 로 요청한다.
+ * 기준 필드(created) 오름차순으로 순회하며 마지막 값을 checkpoint 로 남겨 다음 수집은 그 이후 문서만 읽는다.
+ * 기준 필드가 date 로 매핑되어 있지 않으면 정렬 없이 전체를 읽고 checkpoint 는 남기지 않는다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TermHarvester {
+
+    private static final Pattern NUMBER = Pattern.compile("[+-]?\\d*(\\.\\d+)?");
+
+    private final InstrumentedElasticClient client;
+    private final PitSearchService pitSearchService;
+    private final AutocompleteProperties properties;
+
+    public Harvest harvest() throws IOException {
+        return harvest(null);
+    }
+
+    /**
+     * since 이후에 색인된 문서만 수집한다. since 가 null 이거나 기준 필드가 date 가 아니면 인덱스 전체를 수집한다.
+     */
+    public Harvest harvest(HarvestCheckpoint since) throws IOException {
+        long start = System.currentTimeMillis();
+        String field = properties.getCheckpointField();
+        Map<String, Long> frequencies = new HashMap<>();
+        List<String> ids = new ArrayList<>(properties.getBatchSize());
+        long documents = 0;
+
+        //== id 와 기준 필드 값만 필요하므로 _source 는 가져오지 않는다. ==//
+        SearchSourceBuilder source = new SearchSourceBuilder().fetchSource(false);
+        CheckpointTracker tracker = null;
+        if (isDateField(field)) {
+            tracker = new CheckpointTracker(since);
+            //== alias 뒤의 일부 인덱스에만 필드가 없으면 그 문서는 정렬 값 없이 맨 뒤로 간다. ==//
+            source.query(since == null ? matchAllQuery() : since.query(field))
+                    .sort(SortBuilders.fieldSort(field).order(SortOrder.ASC).missing("_last").unmappedType("date"));
+        } else {
+            log.warn("{} is not mapped as date in {}, harvesting every document without a checkpoint", field, properties.getIndex());
+            source.query(matchAllQuery());
+        }
+        try (PitSearchIterator hits = pitSearchService.iterate(source, properties.getIndex())) {
+            while (hits.hasNext()) {
+                SearchHit hit = hits.next();
+                if (tracker != null && !tracker.accept(checkpointValue(hit), hit.getId())) {
+                    continue;
+                }
+
+                ids.add(hit.getId());
+                if (ids.size() == properties.getBatchSize()) {
+                    collect(ids, frequencies);
+                    documents += ids.size();
+                    ids.clear();
+                }
+            }
+        }
+        if (!ids.isEmpty()) {
+            collect(ids, frequencies);
+            documents += ids.size();
+        }
+
+        log.info("harvested {} terms from {} documents in {}ms", frequencies.size(), documents, System.currentTimeMillis() - start);
+        boolean full = since == null || tracker == null;
+        return new Harvest(frequencies, documents, full, tracker == null ? null : tracker.checkpoint());
+    }
+
+    /**
+     * text 로 매핑된 필드는 정렬도 날짜 범위 조회도 할 수 없다. 필드가 없는 인덱스는 건너뛰고, 하나라도 date 가 아니면 false.
+     */
+    private boolean isDateField(String field) throws IOException {
+        GetFieldMappingsResponse response = client.getFieldMapping(new GetFieldMappingsRequest()
+                .indices(properties.getIndex())
+                .fields(field));
+        boolean mapped = false;
+        for (Map<String, GetFieldMappingsResponse.FieldMappingMetadata> fields : response.mappings().values()) {
+            GetFieldMappingsResponse.FieldMappingMetadata metadata = fields.get(field);
+            if (metadata == null) {
+                continue;
+            }
+            Object mapping = metadata.sourceAsMap().get(leafName(field));
+            if (!(mapping instanceof Map) || !"date".equals(((Map<?, ?>) mapping).get("type"))) {
+                return false;
+            }
+            mapped = true;
+        }
+        return mapped;
+    }
+
+    private static String leafName(String field) {
+        return field.substring(field.lastIndexOf('.') + 1);
+    }
+
+    private static Long checkpointValue(SearchHit hit) {
+        Object[] sortValues = hit.getSortValues();
+        //== 기준 필드가 없는 문서는 정렬 값이 Long.MAX_VALUE 로 온다. ==//
+        if (sortValues.length == 0 || !(sortValues[0] instanceof Number)) {
+            return null;
+        }
+        long value = ((Number) sortValues[0]).longValue();
+        return value == Long.MAX_VALUE ? null : value;
+    }
+
+    private void collect(List<String> ids, Map<String, Long> frequencies) throws IOException {
+        //== 빈도만 필요하므로 위치/오프셋/통계 정보는 요청하지 않는다. ==//
+        TermVectorsRequest template = new TermVectorsRequest(properties.getIndex(), "fake_id");
+        template.setFields(properties.getFields().toArray(new String[0]));
+        template.setPositions(false);
+        template.setOffsets(false);
+        template.setPayloads(false);
+        template.setFieldStatistics(false);
+        template.setTermStatistics(false);
+
+        MultiTermVectorsRequest request = new MultiTermVectorsRequest(ids.toArray(new String[0]), template);
+        MultiTermVectorsResponse response = client.mtermvectors(properties.getIndex(), request);
+        for (TermVectorsResponse document : response.getTermVectorsResponses()) {
+            if (document.getTermVectorsList() == null) {
+                continue;
+            }
+            for (TermVectorsResponse.TermVector field : document.getTermVectorsList()) {
+                if (field.getTerms() == null) {
+                    continue;
+                }
+                for (TermVectorsResponse.TermVector.Term term : field.getTerms()) {
+                    String token = term.getTerm().trim();
+                    if (accept(token)) {
+                        frequencies.merge(token, (long) term.getTermFreq(), Long::sum);
+                    }
+                }
+            }
+        }
+    }
+
+    private boolean accept(String token) {
+        return token.length() >= properties.getMinTermLength() && !NUMBER.matcher(token).matches();
+    }
+}
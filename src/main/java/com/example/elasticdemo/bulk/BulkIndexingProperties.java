@@ -0,0 +1,35 @@
+package com.example.elasticdemo.bulk;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "elastic.bulk")
+public class BulkIndexingProperties {
+
+    //== 아래 세 조건 중 하나라도 만족하면 BulkRequest 를 전송한다. ==//
+    private int bulkActions = 1000;
+    private DataSize bulkSize = DataSize.ofMegabytes(5);
+    private Duration flushInterval = Duration.ofSeconds(5);
+
+    //== 동시에 전송 중일 수 있는 BulkRequest 수. 가득 차면 add() 를 호출한 쪽이 대기한다. ==//
+    private int concurrentRequests = 4;
+
+    //== 429 등 일시적인 실패 문서의 재시도. 대기 시간은 지수적으로 늘어나며 jitter 가 붙는다. ==//
+    private int maxRetries = 8;
+    private Duration initialBackoff = Duration.ofMillis(100);
+    private Duration maxBackoff = Duration.ofSeconds(30);
+
+    //== 재시도해도 성공할 수 없는 문서(매핑 오류 등)를 남기는 파일 ==//
+    private Path deadLetterPath = Paths.get("bulk-dead-letter.ndjson");
+
+    //== close() 시 남은 요청이 끝나기를 기다리는 최대 시간 ==//
+    private Duration awaitCloseTimeout = Duration.ofMinutes(5);
+}
@@ -0,0 +1,42 @@
+package com.example.elasticdemo.bulk;
+
+import com.example.elasticdemo.client.InstrumentedElasticClient;
+import com.example.elasticdemo.model.BulkRequestModel;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Service
+@RequiredArgsConstructor
+public class BulkIndexingService {
+
+    private final InstrumentedElasticClient client;
+    private final ObjectMapper objectMapper;
+    private final BulkIndexingProperties properties;
+    private final DeadLetterWriter deadLetterWriter;
+    private final MeterRegistry meterRegistry;
+    private final ObjectProvider<IndexWriteListener> writeListeners;
+
+    /**
+     * 여러 producer 가 공유할 수 있는 색인 세션을 연다. 사용 후 반드시 close 해야 한다.
+     */
+    public BulkSession openSession() {
+        return new BulkSession(client, objectMapper, properties, deadLetterWriter, meterRegistry,
+                writeListeners.orderedStream().collect(Collectors.toList()));
+    }
+
+    /**
+     * 구직공고 스트림을 positionId 를 문서 id 로 하여 색인하고, 모두 끝날 때까지 기다린다.
+     */
+    public BulkStats index(String index, Stream<BulkRequestModel> documents) {
+        try (BulkSession session = openSession()) {
+            documents.forEach(document -> session.add(index, document.getPositionId(), document));
+            return session.getStats();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.elasticdemo.bulk;
+
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.client.ResponseException;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.rest.RestStatus;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * bulk 실패를 재시도 가능한 것과 영구적인 것으로 나누고, 재시도 대기 시간을 계산한다.
+ */
+public class BulkRetryPolicy {
+
+    //== 클러스터가 바쁘거나 일시적으로 응답하지 못한 경우만 재시도한다. ==//
+    private static final Set<RestStatus> RETRYABLE_STATUSES = EnumSet.of(
+            RestStatus.TOO_MANY_REQUESTS,
+            RestStatus.SERVICE_UNAVAILABLE,
+            RestStatus.BAD_GATEWAY,
+            RestStatus.GATEWAY_TIMEOUT
+    );
+
+    private final int maxRetries;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+
+    public BulkRetryPolicy(int maxRetries, Duration initialBackoff, Duration maxBackoff) {
+        this.maxRetries = maxRetries;
+        this.initialBackoffMillis = initialBackoff.toMillis();
+        this.maxBackoffMillis = maxBackoff.toMillis();
+    }
+
+    public static BulkRetryPolicy of(BulkIndexingProperties properties) {
+        return new BulkRetryPolicy(properties.getMaxRetries(), properties.getInitialBackoff(), properties.getMaxBackoff());
+    }
+
+    public boolean isRetryable(RestStatus status) {
+        return RETRYABLE_STATUSES.contains(status);
+    }
+
+    /**
+     * BulkRequest 전체가 실패한 경우. 연결 오류나 429/503 응답이면 재시도할 수 있다.
+     */
+    public boolean isRetryable(Throwable failure) {
+        if (failure instanceof ResponseException) {
+            int statusCode = ((ResponseException) failure).getResponse().getStatusLine().getStatusCode();
+            RestStatus status = RestStatus.fromCode(statusCode);
+            return status != null && isRetryable(status);
+        }
+        if (failure instanceof EsRejectedExecutionException) {
+            return true;
+        }
+        if (failure instanceof ElasticsearchException) {
+            return isRetryable(((ElasticsearchException) failure).status());
+        }
+        return failure instanceof IOException;
+    }
+
+    public boolean canRetry(int attempt) {
+        return attempt < maxRetries;
+    }
+
+    /**
+     * attempt 번째 재시도 전 대기 시간. 0 ~ min(max, initial * 2^attempt) 사이의 값을 고르는 full jitter 방식으로,
+     * 같은 시점에 거절된 문서들이 동시에 다시 몰리지 않도록 한다.
+     */
+    public long backoffMillis(int attempt) {
+        long ceiling = initialBackoffMillis << Math.min(attempt, 30);
+        if (ceiling <= 0 || ceiling > maxBackoffMillis) {
+            ceiling = maxBackoffMillis;
+        }
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+}
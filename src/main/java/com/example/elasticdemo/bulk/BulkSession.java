@@ -0,0 +1,307 @@
+package com.example.elasticdemo.bulk;
+
+import com.example.elasticdemo.client.InstrumentedElasticClient;
+import com.example.elasticdemo.jfr.BulkFlushEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BackoffPolicy;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkProcessor;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.rest.RestStatus;
+
+import java.io.UncheckedIOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * BulkProcessor 하나를 감싼 색인 세션.
+ * 여러 스레드에서 동시에 add() 해도 되며, 동시 전송 수가 가득 차면 add() 가 블록된다.
+ * 응답의 모든 item 을 확인하여 429 같은 일시적인 실패는 그 문서만 backoff 후 다시 보내고,
+ * 매핑 오류처럼 영구적인 실패는 dead letter 파일로 보낸다.
+ * close() 는 재시도까지 포함해 모든 문서가 처리될 때까지 기다리고,
+ * 그 시간 안에 다시 보내지 못한 재시도 대기 문서는 dead letter 로 보낸다.
+ */
+@Slf4j
+public class BulkSession implements AutoCloseable {
+
+    private final ObjectMapper objectMapper;
+    private final BulkProcessor bulkProcessor;
+    private final BulkIndexingProperties properties;
+    private final BulkRetryPolicy retryPolicy;
+    private final DeadLetterWriter deadLetterWriter;
+    private final Timer batchTimer;
+    private final BulkStats stats = new BulkStats();
+    private final Map<Long, Long> startNanosByExecution = new ConcurrentHashMap<>();
+    //== JFR 로 기록 중일 때만 채워진다. ==//
+    private final Map<Long, BulkFlushEvent> flushEvents = new ConcurrentHashMap<>();
+
+    //== 재시도 중인 문서의 시도 횟수. DocWriteRequest 는 equals 를 재정의하지 않으므로 동일 객체 기준이다. ==//
+    private final Map<DocWriteRequest<?>, Integer> attempts = new ConcurrentHashMap<>();
+    private final Map<DocWriteRequest<?>, BulkTracker> trackers = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService retryScheduler;
+    //== 아직 bulkProcessor 에 다시 넣지 않은 재시도. close() 가 시간 초과로 끝나면 여기 남은 것을 dead letter 로 보낸다. ==//
+    private final Set<ScheduledRetry> scheduledRetries = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger inFlightBatches = new AtomicInteger();
+    private final AtomicInteger pendingRetries = new AtomicInteger();
+    private final List<IndexWriteListener> writeListeners;
+
+    BulkSession(InstrumentedElasticClient client, ObjectMapper objectMapper, BulkIndexingProperties properties,
+                DeadLetterWriter deadLetterWriter, MeterRegistry meterRegistry, List<IndexWriteListener> writeListeners) {
+        this.objectMapper = objectMapper;
+        this.writeListeners = writeListeners;
+        this.properties = properties;
+        this.retryPolicy = BulkRetryPolicy.of(properties);
+        this.deadLetterWriter = deadLetterWriter;
+        this.batchTimer = Timer.builder("elastic.bulk.batch")
+                .description("BulkRequest 하나가 응답을 받기까지 걸린 시간")
+                .register(meterRegistry);
+        this.retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "bulk-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.bulkProcessor = BulkProcessor.builder(
+                        (request, listener) -> client.bulkAsync(request, listener),
+                        new RetryingListener())
+                .setBulkActions(properties.getBulkActions())
+                .setBulkSize(new ByteSizeValue(properties.getBulkSize().toBytes()))
+                .setFlushInterval(TimeValue.timeValueMillis(properties.getFlushInterval().toMillis()))
+                .setConcurrentRequests(properties.getConcurrentRequests())
+                //== 재시도는 문서 단위로 직접 처리한다. ==//
+                .setBackoffPolicy(BackoffPolicy.noBackoff())
+                .build();
+    }
+
+    public void add(String index, String id, Object document) {
+        add(index, id, document, null);
+    }
+
+    /**
+     * tracker 를 넘기면 이 문서가 최종 처리될 때 tracker 에 반영된다.
+     */
+    public void add(String index, String id, Object document, BulkTracker tracker) {
+        try {
+            add(new IndexRequest(index)
+                    .id(id)
+                    .source(objectMapper.writeValueAsBytes(document), XContentType.JSON), tracker);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void add(IndexRequest indexRequest) {
+        add(indexRequest, null);
+    }
+
+    public void add(IndexRequest indexRequest, BulkTracker tracker) {
+        if (tracker != null) {
+            tracker.register();
+            trackers.put(indexRequest, tracker);
+        }
+        bulkProcessor.add(indexRequest);
+    }
+
+    public BulkStats getStats() {
+        return stats;
+    }
+
+    @Override
+    public void close() {
+        long deadline = System.nanoTime() + properties.getAwaitCloseTimeout().toNanos();
+        try {
+            //== 재시도 대기 중인 문서가 다시 들어올 수 있으므로 processor 를 닫기 전에 모두 비워질 때까지 기다린다. ==//
+            while (true) {
+                bulkProcessor.flush();
+                if (inFlightBatches.get() == 0 && pendingRetries.get() == 0) {
+                    break;
+                }
+                if (System.nanoTime() > deadline) {
+                    log.warn("bulk session did not drain within {} ({} batches in flight, {} retries pending)",
+                            properties.getAwaitCloseTimeout(), inFlightBatches.get(), pendingRetries.get());
+                    break;
+                }
+                Thread.sleep(50);
+            }
+            bulkProcessor.awaitClose(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            retryScheduler.shutdownNow();
+            deadLetterUnsentRetries();
+        }
+        log.info("bulk session closed: {}", stats);
+    }
+
+    //== shutdownNow() 가 돌려주는 작업은 감싼 future 라 원래 문서를 꺼낼 수 없으므로 직접 들고 있던 목록으로 처리한다. ==//
+    private void deadLetterUnsentRetries() {
+        for (ScheduledRetry retry : scheduledRetries) {
+            if (scheduledRetries.remove(retry)) {
+                pendingRetries.decrementAndGet();
+                deadLetter(retry.request, retry.status, "bulk session closed before retry : " + retry.reason);
+            }
+        }
+    }
+
+    private void retryOrDeadLetter(DocWriteRequest<?> request, boolean retryable, int status, String reason) {
+        int attempt = attempts.getOrDefault(request, 0);
+        if (retryable && retryPolicy.canRetry(attempt)) {
+            attempts.put(request, attempt + 1);
+            stats.recordRetry();
+            pendingRetries.incrementAndGet();
+            ScheduledRetry retry = new ScheduledRetry(request, status, reason);
+            scheduledRetries.add(retry);
+            //== afterBulk 는 I/O 스레드에서 호출되므로 블록될 수 있는 add() 는 별도 스레드에서 한다. ==//
+            retryScheduler.schedule(retry, retryPolicy.backoffMillis(attempt), TimeUnit.MILLISECONDS);
+        } else {
+            deadLetter(request, status, reason);
+        }
+    }
+
+    private void deadLetter(DocWriteRequest<?> request, int status, String reason) {
+        attempts.remove(request);
+        stats.recordFailure();
+        deadLetterWriter.write(request, status, reason);
+        complete(request, false);
+    }
+
+    private void complete(DocWriteRequest<?> request, boolean success) {
+        BulkTracker tracker = trackers.remove(request);
+        if (tracker != null) {
+            tracker.arrive(success);
+        }
+    }
+
+    private class ScheduledRetry implements Runnable {
+
+        private final DocWriteRequest<?> request;
+        private final int status;
+        private final String reason;
+
+        ScheduledRetry(DocWriteRequest<?> request, int status, String reason) {
+            this.request = request;
+            this.status = status;
+            this.reason = reason;
+        }
+
+        @Override
+        public void run() {
+            //== close() 가 먼저 꺼내 갔으면 이미 dead letter 로 보낸 문서다. ==//
+            if (!scheduledRetries.remove(this)) {
+                return;
+            }
+            try {
+                bulkProcessor.add(request);
+            } catch (RuntimeException e) {
+                //== 닫히는 중인 processor 에 넣지 못한 경우 ==//
+                deadLetter(request, status, "bulk session closed before retry : " + reason);
+            } finally {
+                pendingRetries.decrementAndGet();
+            }
+        }
+    }
+
+    private class RetryingListener implements BulkProcessor.Listener {
+
+        @Override
+        public void beforeBulk(long executionId, BulkRequest request) {
+            inFlightBatches.incrementAndGet();
+            startNanosByExecution.put(executionId, System.nanoTime());
+            BulkFlushEvent event = new BulkFlushEvent();
+            if (event.isEnabled()) {
+                event.begin();
+                flushEvents.put(executionId, event);
+            }
+        }
+
+        @Override
+        public void afterBulk(long executionId, BulkRequest request, BulkResponse response) {
+            try {
+                long batchNanos = elapsedNanos(executionId);
+                List<DocWriteRequest<?>> requests = request.requests();
+                int succeeded = 0;
+                int failed = 0;
+                Set<String> writtenIndices = new HashSet<>();
+                for (BulkItemResponse item : response.getItems()) {
+                    DocWriteRequest<?> itemRequest = requests.get(item.getItemId());
+                    if (item.isFailed()) {
+                        failed++;
+                        RestStatus status = item.getFailure().getStatus();
+                        retryOrDeadLetter(itemRequest, retryPolicy.isRetryable(status), status.getStatus(), item.getFailureMessage());
+                    } else {
+                        succeeded++;
+                        writtenIndices.add(item.getIndex());
+                        attempts.remove(itemRequest);
+                        complete(itemRequest, true);
+                    }
+                }
+                stats.recordBatch(succeeded, batchNanos);
+                batchTimer.record(batchNanos, TimeUnit.NANOSECONDS);
+                notifyWritten(writtenIndices);
+                commitFlushEvent(executionId, request, failed, response.getTook().millis());
+                log.debug("bulk #{} : {} docs, {} failed, {}ms (took {})",
+                        executionId, request.numberOfActions(), failed, TimeUnit.NANOSECONDS.toMillis(batchNanos), response.getTook());
+            } finally {
+                inFlightBatches.decrementAndGet();
+            }
+        }
+
+        @Override
+        public void afterBulk(long executionId, BulkRequest request, Throwable failure) {
+            try {
+                long batchNanos = elapsedNanos(executionId);
+                stats.recordBatch(0, batchNanos);
+                batchTimer.record(batchNanos, TimeUnit.NANOSECONDS);
+                commitFlushEvent(executionId, request, request.numberOfActions(), -1);
+                log.warn("bulk #{} failed : {} docs", executionId, request.numberOfActions(), failure);
+                boolean retryable = retryPolicy.isRetryable(failure);
+                for (DocWriteRequest<?> itemRequest : request.requests()) {
+                    retryOrDeadLetter(itemRequest, retryable, 0, failure.toString());
+                }
+            } finally {
+                inFlightBatches.decrementAndGet();
+            }
+        }
+
+        private void notifyWritten(Set<String> indices) {
+            for (String index : indices) {
+                for (IndexWriteListener listener : writeListeners) {
+                    listener.onWrite(index);
+                }
+            }
+        }
+
+        private void commitFlushEvent(long executionId, BulkRequest request, int failures, long tookMillis) {
+            BulkFlushEvent event = flushEvents.remove(executionId);
+            if (event != null && event.shouldCommit()) {
+                event.source = "session";
+                event.documents = request.numberOfActions();
+                event.failures = failures;
+                event.bytes = request.estimatedSizeInBytes();
+                event.took = tookMillis;
+                event.commit();
+            }
+        }
+
+        private long elapsedNanos(long executionId) {
+            Long startNanos = startNanosByExecution.remove(executionId);
+            return startNanos == null ? 0 : System.nanoTime() - startNanos;
+        }
+    }
+}
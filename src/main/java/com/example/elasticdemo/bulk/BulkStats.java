@@ -0,0 +1,58 @@
+package com.example.elasticdemo.bulk;
+
+import lombok.Getter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 하나의 BulkSession 동안 누적된 색인 통계.
+ */
+@Getter
+public class BulkStats {
+
+    private final long startNanos = System.nanoTime();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder indexedDocs = new LongAdder();
+    //== 일시적인 실패로 다시 전송한 횟수 ==//
+    private final LongAdder retriedDocs = new LongAdder();
+    //== dead letter 로 보낸 문서 수 ==//
+    private final LongAdder failedDocs = new LongAdder();
+    private final AtomicLong totalBatchNanos = new AtomicLong();
+
+    void recordBatch(int succeeded, long batchNanos) {
+        batches.increment();
+        indexedDocs.add(succeeded);
+        totalBatchNanos.addAndGet(batchNanos);
+    }
+
+    void recordRetry() {
+        retriedDocs.increment();
+    }
+
+    void recordFailure() {
+        failedDocs.increment();
+    }
+
+    public long getElapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    public double getDocsPerSecond() {
+        long elapsedMillis = Math.max(1, getElapsedMillis());
+        return indexedDocs.sum() * 1000.0 / elapsedMillis;
+    }
+
+    public double getAverageBatchMillis() {
+        long count = batches.sum();
+        return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalBatchNanos.get()) / (double) count;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("batches=%d, indexed=%d, retried=%d, failed=%d, elapsed=%dms, avgBatch=%.1fms, %.1f docs/s",
+                batches.sum(), indexedDocs.sum(), retriedDocs.sum(), failedDocs.sum(),
+                getElapsedMillis(), getAverageBatchMillis(), getDocsPerSecond());
+    }
+}
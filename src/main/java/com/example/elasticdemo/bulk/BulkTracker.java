@@ -0,0 +1,44 @@
+package com.example.elasticdemo.bulk;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 한 묶음의 문서가 모두 처리(성공 또는 dead letter)되었는지 추적한다.
+ * 문서를 모두 add 한 뒤 seal() 하면, 마지막 응답이 도착했을 때 반환된 future 가 완료된다.
+ */
+public class BulkTracker {
+
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong succeeded = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final CompletableFuture<BulkTracker> completion = new CompletableFuture<>();
+    private volatile boolean sealed;
+
+    void register() {
+        pending.incrementAndGet();
+    }
+
+    void arrive(boolean success) {
+        (success ? succeeded : failed).incrementAndGet();
+        if (pending.decrementAndGet() == 0 && sealed) {
+            completion.complete(this);
+        }
+    }
+
+    public CompletableFuture<BulkTracker> seal() {
+        sealed = true;
+        if (pending.get() == 0) {
+            completion.complete(this);
+        }
+        return completion;
+    }
+
+    public long getSucceeded() {
+        return succeeded.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+}
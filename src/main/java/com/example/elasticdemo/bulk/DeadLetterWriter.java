@@ -0,0 +1,76 @@
+package com.example.elasticdemo.bulk;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 색인에 실패한 문서를 로컬 파일에 NDJSON 한 줄씩 남긴다.
+ * 각 줄은 index, id, status, reason 과 원본 source 를 담고 있어 원인 수정 후 그대로 재색인할 수 있다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DeadLetterWriter {
+
+    private final ObjectMapper objectMapper;
+    private final BulkIndexingProperties properties;
+
+    private Writer writer;
+
+    public synchronized void write(DocWriteRequest<?> request, int status, String reason) {
+        try {
+            Writer out = writer();
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+            generator.writeStartObject();
+            generator.writeStringField("index", request.index());
+            generator.writeStringField("id", request.id());
+            generator.writeStringField("opType", request.opType().getLowercase());
+            generator.writeNumberField("status", status);
+            generator.writeStringField("reason", reason);
+            if (request instanceof IndexRequest && ((IndexRequest) request).source() != null) {
+                generator.writeFieldName("source");
+                generator.writeRawValue(((IndexRequest) request).source().utf8ToString());
+            }
+            generator.writeEndObject();
+            generator.flush();
+            out.write('\n');
+            out.flush();
+        } catch (IOException e) {
+            //== dead letter 까지 실패하면 로그가 마지막 기록이다. ==//
+            log.error("failed to write dead letter {}/{} : {}", request.index(), request.id(), reason, e);
+        }
+    }
+
+    private Writer writer() throws IOException {
+        if (writer == null) {
+            Path path = properties.getDeadLetterPath();
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+        return writer;
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.elasticdemo.bulk;
+
+/**
+ * bulk 색인으로 인덱스에 문서가 쓰였을 때 호출된다. 검색 결과 캐시 무효화 등에 사용한다.
+ * bulk 응답을 받은 스레드(I/O 스레드)에서 호출되므로 오래 걸리는 작업을 하면 안 된다.
+ */
+public interface IndexWriteListener {
+
+    void onWrite(String index);
+}
@@ -0,0 +1,53 @@
+package com.example.elasticdemo.bulk;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.function.Function;
+
+/**
+ * 문서를 _bulk API 의 NDJSON 형식으로 OutputStream 에 바로 쓴다.
+ * 문서마다 JSON String 을 만들거나 IndexRequest 로 다시 복사하지 않는다.
+ */
+public class NdjsonBulkEncoder {
+
+    private static final SerializedString NEW_LINE = new SerializedString("\n");
+
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter documentWriter;
+
+    public NdjsonBulkEncoder(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        //== 한 body 를 다 쓴 뒤 한 번만 flush 한다. ==//
+        this.documentWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * {"index":{"_index":..,"_id":..}} 줄과 문서 줄을 번갈아 쓰고, 마지막 줄바꿈까지 붙인다.
+     */
+    public <T> void encode(String index, Iterable<? extends T> documents, Function<T, String> idExtractor, OutputStream out) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            //== 최상위 값 사이에 공백 대신 줄바꿈을 넣어 NDJSON 이 되도록 한다. ==//
+            generator.setRootValueSeparator(NEW_LINE);
+            for (T document : documents) {
+                generator.writeStartObject();
+                generator.writeObjectFieldStart("index");
+                generator.writeStringField("_index", index);
+                String id = idExtractor.apply(document);
+                if (id != null) {
+                    generator.writeStringField("_id", id);
+                }
+                generator.writeEndObject();
+                generator.writeEndObject();
+                documentWriter.writeValue(generator, document);
+            }
+            generator.writeRaw('\n');
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.elasticdemo.bulk;
+
+import com.example.elasticdemo.client.InstrumentedElasticClient;
+import com.example.elasticdemo.jfr.BulkFlushEvent;
+import com.example.elasticdemo.model.BulkRequestModel;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.http.entity.ContentType;
+import org.apache.http.nio.entity.NByteArrayEntity;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.RestClient;
+import org.elasticsearch.common.xcontent.DeprecationHandler;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * BulkRequestModel 을 재사용하는 byte buffer 에 NDJSON 으로 직렬화하여 low-level RestClient 로 한 번에 보낸다.
+ * high-level client 를 거치면 문서마다 String 직렬화, IndexRequest 복사, 요청 body 인코딩이 다시 일어나는데 이를 생략한다.
+ * 응답의 item 순서는 입력 순서와 같으므로 실패 처리는 BulkResponse 로 그대로 할 수 있다.
+ */
+@Component
+public class NdjsonBulkWriter {
+
+    private static final ContentType NDJSON = ContentType.create("application/x-ndjson");
+    private static final int POOL_SIZE = 16;
+    //== 한 번 크게 자란 buffer 는 pool 에 돌려놓지 않아 메모리를 계속 잡고 있지 않도록 한다. ==//
+    private static final int MAX_RETAINED_BYTES = 16 * 1024 * 1024;
+
+    private final RestClient restClient;
+    private final NdjsonBulkEncoder encoder;
+    private final ObjectProvider<IndexWriteListener> writeListeners;
+    private final BlockingQueue<BodyBuffer> pool = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    public NdjsonBulkWriter(InstrumentedElasticClient client, ObjectMapper objectMapper, ObjectProvider<IndexWriteListener> writeListeners) {
+        this.restClient = client.getLowLevelClient();
+        this.encoder = new NdjsonBulkEncoder(objectMapper);
+        this.writeListeners = writeListeners;
+    }
+
+    public BulkResponse index(String index, Collection<BulkRequestModel> documents) throws IOException {
+        BulkFlushEvent event = new BulkFlushEvent();
+        event.begin();
+        BodyBuffer buffer = acquire();
+        try {
+            encoder.encode(index, documents, BulkRequestModel::getPositionId, buffer);
+
+            Request request = new Request("POST", "/_bulk");
+            request.setEntity(new NByteArrayEntity(buffer.array(), 0, buffer.size(), NDJSON));
+            Response response = restClient.performRequest(request);
+            try (InputStream content = response.getEntity().getContent();
+                 XContentParser parser = XContentType.JSON.xContent()
+                         .createParser(NamedXContentRegistry.EMPTY, DeprecationHandler.THROW_UNSUPPORTED_OPERATION, content)) {
+                BulkResponse bulkResponse = BulkResponse.fromXContent(parser);
+                writeListeners.orderedStream().forEach(listener -> listener.onWrite(index));
+                commit(event, documents.size(), failures(bulkResponse), buffer.size(), bulkResponse.getTook().millis());
+                return bulkResponse;
+            }
+        } catch (IOException | RuntimeException e) {
+            //== 429, 5xx, 연결 실패도 BulkSession 과 같이 전체 실패(took=-1)로 남긴다. ==//
+            commit(event, documents.size(), documents.size(), buffer.size(), -1);
+            throw e;
+        } finally {
+            release(buffer);
+        }
+    }
+
+    private static int failures(BulkResponse response) {
+        if (!response.hasFailures()) {
+            return 0;
+        }
+        int failures = 0;
+        for (BulkItemResponse item : response.getItems()) {
+            if (item.isFailed()) {
+                failures++;
+            }
+        }
+        return failures;
+    }
+
+    private static void commit(BulkFlushEvent event, int documents, int failures, long bytes, long tookMillis) {
+        if (event.shouldCommit()) {
+            event.source = "ndjson";
+            event.documents = documents;
+            event.failures = failures;
+            event.bytes = bytes;
+            event.took = tookMillis;
+            event.commit();
+        }
+    }
+
+    private BodyBuffer acquire() {
+        BodyBuffer buffer = pool.poll();
+        return buffer != null ? buffer : new BodyBuffer();
+    }
+
+    private void release(BodyBuffer buffer) {
+        if (buffer.array().length <= MAX_RETAINED_BYTES) {
+            buffer.reset();
+            pool.offer(buffer);
+        }
+    }
+
+    /**
+     * 내부 배열을 복사 없이 entity 로 넘기기 위한 ByteArrayOutputStream.
+     */
+    static class BodyBuffer extends ByteArrayOutputStream {
+
+        BodyBuffer() {
+            super(64 * 1024);
+        }
+
+        byte[] array() {
+            return buf;
+        }
+    }
+}
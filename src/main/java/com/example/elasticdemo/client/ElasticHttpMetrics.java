@@ -0,0 +1,87 @@
+package com.example.elasticdemo.client;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpResponseInterceptor;
+import org.apache.http.protocol.HttpContext;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+
+/**
+ * Elasticsearch 로 오가는 HTTP 요청/응답 body 크기(elastic.client.request.size, elastic.client.response.size)를 기록한다.
+ * RestClient 의 HttpAsyncClient 에 interceptor 로 붙으므로 저수준 클라이언트로 보낸 요청(_pit, NDJSON _bulk)도 포함된다.
+ * operation 과 index 는 URL 경로에서 뽑는다. (/saramin/_search → search, saramin)
+ */
+@Component
+@RequiredArgsConstructor
+public class ElasticHttpMetrics implements HttpRequestInterceptor, HttpResponseInterceptor {
+
+    private static final String TAGS_ATTRIBUTE = ElasticHttpMetrics.class.getName() + ".tags";
+
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public void process(HttpRequest request, HttpContext context) {
+        String[] tags = tags(request.getRequestLine().getMethod(), request.getRequestLine().getUri());
+        context.setAttribute(TAGS_ATTRIBUTE, tags);
+        if (request instanceof HttpEntityEnclosingRequest) {
+            record("elastic.client.request.size", "요청 body 크기", tags, ((HttpEntityEnclosingRequest) request).getEntity());
+        }
+    }
+
+    @Override
+    public void process(HttpResponse response, HttpContext context) {
+        Object tags = context.getAttribute(TAGS_ATTRIBUTE);
+        if (tags instanceof String[]) {
+            record("elastic.client.response.size", "응답 body 크기", (String[]) tags, response.getEntity());
+        }
+    }
+
+    private void record(String name, String description, String[] tags, HttpEntity entity) {
+        //== chunked 나 압축 중인 body 는 길이를 모르므로(-1) 건너뛴다. ==//
+        if (entity == null || entity.getContentLength() < 0) {
+            return;
+        }
+        DistributionSummary.builder(name)
+                .description(description)
+                .baseUnit("bytes")
+                .tags(tags)
+                .register(meterRegistry)
+                .record(entity.getContentLength());
+    }
+
+    /**
+     * 경로의 첫 번째 _endpoint 를 operation 으로, 그 앞 segment 를 index 로 본다.
+     * _endpoint 가 없으면 인덱스 관리 요청(HEAD/PUT/DELETE /{index})이다.
+     */
+    static String[] tags(String method, String uri) {
+        String path = URI.create(uri).getPath();
+        String index = "_all";
+        String operation = null;
+        for (String segment : path.split("/")) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            if (segment.startsWith("_")) {
+                operation = segment.substring(1);
+                break;
+            }
+            index = segment;
+        }
+        if (operation == null) {
+            operation = "index_" + method.toLowerCase();
+        } else if ("search".equals(operation) && path.contains("/_search/scroll")) {
+            operation = "scroll";
+        } else if ("doc".equals(operation)) {
+            operation = "GET".equals(method) ? "get" : "index";
+        }
+        return new String[]{"operation", operation, "index", index};
+    }
+}
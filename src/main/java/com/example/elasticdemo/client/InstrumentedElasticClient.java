@@ -0,0 +1,411 @@
+package com.example.elasticdemo.client;
+
+import com.example.elasticdemo.jfr.ElasticRequestEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.admin.cluster.health.ClusterHealthRequest;
+import org.elasticsearch.action.admin.cluster.health.ClusterHealthResponse;
+import org.elasticsearch.action.admin.cluster.node.tasks.list.ListTasksResponse;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequest;
+import org.elasticsearch.action.admin.indices.alias.get.GetAliasesRequest;
+import org.elasticsearch.action.admin.indices.delete.DeleteIndexRequest;
+import org.elasticsearch.action.admin.indices.refresh.RefreshRequest;
+import org.elasticsearch.action.admin.indices.refresh.RefreshResponse;
+import org.elasticsearch.action.admin.indices.settings.get.GetSettingsRequest;
+import org.elasticsearch.action.admin.indices.settings.get.GetSettingsResponse;
+import org.elasticsearch.action.admin.indices.settings.put.UpdateSettingsRequest;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.get.GetRequest;
+import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.search.ClearScrollRequest;
+import org.elasticsearch.action.search.ClearScrollResponse;
+import org.elasticsearch.action.search.MultiSearchRequest;
+import org.elasticsearch.action.search.MultiSearchResponse;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchScrollRequest;
+import org.elasticsearch.action.support.master.AcknowledgedResponse;
+import org.elasticsearch.client.Cancellable;
+import org.elasticsearch.client.GetAliasesResponse;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.ResponseException;
+import org.elasticsearch.client.RestClient;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.client.RethrottleRequest;
+import org.elasticsearch.client.core.MultiTermVectorsRequest;
+import org.elasticsearch.client.core.MultiTermVectorsResponse;
+import org.elasticsearch.client.indices.AnalyzeRequest;
+import org.elasticsearch.client.indices.AnalyzeResponse;
+import org.elasticsearch.client.indices.CreateIndexRequest;
+import org.elasticsearch.client.indices.CreateIndexResponse;
+import org.elasticsearch.client.indices.GetFieldMappingsRequest;
+import org.elasticsearch.client.indices.GetFieldMappingsResponse;
+import org.elasticsearch.client.indices.GetIndexRequest;
+import org.elasticsearch.client.tasks.CancelTasksRequest;
+import org.elasticsearch.client.tasks.CancelTasksResponse;
+import org.elasticsearch.client.tasks.TaskSubmissionResponse;
+import org.elasticsearch.common.CheckedFunction;
+import org.elasticsearch.common.xcontent.DeprecationHandler;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.index.reindex.BulkByScrollResponse;
+import org.elasticsearch.index.reindex.ReindexRequest;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+
+/**
+ * RestHighLevelClient 호출마다 operation, index 태그로 지연과 실패를 기록한다.
+ * <ul>
+ *     <li>elastic.client.requests : 호출부터 응답 객체를 받을 때까지(outcome=success|error)</li>
+ *     <li>elastic.client.errors : 실패 수(exception=예외 이름 또는 HTTP status)</li>
+ *     <li>elastic.client.overhead : 위 지연에서 서버가 알려준 took 를 뺀 값. 네트워크, 커넥션 풀 대기, 직렬화와 JSON 파싱에 쓴 시간이다.</li>
+ * </ul>
+ * 요청/응답 크기는 HTTP 계층에서 ElasticHttpMetrics 가 기록하므로 getLowLevelClient() 로 보낸 요청도 포함된다.
+ * JFR 로 기록 중이면 호출마다 ElasticRequestEvent 도 남긴다.
+ */
+@Component
+public class InstrumentedElasticClient {
+
+    private final RestHighLevelClient client;
+    private final MeterRegistry meterRegistry;
+
+    public InstrumentedElasticClient(RestHighLevelClient client, MeterRegistry meterRegistry) {
+        this.client = client;
+        this.meterRegistry = meterRegistry;
+    }
+
+    //=========================== 검색 =============================//
+
+    public SearchResponse search(SearchRequest request) throws IOException {
+        return call("search", indexTag(request.indices()), options -> client.search(request, options),
+                response -> response.getTook().millis());
+    }
+
+    public Cancellable searchAsync(SearchRequest request, ActionListener<SearchResponse> listener) {
+        return callAsync("search", indexTag(request.indices()),
+                (options, wrapped) -> client.searchAsync(request, options, wrapped), listener,
+                response -> response.getTook().millis());
+    }
+
+    public SearchResponse scroll(SearchScrollRequest request) throws IOException {
+        return call("scroll", "_scroll", options -> client.scroll(request, options),
+                response -> response.getTook().millis());
+    }
+
+    public ClearScrollResponse clearScroll(ClearScrollRequest request) throws IOException {
+        return call("clear_scroll", "_scroll", options -> client.clearScroll(request, options), noTook());
+    }
+
+    public MultiSearchResponse msearch(MultiSearchRequest request) throws IOException {
+        return call("msearch", indexTag(request), options -> client.msearch(request, options),
+                response -> response.getTook().millis());
+    }
+
+    public Cancellable msearchAsync(MultiSearchRequest request, ActionListener<MultiSearchResponse> listener) {
+        return callAsync("msearch", indexTag(request),
+                (options, wrapped) -> client.msearchAsync(request, options, wrapped), listener,
+                response -> response.getTook().millis());
+    }
+
+    public GetResponse get(GetRequest request) throws IOException {
+        return call("get", indexTag(request.index()), options -> client.get(request, options), noTook());
+    }
+
+    //=========================== 색인 =============================//
+
+    public BulkResponse bulk(BulkRequest request) throws IOException {
+        return call("bulk", indexTag(request), options -> client.bulk(request, options),
+                response -> response.getTook().millis());
+    }
+
+    public Cancellable bulkAsync(BulkRequest request, ActionListener<BulkResponse> listener) {
+        return callAsync("bulk", indexTag(request),
+                (options, wrapped) -> client.bulkAsync(request, options, wrapped), listener,
+                response -> response.getTook().millis());
+    }
+
+    public BulkByScrollResponse reindex(ReindexRequest request) throws IOException {
+        return call("reindex", indexTag(request.getDestination().index()), options -> client.reindex(request, options),
+                response -> response.getTook().millis());
+    }
+
+    /**
+     * wait_for_completion=false 로 보내고 task id 만 받는다. 진행 상황은 Tasks API 로 확인한다.
+     */
+    public TaskSubmissionResponse submitReindexTask(ReindexRequest request) throws IOException {
+        return call("reindex_submit", indexTag(request.getDestination().index()),
+                options -> client.submitReindexTask(request, options), noTook());
+    }
+
+    /**
+     * 진행 중인 reindex 의 requests_per_second 를 바꾼다. 새 값은 다음 batch 부터 적용된다.
+     */
+    public ListTasksResponse reindexRethrottle(RethrottleRequest request) throws IOException {
+        return call("reindex_rethrottle", indexTag(), options -> client.reindexRethrottle(request, options), noTook());
+    }
+
+    //=========================== task =============================//
+
+    /**
+     * HLRC 의 GetTaskResponse 는 끝난 task 의 response, error 를 버리므로 GET _tasks/{id} 응답을 map 으로 그대로 돌려준다.
+     */
+    public Map<String, Object> getTask(String taskId) throws IOException {
+        return call("get_task", indexTag(), options -> {
+            Request request = new Request("GET", "/_tasks/" + taskId);
+            request.setOptions(options);
+            Response response = client.getLowLevelClient().performRequest(request);
+            try (InputStream content = response.getEntity().getContent();
+                 XContentParser parser = XContentType.JSON.xContent()
+                         .createParser(NamedXContentRegistry.EMPTY, DeprecationHandler.THROW_UNSUPPORTED_OPERATION, content)) {
+                return parser.map();
+            }
+        }, noTook());
+    }
+
+    public CancelTasksResponse cancelTask(CancelTasksRequest request) throws IOException {
+        return call("cancel_task", indexTag(), options -> client.tasks().cancel(request, options), noTook());
+    }
+
+    //=========================== 분석 =============================//
+
+    public AnalyzeResponse analyze(AnalyzeRequest request) throws IOException {
+        return call("analyze", indexTag(request.index()), options -> client.indices().analyze(request, options),
+                noTook());
+    }
+
+    public Cancellable analyzeAsync(AnalyzeRequest request, ActionListener<AnalyzeResponse> listener) {
+        return callAsync("analyze", indexTag(request.index()),
+                (options, wrapped) -> client.indices().analyzeAsync(request, options, wrapped), listener,
+                noTook());
+    }
+
+    /**
+     * 요청 객체에서 인덱스를 꺼낼 수 없으므로 태그로 쓸 index 를 따로 받는다.
+     */
+    public MultiTermVectorsResponse mtermvectors(String index, MultiTermVectorsRequest request) throws IOException {
+        return call("mtermvectors", indexTag(index), options -> client.mtermvectors(request, options), noTook());
+    }
+
+    //=========================== 인덱스 관리 =============================//
+
+    public CreateIndexResponse createIndex(CreateIndexRequest request) throws IOException {
+        return call("create_index", indexTag(request.index()), options -> client.indices().create(request, options),
+                noTook());
+    }
+
+    public AcknowledgedResponse deleteIndex(DeleteIndexRequest request) throws IOException {
+        return call("delete_index", indexTag(request.indices()), options -> client.indices().delete(request, options),
+                noTook());
+    }
+
+    public boolean existsIndex(GetIndexRequest request) throws IOException {
+        return call("exists_index", indexTag(request.indices()), options -> client.indices().exists(request, options),
+                noTook());
+    }
+
+    public GetSettingsResponse getSettings(GetSettingsRequest request) throws IOException {
+        return call("get_settings", indexTag(request.indices()), options -> client.indices().getSettings(request, options),
+                noTook());
+    }
+
+    public GetFieldMappingsResponse getFieldMapping(GetFieldMappingsRequest request) throws IOException {
+        return call("get_field_mapping", indexTag(request.indices()), options -> client.indices().getFieldMapping(request, options),
+                noTook());
+    }
+
+    public AcknowledgedResponse putSettings(UpdateSettingsRequest request) throws IOException {
+        return call("put_settings", indexTag(request.indices()), options -> client.indices().putSettings(request, options),
+                noTook());
+    }
+
+    public RefreshResponse refresh(RefreshRequest request) throws IOException {
+        return call("refresh", indexTag(request.indices()), options -> client.indices().refresh(request, options),
+                noTook());
+    }
+
+    /**
+     * wait_for_status 를 다 기다리지 못하면 예외가 아니라 isTimedOut() 이 true 인 응답이 온다.
+     */
+    public ClusterHealthResponse clusterHealth(ClusterHealthRequest request) throws IOException {
+        return call("cluster_health", indexTag(request.indices()), options -> client.cluster().health(request, options),
+                noTook());
+    }
+
+    public GetAliasesResponse getAlias(GetAliasesRequest request) throws IOException {
+        return call("get_alias", indexTag(request.indices()), options -> client.indices().getAlias(request, options),
+                noTook());
+    }
+
+    public AcknowledgedResponse updateAliases(IndicesAliasesRequest request) throws IOException {
+        String[] indices = request.getAliasActions().stream()
+                .flatMap(action -> Stream.of(action.indices()))
+                .toArray(String[]::new);
+        return call("update_aliases", indexTag(indices), options -> client.indices().updateAliases(request, options),
+                noTook());
+    }
+
+    /**
+     * 감싸지 않은 API(PIT 등)를 쓸 때. 요청/응답 크기만 HTTP 계층에서 기록된다.
+     */
+    public RestClient getLowLevelClient() {
+        return client.getLowLevelClient();
+    }
+
+    public RestHighLevelClient getDelegate() {
+        return client;
+    }
+
+    //=========================== 기록 =============================//
+
+    private <T> T call(String operation, String index, CheckedFunction<RequestOptions, T, IOException> invoker,
+                       ToLongFunction<T> took) throws IOException {
+        ElasticRequestEvent event = new ElasticRequestEvent();
+        RequestOptions options = RequestEventConsumer.options(event);
+        event.begin();
+        long start = System.nanoTime();
+        try {
+            T response = invoker.apply(options);
+            long tookMillis = took.applyAsLong(response);
+            recordSuccess(operation, index, System.nanoTime() - start, tookMillis);
+            commit(event, operation, index, tookMillis, true);
+            return response;
+        } catch (IOException | RuntimeException e) {
+            recordFailure(operation, index, System.nanoTime() - start, e);
+            commit(event, operation, index, -1, false);
+            throw e;
+        }
+    }
+
+    private <T> Cancellable callAsync(String operation, String index, BiFunction<RequestOptions, ActionListener<T>, Cancellable> invoker,
+                                      ActionListener<T> listener, ToLongFunction<T> took) {
+        ElasticRequestEvent event = new ElasticRequestEvent();
+        RequestOptions options = RequestEventConsumer.options(event);
+        event.begin();
+        long start = System.nanoTime();
+        return invoker.apply(options, new ActionListener<T>() {
+            //== 호출한 쪽의 onResponse 가 던지면 HLRC 가 같은 listener 의 onFailure 를 부르므로 기록은 한 번만 한다. ==//
+            private boolean recorded;
+
+            @Override
+            public void onResponse(T response) {
+                long tookMillis = took.applyAsLong(response);
+                recordSuccess(operation, index, System.nanoTime() - start, tookMillis);
+                commit(event, operation, index, tookMillis, true);
+                recorded = true;
+                listener.onResponse(response);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                if (!recorded) {
+                    recorded = true;
+                    recordFailure(operation, index, System.nanoTime() - start, e);
+                    commit(event, operation, index, -1, false);
+                }
+                listener.onFailure(e);
+            }
+        });
+    }
+
+    private static void commit(ElasticRequestEvent event, String operation, String index, long tookMillis, boolean success) {
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.index = index;
+            event.took = tookMillis;
+            event.success = success;
+            event.commit();
+        }
+    }
+
+    private void recordSuccess(String operation, String index, long nanos, long tookMillis) {
+        timer(operation, index, "success").record(nanos, TimeUnit.NANOSECONDS);
+        if (tookMillis >= 0) {
+            Timer.builder("elastic.client.overhead")
+                    .description("클라이언트가 잰 지연 - 서버 took")
+                    .tag("operation", operation)
+                    .tag("index", index)
+                    .register(meterRegistry)
+                    .record(Math.max(0, nanos - TimeUnit.MILLISECONDS.toNanos(tookMillis)), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void recordFailure(String operation, String index, long nanos, Exception e) {
+        timer(operation, index, "error").record(nanos, TimeUnit.NANOSECONDS);
+        Counter.builder("elastic.client.errors")
+                .description("Elasticsearch 호출 실패 수")
+                .tag("operation", operation)
+                .tag("index", index)
+                .tag("exception", errorTag(e))
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private Timer timer(String operation, String index, String outcome) {
+        return Timer.builder("elastic.client.requests")
+                .description("Elasticsearch 호출 지연")
+                .tag("operation", operation)
+                .tag("index", index)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    //== 응답 status 가 있으면 status 로, 없으면(연결 실패, 시간 초과) 예외 이름으로 묶는다. ==//
+    static String errorTag(Exception e) {
+        if (e instanceof ElasticsearchStatusException) {
+            return String.valueOf(((ElasticsearchStatusException) e).status().getStatus());
+        }
+        //== getLowLevelClient() 를 거친 호출(getTask 등)의 실패 ==//
+        if (e instanceof ResponseException) {
+            return String.valueOf(((ResponseException) e).getResponse().getStatusLine().getStatusCode());
+        }
+        return e.getClass().getSimpleName();
+    }
+
+    //== took 이 없는 응답 ==//
+    private static <T> ToLongFunction<T> noTook() {
+        return response -> -1;
+    }
+
+    static String indexTag(String... indices) {
+        if (indices == null || indices.length == 0) {
+            return "_all";
+        }
+        Set<String> names = new TreeSet<>();
+        for (String index : indices) {
+            if (index != null) {
+                names.add(index);
+            }
+        }
+        return names.isEmpty() ? "_all" : String.join(",", names);
+    }
+
+    private static String indexTag(MultiSearchRequest request) {
+        return indexTag(request.requests().stream()
+                .flatMap(search -> Stream.of(search.indices()))
+                .toArray(String[]::new));
+    }
+
+    private static String indexTag(BulkRequest request) {
+        return indexTag(request.requests().stream()
+                .map(DocWriteRequest::index)
+                .distinct()
+                .toArray(String[]::new));
+    }
+}
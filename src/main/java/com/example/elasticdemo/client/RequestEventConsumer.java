@@ -0,0 +1,54 @@
+package com.example.elasticdemo.client;
+
+import com.example.elasticdemo.jfr.ElasticRequestEvent;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpCoreContext;
+import org.elasticsearch.client.HeapBufferedAsyncResponseConsumer;
+import org.elasticsearch.client.RequestOptions;
+
+/**
+ * 기본 consumer 와 같이 응답을 heap 에 모으면서, 다 받은 시점에 요청/응답 body 크기를 JFR event 에 적는다.
+ * HttpContext 에는 실제로 보낸 HttpRequest 가 들어 있어서 HLRC 가 직렬화한 body 의 길이를 알 수 있다.
+ */
+class RequestEventConsumer extends HeapBufferedAsyncResponseConsumer {
+
+    //== RequestOptions.DEFAULT 와 같은 한도(100MB) ==//
+    private static final int BUFFER_LIMIT = 100 * 1024 * 1024;
+
+    private final ElasticRequestEvent event;
+
+    private RequestEventConsumer(ElasticRequestEvent event) {
+        super(BUFFER_LIMIT);
+        this.event = event;
+    }
+
+    /**
+     * JFR 로 기록 중이 아니면 RequestOptions.DEFAULT 를 그대로 쓰므로 비용이 없다.
+     */
+    static RequestOptions options(ElasticRequestEvent event) {
+        if (!event.isEnabled()) {
+            return RequestOptions.DEFAULT;
+        }
+        RequestOptions.Builder builder = RequestOptions.DEFAULT.toBuilder();
+        builder.setHttpAsyncResponseConsumerFactory(() -> new RequestEventConsumer(event));
+        return builder.build();
+    }
+
+    @Override
+    protected HttpResponse buildResult(HttpContext context) throws Exception {
+        HttpResponse response = super.buildResult(context);
+        Object request = context.getAttribute(HttpCoreContext.HTTP_REQUEST);
+        if (request instanceof HttpEntityEnclosingRequest) {
+            event.requestBytes = length(((HttpEntityEnclosingRequest) request).getEntity());
+        }
+        event.responseBytes = length(response.getEntity());
+        return response;
+    }
+
+    private static long length(HttpEntity entity) {
+        return entity == null ? 0 : Math.max(0, entity.getContentLength());
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.elasticdemo.config;
+
+import com.example.elasticdemo.client.ElasticHttpMetrics;
+import lombok.RequiredArgsConstructor;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.HttpResponseInterceptor;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.elasticsearch.client.RestClient;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 애플리케이션 전체에서 공유하는 RestHighLevelClient 설정.
+ * 커넥션 풀은 직접 만들어서 주입해야 사용량을 메트릭으로 노출할 수 있다.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class ElasticClientConfig {
+
+    private final ElasticClientProperties properties;
+
+    @Bean
+    public PoolingNHttpClientConnectionManager elasticConnectionManager() throws IOReactorException {
+        ElasticClientProperties.Pool pool = properties.getPool();
+        IOReactorConfig ioReactorConfig = IOReactorConfig.custom()
+                .setIoThreadCount(pool.getIoThreadCount())
+                .setConnectTimeout((int) pool.getConnectTimeout().toMillis())
+                .setSoTimeout((int) pool.getSocketTimeout().toMillis())
+                .setSoKeepAlive(true)
+                .build();
+
+        PoolingNHttpClientConnectionManager connectionManager =
+                new PoolingNHttpClientConnectionManager(new DefaultConnectingIOReactor(ioReactorConfig));
+        connectionManager.setMaxTotal(pool.getMaxConnTotal());
+        connectionManager.setDefaultMaxPerRoute(pool.getMaxConnPerRoute());
+        return connectionManager;
+    }
+
+    @Bean(destroyMethod = "close")
+    public RestHighLevelClient restHighLevelClient(PoolingNHttpClientConnectionManager elasticConnectionManager,
+                                                   ElasticHttpMetrics elasticHttpMetrics) {
+        ElasticClientProperties.Pool pool = properties.getPool();
+        long keepAliveMillis = pool.getKeepAlive().toMillis();
+
+        return new RestHighLevelClient(
+                RestClient.builder(
+                                new HttpHost(properties.getHost(), properties.getPort(), properties.getScheme())
+                        )
+                        //== 커넥션 매니저를 지정하면 builder 의 maxConnTotal/maxConnPerRoute 는 무시된다. ==//
+                        .setHttpClientConfigCallback(httpClientBuilder -> httpClientBuilder
+                                .setConnectionManager(elasticConnectionManager)
+                                .setKeepAliveStrategy((response, context) -> {
+                                    //== 서버가 Keep-Alive: timeout=N 을 주면 그 값을, 없으면(-1) 설정값을 쓴다. ==//
+                                    long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                                    return serverKeepAlive >= 0 ? serverKeepAlive : keepAliveMillis;
+                                })
+                                //== 요청/응답 body 크기 기록 ==//
+                                .addInterceptorLast((HttpRequestInterceptor) elasticHttpMetrics)
+                                .addInterceptorLast((HttpResponseInterceptor) elasticHttpMetrics))
+                        .setRequestConfigCallback(requestConfigBuilder -> requestConfigBuilder
+                                .setConnectTimeout((int) pool.getConnectTimeout().toMillis())
+                                .setSocketTimeout((int) pool.getSocketTimeout().toMillis()))
+        );
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.elasticdemo.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "elastic")
+public class ElasticClientProperties {
+
+    private String host = "localhost";
+    private int port = 9200;
+    private String scheme = "http";
+
+    private final Pool pool = new Pool();
+
+    @Getter
+    @Setter
+    public static class Pool {
+        //== 전체 커넥션 수 / 노드(route) 당 커넥션 수 ==//
+        private int maxConnTotal = 30;
+        private int maxConnPerRoute = 10;
+        //== 서버가 Keep-Alive 헤더를 주지 않을 때 커넥션을 재사용할 최대 시간 ==//
+        private Duration keepAlive = Duration.ofMinutes(1);
+        private int ioThreadCount = Runtime.getRuntime().availableProcessors();
+        private Duration connectTimeout = Duration.ofSeconds(1);
+        private Duration socketTimeout = Duration.ofSeconds(30);
+    }
+}
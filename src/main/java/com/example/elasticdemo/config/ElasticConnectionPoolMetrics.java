@@ -0,0 +1,35 @@
+package com.example.elasticdemo.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.springframework.stereotype.Component;
+
+/**
+ * ElasticSearch 커넥션 풀 사용량을 Micrometer gauge 로 노출한다.
+ * leased 가 max 에 붙어 있고 pending 이 쌓이면 풀이 작다는 뜻이다.
+ */
+@Component
+@RequiredArgsConstructor
+public class ElasticConnectionPoolMetrics implements MeterBinder {
+
+    private final PoolingNHttpClientConnectionManager elasticConnectionManager;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("elastic.client.pool.leased", elasticConnectionManager, cm -> cm.getTotalStats().getLeased())
+                .description("사용 중인 커넥션 수")
+                .register(registry);
+        Gauge.builder("elastic.client.pool.available", elasticConnectionManager, cm -> cm.getTotalStats().getAvailable())
+                .description("유휴 커넥션 수")
+                .register(registry);
+        Gauge.builder("elastic.client.pool.pending", elasticConnectionManager, cm -> cm.getTotalStats().getPending())
+                .description("커넥션을 기다리는 요청 수")
+                .register(registry);
+        Gauge.builder("elastic.client.pool.max", elasticConnectionManager, cm -> cm.getTotalStats().getMax())
+                .description("최대 커넥션 수")
+                .register(registry);
+    }
+}
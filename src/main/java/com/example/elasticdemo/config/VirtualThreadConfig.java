@@ -0,0 +1,76 @@
+package com.example.elasticdemo.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.coyote.AbstractProtocol;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Condition;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * elastic.virtual-threads.enabled=true 이고 JDK 24 이상에서 실행하면
+ * Tomcat 의 요청 처리와 Spring 의 비동기 작업을 가상 스레드에서 실행한다.
+ * RestHighLevelClient 의 동기 호출은 httpcore 의 BasicFuture.get() 에서 synchronized + Object.wait() 로 기다리는데,
+ * JDK 24(JEP 491)부터는 이때 carrier 스레드를 놓아주므로 커넥션 풀(elastic.pool)이 동시 처리량의 상한이 된다.
+ * JDK 21~23 에서는 carrier 스레드가 고정되어 동시 호출 수가 코어 수 정도로 묶이므로(Tomcat 기본 200 스레드보다 느리다)
+ * 경고만 남기고 기존 스레드 풀을 그대로 사용한다.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(prefix = "elastic.virtual-threads", name = "enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    public VirtualThreadConfig() {
+        if (!VirtualThreads.isSupported()) {
+            log.warn("elastic.virtual-threads.enabled=true but JDK {} has no virtual threads, using platform threads",
+                    Runtime.version().feature());
+        } else if (!VirtualThreads.isBlockingClientFriendly()) {
+            log.warn("elastic.virtual-threads.enabled=true but JDK {} pins carrier threads while RestClient waits for a response, "
+                    + "using platform threads (requires JDK {}+)", Runtime.version().feature(), VirtualThreads.UNPINNED_MONITORS_FEATURE);
+        }
+    }
+
+    //== 중첩 @Configuration 은 component scan 으로 따로 등록되므로 바깥 클래스의 조건을 다시 건다. ==//
+    @Configuration
+    @ConditionalOnProperty(prefix = "elastic.virtual-threads", name = "enabled", havingValue = "true")
+    @Conditional(VirtualThreadsSupported.class)
+    static class VirtualThreadExecutorConfig {
+
+        @Bean(destroyMethod = "shutdown")
+        public ExecutorService virtualThreadExecutor() {
+            log.info("request handling runs on virtual threads");
+            return VirtualThreads.newVirtualThreadPerTaskExecutor().orElseThrow();
+        }
+
+        @Bean
+        public TomcatProtocolHandlerCustomizer<AbstractProtocol<?>> virtualThreadProtocolHandlerCustomizer(ExecutorService virtualThreadExecutor) {
+            return protocolHandler -> protocolHandler.setExecutor(virtualThreadExecutor);
+        }
+
+        /**
+         * @Async, CompletableFuture/Callable 을 반환하는 MVC 핸들러가 사용하는 executor.
+         * 이름이 같으므로 Spring Boot 가 만드는 기본 ThreadPoolTaskExecutor 를 대신한다.
+         */
+        @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME, "taskExecutor"})
+        public AsyncTaskExecutor applicationTaskExecutor(ExecutorService virtualThreadExecutor) {
+            return new TaskExecutorAdapter(virtualThreadExecutor);
+        }
+    }
+
+    static class VirtualThreadsSupported implements Condition {
+
+        @Override
+        public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+            return VirtualThreads.isBlockingClientFriendly();
+        }
+    }
+}
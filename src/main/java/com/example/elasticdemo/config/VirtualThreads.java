@@ -0,0 +1,52 @@
+package com.example.elasticdemo.config;
+
+import java.lang.reflect.Method;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 소스는 Java 11 로 컴파일하므로 가상 스레드 API 는 리플렉션으로 찾는다.
+ * 가상 스레드를 지원하지 않는 JDK 에서는 빈 값을 돌려준다.
+ */
+public final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    //== JEP 491. 이전 JDK 에서는 synchronized 안에서 기다리는 가상 스레드가 carrier 스레드를 붙잡는다. ==//
+    static final int UNPINNED_MONITORS_FEATURE = 24;
+
+    public static boolean isSupported() {
+        return factoryMethod().isPresent();
+    }
+
+    /**
+     * RestClient.performRequest 는 synchronized 인 BasicFuture.get() 안에서 Object.wait() 로 응답을 기다린다.
+     * JDK 24 미만에서는 이때 carrier 스레드가 고정되어 동시 호출 수가 carrier 수(대략 코어 수)로 묶인다.
+     */
+    public static boolean isBlockingClientFriendly() {
+        return isSupported() && Runtime.version().feature() >= UNPINNED_MONITORS_FEATURE;
+    }
+
+    /**
+     * 작업마다 가상 스레드를 하나씩 만드는 executor (Executors.newVirtualThreadPerTaskExecutor).
+     */
+    public static Optional<ExecutorService> newVirtualThreadPerTaskExecutor() {
+        return factoryMethod().map(method -> {
+            try {
+                return (ExecutorService) method.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("failed to create virtual thread executor", e);
+            }
+        });
+    }
+
+    private static Optional<Method> factoryMethod() {
+        try {
+            return Optional.of(Executors.class.getMethod("newVirtualThreadPerTaskExecutor"));
+        } catch (NoSuchMethodException e) {
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.elasticdemo.export;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "elastic.export")
+public class ExportProperties {
+
+    //== scroll 한 번에 가져오는 문서 수 ==//
+    private int pageSize = 1000;
+
+    //== 다음 scroll 요청까지 context 를 유지하는 시간 ==//
+    private Duration scrollKeepAlive = Duration.ofMinutes(1);
+
+    //== 0 이면 인덱스의 primary shard 수만큼 slice 를 나눈다. ==//
+    private int slices = 0;
+}
@@ -0,0 +1,26 @@
+package com.example.elasticdemo.export;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public class ExportResult {
+
+    private final String index;
+    private final int slices;
+    private final long documents;
+    //== 압축 후 기록한 바이트 수 ==//
+    private final long bytes;
+    private final long elapsedMillis;
+
+    public double getDocsPerSecond() {
+        return elapsedMillis == 0 ? documents : documents * 1000.0 / elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("index=%s, slices=%d, docs=%d, bytes=%d, elapsed=%dms, docs/s=%.1f",
+                index, slices, documents, bytes, elapsedMillis, getDocsPerSecond());
+    }
+}
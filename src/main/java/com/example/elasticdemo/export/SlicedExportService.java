@@ -0,0 +1,186 @@
+package com.example.elasticdemo.export;
+
+import com.example.elasticdemo.client.InstrumentedElasticClient;
+import com.example.elasticdemo.search.SearchSources;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.action.admin.indices.settings.get.GetSettingsRequest;
+import org.elasticsearch.action.admin.indices.settings.get.GetSettingsResponse;
+import org.elasticsearch.action.search.ClearScrollRequest;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchScrollRequest;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.slice.SliceBuilder;
+import org.elasticsearch.search.sort.SortBuilders;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 인덱스 전체를 sliced scroll 로 나눠 동시에 읽고 gzip NDJSON 으로 내보낸다.
+ * 한 줄은 {"_id":..,"_source":{..}} 형태이다.
+ * slice 마다 한 페이지씩 각자의 스레드에서 압축한 뒤 gzip member 단위로 이어 붙이므로
+ * 압축도 병렬로 진행되고, 결과 파일은 일반 gzip 도구(GZIPInputStream 포함)로 그대로 읽힌다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SlicedExportService {
+
+    private static final String NUMBER_OF_SHARDS = IndexMetadata.SETTING_NUMBER_OF_SHARDS;
+    private static final byte[] ID_PREFIX = "{\"_id\":\"".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] SOURCE_PREFIX = "\",\"_source\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] LINE_END = "}\n".getBytes(StandardCharsets.UTF_8);
+
+    private final InstrumentedElasticClient client;
+    private final ExportProperties properties;
+
+    public ExportResult export(String index, SearchSourceBuilder source, Path target) throws IOException {
+        try (OutputStream out = Files.newOutputStream(target)) {
+            return export(index, source, out);
+        }
+    }
+
+    /**
+     * out 은 닫지 않는다.
+     */
+    public ExportResult export(String index, SearchSourceBuilder source, OutputStream out) throws IOException {
+        int slices = properties.getSlices() > 0 ? properties.getSlices() : primaryShards(index);
+        long start = System.currentTimeMillis();
+        LongAdder documents = new LongAdder();
+        LongAdder bytes = new LongAdder();
+
+        ExecutorService executor = Executors.newFixedThreadPool(slices);
+        try {
+            List<CompletableFuture<Void>> futures = new ArrayList<>(slices);
+            for (int slice = 0; slice < slices; slice++) {
+                SearchSourceBuilder sliced = prepare(source, slice, slices);
+                futures.add(CompletableFuture.runAsync(() -> exportSlice(index, sliced, out, documents, bytes), executor));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+            throw e;
+        } finally {
+            executor.shutdownNow();
+        }
+        out.flush();
+
+        ExportResult result = new ExportResult(index, slices, documents.sum(), bytes.sum(), System.currentTimeMillis() - start);
+        log.info("export finished: {}", result);
+        return result;
+    }
+
+    private int primaryShards(String index) throws IOException {
+        GetSettingsRequest request = new GetSettingsRequest()
+                .indices(index)
+                .names(NUMBER_OF_SHARDS);
+        GetSettingsResponse response = client.getSettings(request);
+        //== alias 로 요청해도 실제 인덱스 이름으로 응답이 오므로 첫 번째 인덱스의 값을 사용한다. ==//
+        Iterator<Settings> settings = response.getIndexToSettings().valuesIt();
+        return settings.hasNext() ? settings.next().getAsInt(NUMBER_OF_SHARDS, 1) : 1;
+    }
+
+    private SearchSourceBuilder prepare(SearchSourceBuilder source, int slice, int slices) {
+        //== 순서가 필요 없는 전체 덤프이므로 _doc 정렬로 점수 계산을 생략한다. ==//
+        //== slice 마다 sort 를 덧붙이므로 원본과 sort 목록을 공유하지 않는 사본을 쓴다. ==//
+        SearchSourceBuilder copy = SearchSources.copy(source)
+                .size(properties.getPageSize())
+                .sort(SortBuilders.fieldSort("_doc"));
+        //== _source 를 그대로 옮기는 덤프이므로 꺼져 있으면 켠다. includes/excludes 는 그대로 둔다. ==//
+        if (copy.fetchSource() != null && !copy.fetchSource().fetchSource()) {
+            copy.fetchSource(true);
+        }
+        if (slices > 1) {
+            copy.slice(new SliceBuilder(slice, slices));
+        }
+        return copy;
+    }
+
+    private void exportSlice(String index, SearchSourceBuilder source, OutputStream out, LongAdder documents, LongAdder bytes) {
+        TimeValue keepAlive = TimeValue.timeValueMillis(properties.getScrollKeepAlive().toMillis());
+        String scrollId = null;
+        try {
+            SearchResponse response = client.search(new SearchRequest(index).source(source).scroll(keepAlive));
+            scrollId = response.getScrollId();
+            SearchHit[] hits = response.getHits().getHits();
+            while (hits.length > 0) {
+                byte[] member = compress(hits);
+                //== 압축이 끝난 gzip member 만 잠금 안에서 기록한다. ==//
+                synchronized (out) {
+                    out.write(member);
+                }
+                documents.add(Arrays.stream(hits).filter(SearchHit::hasSource).count());
+                bytes.add(member.length);
+
+                SearchScrollRequest scrollRequest = new SearchScrollRequest(scrollId).scroll(keepAlive);
+                response = client.scroll(scrollRequest);
+                scrollId = response.getScrollId();
+                hits = response.getHits().getHits();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            clearScroll(scrollId);
+        }
+    }
+
+    private static byte[] compress(SearchHit[] hits) throws IOException {
+        JsonStringEncoder encoder = JsonStringEncoder.getInstance();
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(buffer, 64 * 1024)) {
+            for (SearchHit hit : hits) {
+                //== mapping 에서 _source 를 끈 인덱스의 문서는 옮길 내용이 없다. ==//
+                if (!hit.hasSource()) {
+                    continue;
+                }
+                gzip.write(ID_PREFIX);
+                gzip.write(encoder.quoteAsUTF8(hit.getId()));
+                gzip.write(SOURCE_PREFIX);
+                //== _source 는 파싱하지 않고 응답 바이트를 그대로 옮긴다. ==//
+                hit.getSourceRef().writeTo(gzip);
+                gzip.write(LINE_END);
+            }
+        }
+        return buffer.toByteArray();
+    }
+
+    private void clearScroll(String scrollId) {
+        if (scrollId == null) {
+            return;
+        }
+        ClearScrollRequest request = new ClearScrollRequest();
+        request.addScrollId(scrollId);
+        try {
+            client.clearScroll(request);
+        } catch (IOException | RuntimeException e) {
+            //== 실패해도 keep alive 가 지나면 서버에서 정리된다. ==//
+            log.warn("failed to clear scroll", e);
+        }
+    }
+}
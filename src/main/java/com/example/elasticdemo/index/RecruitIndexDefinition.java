@@ -0,0 +1,142 @@
+package com.example.elasticdemo.index;
+
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+
+import java.io.IOException;
+
+/**
+ * 구직공고 인덱스(nori 분석기)의 settings 와 mappings.
+ */
+public final class RecruitIndexDefinition {
+
+    public static final String NUMBER_OF_SHARDS = "number_of_shards";
+    public static final String NUMBER_OF_REPLICAS = "number_of_replicas";
+    public static final String GRAVYLAB_NORI_TOKENIZER = "gravylab_nori_tokenizer";
+    public static final String GRAVYLAB_NORI_ANALYZER = "gravylab_nori_analyzer";
+    public static final String GRAVYLAB_NORI_POSTFILTER = "gravylab-nori-postfilter";
+    public static final String GRAVYLAB_SYNONYM_FILTER = "gravylab-synonym-filter";
+    public static final String GRAVYLAB_STOP_FILTER = "gravylab-stop-filter";
+
+    private static final String[] FILTERS = {
+            GRAVYLAB_NORI_POSTFILTER
+            , "nori_readingform"
+            , GRAVYLAB_SYNONYM_FILTER
+            , GRAVYLAB_STOP_FILTER
+    };
+
+    private static final String[] ONLY_NOUNS = {"E", "J", "IC", "MAG", "MAJ", "NA", "SC",
+            "SE", "SH", "SP", "SSC", "SSO", "UNA", "UNKNOWN",
+            "VCP", "VCN", "VSV", "XPN", "XSA", "XSV", "SY", "VA", "VV", "VX"};
+
+    private RecruitIndexDefinition() {
+    }
+
+    public static XContentBuilder mappings() throws IOException {
+        XContentBuilder mappingBuilder = XContentFactory.jsonBuilder();
+
+        mappingBuilder.startObject();
+        {
+            mappingBuilder.startObject("properties");
+            {
+                defineWithAnalyzer(mappingBuilder, "searchWord", "text", GRAVYLAB_NORI_ANALYZER);
+                defineWithAnalyzer(mappingBuilder, "source", "text", GRAVYLAB_NORI_ANALYZER);
+                defineWithAnalyzer(mappingBuilder, "companyName", "text", GRAVYLAB_NORI_ANALYZER);
+                defineWithAnalyzer(mappingBuilder, "companyAddress", "text", GRAVYLAB_NORI_ANALYZER);
+                defineWithAnalyzer(mappingBuilder, "description", "text", GRAVYLAB_NORI_ANALYZER);
+                defineWithAnalyzer(mappingBuilder, "position", "text", GRAVYLAB_NORI_ANALYZER);
+                defineWithAnalyzer(mappingBuilder, "workArea", "text", GRAVYLAB_NORI_ANALYZER);
+                defineWithAnalyzer(mappingBuilder, "employmentType", "text", GRAVYLAB_NORI_ANALYZER);
+                defineWithAnalyzer(mappingBuilder, "welfare", "text", GRAVYLAB_NORI_ANALYZER);
+                defineWithAnalyzer(mappingBuilder, "hashtag", "text", GRAVYLAB_NORI_ANALYZER);
+                //== 자동 완성 증분 수집이 정렬하고 범위로 조회하므로 date 여야 한다. ==//
+                defineWithoutAnalyzer(mappingBuilder, "created", "date");
+
+            }
+            mappingBuilder.endObject();
+        }
+        mappingBuilder.endObject();
+        return mappingBuilder;
+    }
+
+    private static void defineWithoutAnalyzer(XContentBuilder mappingBuilder, String field, String type) throws IOException {
+        mappingBuilder.startObject(field);
+        {
+            mappingBuilder.field("type", type);
+        }
+        mappingBuilder.endObject();
+    }
+
+    private static void defineWithAnalyzer(XContentBuilder mappingBuilder, String field, String type, String analyzer) throws IOException {
+        mappingBuilder.startObject(field);
+        {
+            mappingBuilder.field("type", type);
+            mappingBuilder.field("analyzer", analyzer);
+        }
+        mappingBuilder.endObject();
+    }
+
+    public static XContentBuilder settings() throws IOException {
+        XContentBuilder builder = XContentFactory.jsonBuilder();
+        builder.startObject();
+        {
+            builder.field(NUMBER_OF_SHARDS, 5);
+            builder.field(NUMBER_OF_REPLICAS, 1);
+
+            builder.startObject("analysis");
+            {
+                builder.startObject("tokenizer");
+                {
+                    builder.startObject(GRAVYLAB_NORI_TOKENIZER);
+                    {
+                        builder.field("type", "nori_tokenizer");
+                        builder.field("decompound_mode", "none");
+                        builder.field("user_dictionary", "user_dictionary.txt");
+                    }
+                    builder.endObject();
+                }
+                builder.endObject();
+
+                builder.startObject("analyzer");
+                {
+                    builder.startObject(GRAVYLAB_NORI_ANALYZER);
+                    {
+                        builder.field("type", "custom");
+                        builder.field("tokenizer", GRAVYLAB_NORI_TOKENIZER);
+                        builder.array("filter", FILTERS);
+                    }
+                    builder.endObject();
+                }
+                builder.endObject();
+
+                // 쿼리 실행 후 실행되는 필터
+                builder.startObject("filter");
+                {
+                    builder.startObject(GRAVYLAB_NORI_POSTFILTER);
+                    {
+                        builder.field("type", "nori_part_of_speech");
+                        builder.array("stoptags", ONLY_NOUNS);
+                    }
+                    builder.endObject();
+                    builder.startObject(GRAVYLAB_SYNONYM_FILTER);
+                    {
+                        // 동의어 필터
+                        builder.field("type", "synonym");
+                        builder.field("synonyms_path", "synonymsFilter.txt");
+                    }
+                    builder.endObject();
+                    builder.startObject(GRAVYLAB_STOP_FILTER);
+                    {
+                        builder.field("type", "stop");
+                        builder.field("stopwords_path", "stopFilter.txt");
+                    }
+                    builder.endObject();
+                }
+                builder.endObject();
+            }
+            builder.endObject();
+        }
+        builder.endObject();
+        return builder;
+    }
+}
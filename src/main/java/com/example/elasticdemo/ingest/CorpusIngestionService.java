@@ -0,0 +1,106 @@
+package com.example.elasticdemo.ingest;
+
+import com.example.elasticdemo.bulk.BulkIndexingService;
+import com.example.elasticdemo.bulk.BulkSession;
+import com.example.elasticdemo.bulk.BulkStats;
+import com.example.elasticdemo.bulk.BulkTracker;
+import com.example.elasticdemo.model.BulkRequestModel;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * 날짜 폴더별 크롤링 결과를 작업 단위로 나눠 병렬로 읽고, 하나의 BulkSession 으로 모아 색인한다.
+ * 작업 단위의 모든 문서가 응답을 받으면 체크포인트에 기록하여 재실행 시 건너뛴다.
+ * 읽지 못한 파일이 있는 단위는 기록하지 않아 다음 실행에서 다시 읽는다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CorpusIngestionService {
+
+    private final RecruitCorpusReader corpusReader;
+    private final BulkIndexingService bulkIndexingService;
+    private final IngestionProperties properties;
+    private final PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+
+    public BulkStats ingest(String locationPattern, String index, Predicate<BulkRequestModel> filter) throws IOException {
+        Resource[] resources = resolver.getResources(locationPattern);
+
+        try (IngestCheckpoint checkpoint = new IngestCheckpoint(properties.getCheckpointPath())) {
+            List<WorkUnit> units = WorkUnit.group(resources, checkpoint.getCompleted());
+            log.info("{} files already indexed, {} units to go : {}",
+                    checkpoint.getCompleted().size(), units.size(), WorkUnit.describe(units));
+
+            int parallelism = properties.getParallelism();
+            //== 큐가 가득 차면 제출한 스레드가 직접 실행하여 작업이 무한히 쌓이지 않도록 한다. ==//
+            ExecutorService executor = new ThreadPoolExecutor(parallelism, parallelism, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(parallelism), new ThreadPoolExecutor.CallerRunsPolicy());
+
+            BulkSession session = bulkIndexingService.openSession();
+            List<CompletableFuture<CompletableFuture<BulkTracker>>> parsed = new ArrayList<>();
+            List<CompletableFuture<BulkTracker>> completions = new ArrayList<>();
+            try (session) {
+                for (WorkUnit unit : units) {
+                    CompletableFuture<CompletableFuture<BulkTracker>> parsing =
+                            CompletableFuture.supplyAsync(() -> ingestUnit(session, unit, index, filter), executor);
+                    CompletableFuture<BulkTracker> completion = parsing.thenCompose(Function.identity());
+                    //== 단위가 끝나는 즉시 기록해야 도중에 죽어도 재실행 시 끝난 단위를 다시 색인하지 않는다. ==//
+                    completion.thenAccept(tracker -> markCompleted(checkpoint, unit, tracker));
+                    parsed.add(parsing);
+                    completions.add(completion);
+                }
+                //== 파싱이 모두 끝나야 session 을 닫을 수 있다. close() 는 남은 응답까지 기다린다. ==//
+                CompletableFuture.allOf(parsed.toArray(new CompletableFuture[0]))
+                        .exceptionally(e -> null)
+                        .join();
+            } finally {
+                executor.shutdown();
+            }
+
+            //== 읽지 못한 파일이 있거나, 실패했거나, 시간 안에 끝나지 않은 단위는 체크포인트에 남지 않아 다음 실행에서 다시 색인된다. ==//
+            for (int i = 0; i < units.size(); i++) {
+                CompletableFuture<BulkTracker> completion = completions.get(i);
+                if (!completion.isDone() || completion.isCompletedExceptionally()) {
+                    log.warn("unit {} did not complete", units.get(i), completion.handle((tracker, e) -> e).getNow(null));
+                }
+            }
+            return session.getStats();
+        }
+    }
+
+    private CompletableFuture<BulkTracker> ingestUnit(BulkSession session, WorkUnit unit, String index, Predicate<BulkRequestModel> filter) {
+        BulkTracker tracker = new BulkTracker();
+        List<String> unreadable = new ArrayList<>();
+        corpusReader.read(resource -> unreadable.add(WorkUnit.fileKey(resource)), unit.getResources().toArray(new Resource[0]))
+                .filter(filter)
+                .forEach(document -> session.add(index, document.getPositionId(), document, tracker));
+        //== 읽은 문서는 그대로 색인하되, 단위는 완료로 남기지 않는다. ==//
+        return tracker.seal().thenApply(done -> {
+            if (!unreadable.isEmpty()) {
+                throw new IllegalStateException(unreadable.size() + " unreadable files " + unreadable
+                        + " (" + done.getSucceeded() + " indexed, " + done.getFailed() + " dead-lettered)");
+            }
+            return done;
+        });
+    }
+
+    //== bulk 응답 스레드에서 불리므로 예외를 던지지 않는다. 기록하지 못한 단위는 다음 실행에서 다시 색인된다. ==//
+    private void markCompleted(IngestCheckpoint checkpoint, WorkUnit unit, BulkTracker tracker) {
+        try {
+            checkpoint.markCompleted(unit.getFileKeys());
+            log.info("unit {} done : {} indexed, {} dead-lettered", unit, tracker.getSucceeded(), tracker.getFailed());
+        } catch (IOException e) {
+            log.error("failed to checkpoint unit {}", unit, e);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.elasticdemo.ingest;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 색인이 끝난 파일을 한 줄씩 기록하는 로컬 체크포인트.
+ * 작업 단위가 모두 응답을 받은 뒤에만 기록하므로, 중간에 죽더라도 기록된 파일은 색인이 끝난 것이다.
+ */
+public class IngestCheckpoint implements AutoCloseable {
+
+    private final Set<String> completed = ConcurrentHashMap.newKeySet();
+    private final BufferedWriter writer;
+
+    public IngestCheckpoint(Path path) throws IOException {
+        if (Files.exists(path)) {
+            Files.readAllLines(path, StandardCharsets.UTF_8).stream()
+                    .map(String::trim)
+                    .filter(line -> !line.isEmpty())
+                    .forEach(completed::add);
+        } else if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        this.writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    public Set<String> getCompleted() {
+        return completed;
+    }
+
+    public synchronized void markCompleted(Collection<String> fileKeys) throws IOException {
+        for (String fileKey : fileKeys) {
+            if (completed.add(fileKey)) {
+                writer.write(fileKey);
+                writer.newLine();
+            }
+        }
+        writer.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+}
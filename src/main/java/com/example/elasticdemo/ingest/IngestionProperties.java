@@ -0,0 +1,20 @@
+package com.example.elasticdemo.ingest;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "elastic.ingest")
+public class IngestionProperties {
+
+    //== 동시에 파싱/변환하는 작업 단위 수 ==//
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    //== 색인이 끝난 파일 목록. 재실행 시 여기에 있는 파일은 건너뛴다. ==//
+    private Path checkpointPath = Paths.get("ingest-checkpoint.txt");
+}
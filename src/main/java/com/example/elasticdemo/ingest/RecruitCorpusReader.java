@@ -0,0 +1,70 @@
+package com.example.elasticdemo.ingest;
+
+import com.example.elasticdemo.model.BulkRequestModel;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * 크롤링한 구직공고 파일({"result":{"detail":{...}}})을 하나씩 읽어 BulkRequestModel 로 흘려보낸다.
+ * Stream 을 소비하는 만큼만 파일을 열기 때문에 corpus 가 커져도 메모리에 쌓이지 않는다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RecruitCorpusReader {
+
+    public static final String DEFAULT_LOCATION = "classpath:test-json/**/*.json";
+    private static final String DETAIL_POINTER = "/result/detail";
+
+    private final StreamingJsonReader jsonReader;
+    private final PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+
+    public Stream<BulkRequestModel> read(String locationPattern) {
+        try {
+            return read(resolver.getResources(locationPattern));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public Stream<BulkRequestModel> read(Resource... resources) {
+        return read(resource -> {
+        }, resources);
+    }
+
+    /**
+     * 읽지 못한 파일은 건너뛰고 onError 로 알린다. detail 이 없는 파일은 실패가 아니다.
+     */
+    public Stream<BulkRequestModel> read(Consumer<Resource> onError, Resource... resources) {
+        return Arrays.stream(resources)
+                .map(resource -> readDetail(resource, onError))
+                .flatMap(Optional::stream);
+    }
+
+    public Optional<BulkRequestModel> readDetail(Resource resource) {
+        return readDetail(resource, failed -> {
+        });
+    }
+
+    private Optional<BulkRequestModel> readDetail(Resource resource, Consumer<Resource> onError) {
+        try (InputStream inputStream = resource.getInputStream()) {
+            return jsonReader.readAt(inputStream, DETAIL_POINTER, BulkRequestModel.class);
+        } catch (IOException e) {
+            //== 깨진 파일 하나 때문에 전체 색인을 멈추지 않는다. ==//
+            log.warn("error file {}", resource.getFilename(), e);
+            onError.accept(resource);
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.elasticdemo.ingest;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.filter.FilteringParserDelegate;
+import com.fasterxml.jackson.core.filter.JsonPointerBasedFilter;
+import com.fasterxml.jackson.core.filter.TokenFilter;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Jackson 의 streaming parser 로 JSON 을 읽는다.
+ * 파일 전체를 Map 이나 List 로 올리지 않고 필요한 객체만 하나씩 만들기 때문에
+ * 파일 크기와 상관없이 heap 사용량이 일정하다.
+ */
+@Component
+@RequiredArgsConstructor
+public class StreamingJsonReader {
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 최상위 배열의 원소를 하나씩 읽는 Stream. 다 쓴 Stream 은 close 해야 입력도 닫힌다.
+     */
+    public <T> Stream<T> readArray(InputStream inputStream, Class<T> type) {
+        return readArray(inputStream, objectMapper.readerFor(type));
+    }
+
+    public <T> Stream<T> readArray(InputStream inputStream, TypeReference<T> type) {
+        return readArray(inputStream, objectMapper.readerFor(type));
+    }
+
+    private <T> Stream<T> readArray(InputStream inputStream, ObjectReader reader) {
+        try {
+            MappingIterator<T> iterator = reader.readValues(inputStream);
+            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                    .onClose(() -> closeQuietly(iterator));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * pointer(예: /result/detail) 위치의 객체만 읽는다. 나머지 토큰은 객체로 만들지 않고 건너뛴다.
+     */
+    public <T> Optional<T> readAt(InputStream inputStream, String pointer, Class<T> type) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(inputStream)) {
+            JsonParser filtered = new FilteringParserDelegate(parser, new JsonPointerBasedFilter(pointer),
+                    TokenFilter.Inclusion.ONLY_INCLUDE_ALL, false);
+            JsonToken token = filtered.nextToken();
+            if (token == null || token == JsonToken.VALUE_NULL) {
+                return Optional.empty();
+            }
+            return Optional.ofNullable(objectMapper.readValue(filtered, type));
+        }
+    }
+
+    private void closeQuietly(MappingIterator<?> iterator) {
+        try {
+            iterator.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
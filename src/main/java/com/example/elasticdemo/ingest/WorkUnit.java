@@ -0,0 +1,72 @@
+package com.example.elasticdemo.ingest;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 날짜 폴더와 출처(jobkorea, saramin)로 묶은 파일 묶음. 병렬 색인과 체크포인트의 단위다.
+ */
+@Getter
+@RequiredArgsConstructor
+public class WorkUnit {
+
+    //== 예: 2021-07-09/jobkorea ==//
+    private final String key;
+    private final List<Resource> resources;
+    private final List<String> fileKeys;
+
+    /**
+     * test-json/<날짜>/<출처>_<id>.json 구조의 파일들을 작업 단위로 나눈다. 이미 끝난 파일은 제외한다.
+     */
+    public static List<WorkUnit> group(Resource[] resources, Set<String> completedFileKeys) {
+        Map<String, WorkUnit> units = new LinkedHashMap<>();
+        for (Resource resource : resources) {
+            String fileKey = fileKey(resource);
+            if (completedFileKeys.contains(fileKey)) {
+                continue;
+            }
+            WorkUnit unit = units.computeIfAbsent(unitKey(fileKey), key -> new WorkUnit(key, new ArrayList<>(), new ArrayList<>()));
+            unit.resources.add(resource);
+            unit.fileKeys.add(fileKey);
+        }
+        return new ArrayList<>(units.values());
+    }
+
+    /**
+     * 날짜 폴더/파일 이름. classpath 나 jar 안에서도 같은 값이 나오도록 URI 의 마지막 두 구간을 쓴다.
+     */
+    static String fileKey(Resource resource) {
+        try {
+            String uri = resource.getURI().toString();
+            int fileStart = uri.lastIndexOf('/');
+            int folderStart = uri.lastIndexOf('/', fileStart - 1);
+            return uri.substring(folderStart + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static String unitKey(String fileKey) {
+        int prefixEnd = fileKey.indexOf('_', fileKey.indexOf('/'));
+        return prefixEnd < 0 ? fileKey : fileKey.substring(0, prefixEnd);
+    }
+
+    @Override
+    public String toString() {
+        return key + "(" + resources.size() + " files)";
+    }
+
+    public static String describe(List<WorkUnit> units) {
+        return units.stream().map(WorkUnit::toString).collect(Collectors.joining(", "));
+    }
+}
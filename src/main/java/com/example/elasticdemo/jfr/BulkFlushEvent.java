@@ -0,0 +1,39 @@
+package com.example.elasticdemo.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * BulkRequest 하나를 보내고 응답을 받기까지. BulkSession, NdjsonBulkWriter 에서 남긴다.
+ */
+@Name("com.example.elasticdemo.BulkFlush")
+@Label("Bulk Flush")
+@Category({"Elasticsearch", "Ingest"})
+@Description("bulk 전송 한 번의 문서 수와 실패 수")
+@StackTrace(false)
+public class BulkFlushEvent extends jdk.jfr.Event {
+
+    @Label("Source")
+    @Description("session 또는 ndjson")
+    public String source;
+
+    @Label("Documents")
+    public int documents;
+
+    @Label("Failures")
+    @Description("실패한 문서 수. 요청 전체가 실패하면 documents 와 같다.")
+    public int failures;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+
+    @Label("Took")
+    @Timespan(Timespan.MILLISECONDS)
+    public long took = -1;
+}
@@ -0,0 +1,43 @@
+package com.example.elasticdemo.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Elasticsearch 호출 하나. event 의 duration 이 클라이언트가 잰 지연이고, took 은 서버가 응답에 적은 값이다.
+ * 비동기 호출은 응답을 받은 I/O 스레드에서 commit 되므로 event 의 thread 는 호출한 스레드가 아닐 수 있다.
+ */
+@Name("com.example.elasticdemo.ElasticRequest")
+@Label("Elasticsearch Request")
+@Category({"Elasticsearch", "Client"})
+@Description("RestHighLevelClient 호출 하나의 지연, 서버 took, body 크기")
+@StackTrace(false)
+public class ElasticRequestEvent extends jdk.jfr.Event {
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Index")
+    public String index;
+
+    @Label("Request Bytes")
+    @DataAmount
+    public long requestBytes;
+
+    @Label("Response Bytes")
+    @DataAmount
+    public long responseBytes;
+
+    @Label("Took")
+    @Description("서버가 응답에 적은 처리 시간. 알 수 없으면 -1")
+    @Timespan(Timespan.MILLISECONDS)
+    public long took = -1;
+
+    @Label("Success")
+    public boolean success;
+}
@@ -0,0 +1,29 @@
+package com.example.elasticdemo.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 검색 결과 hit 묶음을 모델 객체로 바인딩한 구간. 할당이 많은 구간이라 GC 이벤트와 겹쳐 보기 위해 남긴다.
+ */
+@Name("com.example.elasticdemo.HitDecode")
+@Label("Hit Decode")
+@Category({"Elasticsearch", "Search"})
+@Description("SearchHit 의 _source 를 모델로 바인딩한 hit 수와 바이트 수")
+@StackTrace(false)
+public class HitDecodeEvent extends jdk.jfr.Event {
+
+    @Label("Type")
+    public Class<?> type;
+
+    @Label("Hits")
+    public int hits;
+
+    @Label("Source Bytes")
+    @DataAmount
+    public long bytes;
+}
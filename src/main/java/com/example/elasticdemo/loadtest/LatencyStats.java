@@ -0,0 +1,124 @@
+package com.example.elasticdemo.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 요청 지연을 세 가지로 나눠 기록한다. 단위는 모두 µs 이다.
+ * <ul>
+ *     <li>corrected : 요청이 나갔어야 할 시각부터 응답까지. 앞 요청이 밀려서 늦게 보낸 시간까지 포함하므로 coordinated omission 이 보정된다.</li>
+ *     <li>service : 실제로 보낸 시각부터 응답까지. 부하 발생기가 밀린 시간은 빠진다.</li>
+ *     <li>took : 서버가 응답에 적은 took. service 와의 차이가 네트워크, 큐잉, 직렬화 비용이다.</li>
+ * </ul>
+ * Recorder 는 여러 스레드에서 기록해도 되고, report() 가 구간마다 꺼내서 누적한다.
+ */
+public class LatencyStats {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.HOURS.toMicros(1);
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final Recorder corrected = new Recorder(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+    private final Recorder service = new Recorder(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+    private final Recorder took = new Recorder(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+    private final LongAdder errors = new LongAdder();
+
+    private final Histogram totalCorrected = new Histogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+    private final Histogram totalService = new Histogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+    private final Histogram totalTook = new Histogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+    private long totalErrors;
+    //== 워밍업이 끝난 시각. 첫 구간과 요약의 req/s 는 여기서부터 센다. ==//
+    private final long measureFromNanos;
+    private long intervalStartNanos;
+    private long lastIntervalNanos;
+
+    LatencyStats(long measureFromNanos) {
+        this.measureFromNanos = measureFromNanos;
+        this.intervalStartNanos = measureFromNanos;
+    }
+
+    void record(long intendedNanos, long sentNanos, long endNanos, long tookMillis) {
+        corrected.recordValue(clamp(TimeUnit.NANOSECONDS.toMicros(endNanos - intendedNanos)));
+        service.recordValue(clamp(TimeUnit.NANOSECONDS.toMicros(endNanos - sentNanos)));
+        if (tookMillis >= 0) {
+            took.recordValue(clamp(TimeUnit.MILLISECONDS.toMicros(tookMillis)));
+        }
+    }
+
+    void recordError() {
+        errors.increment();
+    }
+
+    /**
+     * 지난 report() 이후의 구간 값을 누적하고 한 줄로 출력한다.
+     */
+    synchronized void report(PrintStream out) {
+        long now = System.nanoTime();
+        Histogram intervalCorrected = corrected.getIntervalHistogram();
+        Histogram intervalService = service.getIntervalHistogram();
+        Histogram intervalTook = took.getIntervalHistogram();
+        long intervalErrors = errors.sumThenReset();
+
+        totalCorrected.add(intervalCorrected);
+        totalService.add(intervalService);
+        totalTook.add(intervalTook);
+        totalErrors += intervalErrors;
+        lastIntervalNanos = now;
+
+        double seconds = (now - intervalStartNanos) / 1e9;
+        intervalStartNanos = now;
+        out.printf("%8d req %9.1f req/s %6d err | corrected p50 %9s p99 %9s | service p50 %9s p99 %9s | took p50 %9s p99 %9s%n",
+                intervalCorrected.getTotalCount(), intervalCorrected.getTotalCount() / seconds, intervalErrors,
+                format(intervalCorrected, 50), format(intervalCorrected, 99),
+                format(intervalService, 50), format(intervalService, 99),
+                format(intervalTook, 50), format(intervalTook, 99));
+    }
+
+    synchronized void printSummary(PrintStream out) {
+        double seconds = lastIntervalNanos <= measureFromNanos ? 0 : (lastIntervalNanos - measureFromNanos) / 1e9;
+        out.println();
+        out.printf("%-10s %10s %10s %10s %10s %10s%n", "", "p50", "p99", "p99.9", "max", "count");
+        summaryLine(out, "corrected", totalCorrected);
+        summaryLine(out, "service", totalService);
+        summaryLine(out, "took", totalTook);
+        out.printf("requests=%d errors=%d achieved=%.1f req/s%n",
+                totalCorrected.getTotalCount(), totalErrors, seconds == 0 ? 0 : totalCorrected.getTotalCount() / seconds);
+    }
+
+    public synchronized Histogram getCorrected() {
+        return totalCorrected.copy();
+    }
+
+    public synchronized Histogram getService() {
+        return totalService.copy();
+    }
+
+    public synchronized Histogram getTook() {
+        return totalTook.copy();
+    }
+
+    public synchronized long getErrors() {
+        return totalErrors;
+    }
+
+    private static void summaryLine(PrintStream out, String name, Histogram histogram) {
+        out.printf("%-10s %10s %10s %10s %10s %10d%n", name,
+                format(histogram, 50), format(histogram, 99), format(histogram, 99.9),
+                formatMicros(histogram.getMaxValue()), histogram.getTotalCount());
+    }
+
+    private static String format(Histogram histogram, double percentile) {
+        return histogram.getTotalCount() == 0 ? "-" : formatMicros(histogram.getValueAtPercentile(percentile));
+    }
+
+    private static String formatMicros(long micros) {
+        return micros >= 10_000 ? String.format("%.1fms", micros / 1000.0) : String.format("%.3fms", micros / 1000.0);
+    }
+
+    private static long clamp(long micros) {
+        return Math.max(0, Math.min(micros, HIGHEST_TRACKABLE_MICROS));
+    }
+}
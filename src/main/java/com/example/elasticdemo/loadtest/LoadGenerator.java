@@ -0,0 +1,232 @@
+package com.example.elasticdemo.loadtest;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.HttpHost;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.ResponseListener;
+import org.elasticsearch.client.RestClient;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 기록해둔 검색 요청(NDJSON)을 정해진 부하로 재생하고 지연 분포를 출력하는 도구.
+ * 애플리케이션과 같은 클래스패스에서 돌지만 Spring 컨텍스트는 띄우지 않는다.
+ *
+ * <pre>
+ * ./gradlew loadTest -PloadArgs="--mode=open --rate=200 --duration=1m --file=queries.ndjson"
+ * </pre>
+ *
+ * 모든 요청은 예정된 시각(intended start)을 가지고, 지연은 그 시각부터 잰다.
+ * 응답이 밀려 요청을 늦게 보내게 되더라도 밀린 시간이 지연에 포함되므로 coordinated omission 이 생기지 않는다.
+ * closed 모드에서 rate 를 주지 않으면 예정된 시각이 없으므로 corrected 와 service 가 같아진다.
+ */
+@Slf4j
+public class LoadGenerator {
+
+    private static final String DEFAULT_QUERIES = "loadtest/search-queries.ndjson";
+
+    private final RestClient client;
+    private final List<RecordedQuery> queries;
+    private final LoadTestOptions options;
+    private final PrintStream out;
+    private LatencyStats stats;
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicBoolean errorLogged = new AtomicBoolean();
+
+    public LoadGenerator(RestClient client, List<RecordedQuery> queries, LoadTestOptions options, PrintStream out) {
+        this.client = client;
+        this.queries = queries;
+        this.options = options;
+        this.out = out;
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        List<RecordedQuery> queries;
+        try (InputStream in = options.getFile() == null
+                ? LoadGenerator.class.getClassLoader().getResourceAsStream(DEFAULT_QUERIES)
+                : Files.newInputStream(Paths.get(options.getFile()))) {
+            queries = RecordedQuery.read(in, new ObjectMapper());
+        }
+        log.info("replaying {} queries with {}", queries.size(), options);
+
+        try (RestClient client = RestClient.builder(new HttpHost(options.getHost(), options.getPort(), options.getScheme()))
+                .setHttpClientConfigCallback(builder -> builder
+                        .setMaxConnTotal(options.getConcurrency())
+                        .setMaxConnPerRoute(options.getConcurrency()))
+                .build()) {
+            new LoadGenerator(client, queries, options, System.out).run();
+        }
+    }
+
+    public LatencyStats run() throws InterruptedException {
+        long start = System.nanoTime();
+        long measureFrom = start + options.getWarmup().toNanos();
+        long end = measureFrom + options.getDuration().toNanos();
+        stats = new LatencyStats(measureFrom);
+
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "load-report");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalNanos = options.getReportInterval().toNanos();
+        reporter.scheduleAtFixedRate(() -> {
+            if (System.nanoTime() >= measureFrom) {
+                stats.report(out);
+            }
+        }, measureFrom - start + intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+
+        try {
+            if (options.getMode() == LoadTestOptions.Mode.OPEN) {
+                runOpen(start, measureFrom, end);
+            } else {
+                runClosed(start, measureFrom, end);
+            }
+        } finally {
+            reporter.shutdownNow();
+            reporter.awaitTermination(1, TimeUnit.SECONDS);
+        }
+        stats.report(out);
+        stats.printSummary(out);
+        return stats;
+    }
+
+    /**
+     * start 부터 1/rate 간격으로 요청을 보낸다. 동시에 기다리는 요청이 concurrency 에 닿으면 자리가 날 때까지 멈추지만,
+     * 그 사이 예정 시각이 지난 요청도 원래 예정 시각 기준으로 잰다.
+     */
+    private void runOpen(long start, long measureFrom, long end) throws InterruptedException {
+        double intervalNanos = 1e9 / options.getRate();
+        Semaphore inFlight = new Semaphore(options.getConcurrency());
+        for (long i = 0; ; i++) {
+            long intended = start + (long) (i * intervalNanos);
+            if (intended >= end) {
+                break;
+            }
+            parkUntil(intended);
+            inFlight.acquire();
+            long sent = System.nanoTime();
+            client.performRequestAsync(next().toRequest(), new ResponseListener() {
+                @Override
+                public void onSuccess(Response response) {
+                    try {
+                        completed(intended, sent, measureFrom, response);
+                    } finally {
+                        inFlight.release();
+                    }
+                }
+
+                @Override
+                public void onFailure(Exception exception) {
+                    try {
+                        failed(intended, measureFrom, exception);
+                    } finally {
+                        inFlight.release();
+                    }
+                }
+            });
+        }
+        inFlight.acquire(options.getConcurrency());
+    }
+
+    /**
+     * concurrency 개의 worker 가 동기 요청을 보낸다. rate 가 있으면 worker 마다 rate/concurrency 로 예정 시각을 나눠 갖는다.
+     */
+    private void runClosed(long start, long measureFrom, long end) throws InterruptedException {
+        int workers = options.getConcurrency();
+        double workerIntervalNanos = options.getRate() > 0 ? workers * 1e9 / options.getRate() : 0;
+        ExecutorService executor = Executors.newFixedThreadPool(workers, runnable -> new Thread(runnable, "load-worker"));
+        for (int w = 0; w < workers; w++) {
+            long workerStart = start + (long) (w * workerIntervalNanos / workers);
+            executor.execute(() -> {
+                for (long i = 0; ; i++) {
+                    long intended = workerIntervalNanos > 0 ? workerStart + (long) (i * workerIntervalNanos) : System.nanoTime();
+                    if (intended >= end) {
+                        return;
+                    }
+                    parkUntil(intended);
+                    long sent = System.nanoTime();
+                    try {
+                        completed(intended, sent, measureFrom, client.performRequest(next().toRequest()));
+                    } catch (IOException | RuntimeException e) {
+                        //== 응답 파싱 등에서 난 예외로 worker 가 조용히 죽지 않도록 실패로 센다. ==//
+                        failed(intended, measureFrom, e);
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    private void completed(long intended, long sent, long measureFrom, Response response) {
+        long end = System.nanoTime();
+        long took = took(response);
+        //== 워밍업 중에 예정된 요청은 버린다. ==//
+        if (intended >= measureFrom) {
+            stats.record(intended, sent, end, took);
+        }
+    }
+
+    private void failed(long intended, long measureFrom, Exception exception) {
+        if (intended >= measureFrom) {
+            stats.recordError();
+        }
+        if (errorLogged.compareAndSet(false, true)) {
+            log.warn("request failed (further failures are only counted)", exception);
+        }
+    }
+
+    private RecordedQuery next() {
+        return queries.get((int) (sequence.getAndIncrement() % queries.size()));
+    }
+
+    /**
+     * 응답 맨 앞의 took 만 읽고 나머지는 파싱하지 않는다. 읽지 못하면 -1.
+     */
+    private long took(Response response) {
+        try (InputStream in = response.getEntity().getContent();
+             JsonParser parser = jsonFactory.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return -1;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                if ("took".equals(field)) {
+                    return parser.getLongValue();
+                }
+                parser.skipChildren();
+            }
+            return -1;
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private static void parkUntil(long deadlineNanos) {
+        long remaining;
+        while ((remaining = deadlineNanos - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+}
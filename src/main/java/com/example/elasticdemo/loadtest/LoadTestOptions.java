@@ -0,0 +1,95 @@
+package com.example.elasticdemo.loadtest;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+
+/**
+ * LoadGenerator 실행 옵션. --rate=200 --duration=1m 처럼 --key=value 로 넘긴다.
+ */
+@Getter
+@Setter
+@ToString
+public class LoadTestOptions {
+
+    public enum Mode {
+        //== 도착 간격을 고정한다(constant arrival rate). 응답이 늦어도 다음 요청은 예정된 시각에 나간다. ==//
+        OPEN,
+        //== concurrency 개의 worker 가 응답을 받은 뒤 다음 요청을 보낸다. ==//
+        CLOSED
+    }
+
+    private String host = "localhost";
+    private int port = 9200;
+    private String scheme = "http";
+
+    //== 비어 있으면 classpath 의 loadtest/search-queries.ndjson 을 쓴다. ==//
+    private String file;
+
+    private Mode mode = Mode.OPEN;
+
+    //== 초당 요청 수. closed 모드에서 0 이면 worker 가 쉬지 않고 보내며 coordinated omission 보정을 하지 않는다. ==//
+    private double rate = 100;
+
+    //== open 모드에서는 동시에 응답을 기다릴 수 있는 요청 수, closed 모드에서는 worker 수 ==//
+    private int concurrency = 64;
+
+    private Duration duration = Duration.ofMinutes(1);
+
+    //== 이 시간 동안의 측정값은 버린다(JIT, 커넥션 풀, 캐시 워밍업). ==//
+    private Duration warmup = Duration.ofSeconds(10);
+
+    private Duration reportInterval = Duration.ofSeconds(5);
+
+    public static LoadTestOptions parse(String... args) {
+        LoadTestOptions options = new LoadTestOptions();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("expected --key=value but was " + arg);
+            }
+            String key = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            switch (key) {
+                case "host":
+                    options.setHost(value);
+                    break;
+                case "port":
+                    options.setPort(Integer.parseInt(value));
+                    break;
+                case "scheme":
+                    options.setScheme(value);
+                    break;
+                case "file":
+                    options.setFile(value);
+                    break;
+                case "mode":
+                    options.setMode(Mode.valueOf(value.toUpperCase()));
+                    break;
+                case "rate":
+                    options.setRate(Double.parseDouble(value));
+                    break;
+                case "concurrency":
+                    options.setConcurrency(Integer.parseInt(value));
+                    break;
+                case "duration":
+                    options.setDuration(DurationStyle.detectAndParse(value));
+                    break;
+                case "warmup":
+                    options.setWarmup(DurationStyle.detectAndParse(value));
+                    break;
+                case "report-interval":
+                    options.setReportInterval(DurationStyle.detectAndParse(value));
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown option --" + key);
+            }
+        }
+        if (options.getMode() == Mode.OPEN && options.getRate() <= 0) {
+            throw new IllegalArgumentException("open mode needs --rate > 0");
+        }
+        return options;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.elasticdemo.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+import org.apache.http.entity.ContentType;
+import org.apache.http.nio.entity.NByteArrayEntity;
+import org.elasticsearch.client.Request;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 재생할 검색 요청 하나. NDJSON 한 줄이 {"index": "saramin", "body": {"query": ...}} 하나이다.
+ * body 는 읽을 때 한 번만 직렬화해두고 요청마다 같은 byte 배열을 보낸다.
+ */
+@Getter
+public class RecordedQuery {
+
+    private final String index;
+    private final byte[] body;
+
+    public RecordedQuery(String index, byte[] body) {
+        this.index = index;
+        this.body = body;
+    }
+
+    public Request toRequest() {
+        Request request = new Request("POST", "/" + index + "/_search");
+        request.setEntity(new NByteArrayEntity(body, ContentType.APPLICATION_JSON));
+        return request;
+    }
+
+    public static List<RecordedQuery> read(InputStream in, ObjectMapper objectMapper) {
+        List<RecordedQuery> queries = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                JsonNode node = objectMapper.readTree(line);
+                if (!node.hasNonNull("index") || !node.has("body")) {
+                    throw new IllegalArgumentException("line " + lineNumber + " needs index and body");
+                }
+                queries.add(new RecordedQuery(node.get("index").asText(), objectMapper.writeValueAsBytes(node.get("body"))));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (queries.isEmpty()) {
+            throw new IllegalArgumentException("no queries to replay");
+        }
+        return queries;
+    }
+}
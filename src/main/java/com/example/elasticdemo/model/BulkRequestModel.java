@@ -1,5 +1,7 @@
 package com.example.elasticdemo.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -12,6 +14,7 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+@JsonIgnoreProperties(ignoreUnknown = true)
 public class BulkRequestModel {
 
     private String positionId;
@@ -28,6 +31,8 @@ public class BulkRequestModel {
     private List<String> companyInformation = new ArrayList<>();
     private List<String> welfare = new ArrayList<>();
     private String categoryBusiness;
+    //== 크롤링 데이터와 인덱스 매핑 모두 hashtag 로 되어 있다. ==//
+    @JsonProperty("hashtag")
     private List<String> hashTag = new ArrayList<>();
     private String externalRecruitUrl;
     private String created;
@@ -0,0 +1,54 @@
+package com.example.elasticdemo.reindex;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * reindex task 의 status(진행 중) 또는 response(완료) 에서 읽은 문서 수.
+ * slices 로 나뉜 task 는 모든 slice 를 합한 값이다.
+ */
+@Getter
+@RequiredArgsConstructor
+public class ReindexProgress {
+
+    private final long total;
+    private final long created;
+    private final long updated;
+    private final long deleted;
+    private final long batches;
+    private final long versionConflicts;
+    private final long noops;
+
+    static ReindexProgress of(Map<String, Object> status) {
+        return new ReindexProgress(
+                number(status, "total"),
+                number(status, "created"),
+                number(status, "updated"),
+                number(status, "deleted"),
+                number(status, "batches"),
+                number(status, "version_conflicts"),
+                number(status, "noops"));
+    }
+
+    private static long number(Map<String, Object> status, String name) {
+        Object value = status == null ? null : status.get(name);
+        return value instanceof Number ? ((Number) value).longValue() : 0;
+    }
+
+    public long getProcessed() {
+        return created + updated + deleted + versionConflicts + noops;
+    }
+
+    //== 첫 scroll 응답 전에는 total 이 0 이다. ==//
+    public double getPercent() {
+        return total == 0 ? 0 : getProcessed() * 100.0 / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d/%d (%.1f%%), created=%d, updated=%d, batches=%d, conflicts=%d",
+                getProcessed(), total, getPercent(), created, updated, batches, versionConflicts);
+    }
+}
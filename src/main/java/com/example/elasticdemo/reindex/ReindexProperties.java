@@ -0,0 +1,37 @@
+package com.example.elasticdemo.reindex;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "elastic.reindex")
+public class ReindexProperties {
+
+    //== 0 이면 slices=auto 로 source 의 primary shard 수만큼 나눠 병렬로 복사한다. ==//
+    private int slices = 0;
+
+    //== 초당 복사할 문서 수. 0 이하면 제한하지 않는다. 진행 중에는 rethrottle() 로 바꾼다. ==//
+    private float requestsPerSecond = 0;
+
+    //== slice 마다 scroll 한 번에 읽는 문서 수 ==//
+    private int batchSize = 1000;
+
+    //== Tasks API 로 진행 상황을 확인하는 간격 ==//
+    private Duration pollInterval = Duration.ofSeconds(5);
+
+    //== 이 시간 안에 끝나지 않으면 task 를 취소한다. ==//
+    private Duration timeout = Duration.ofHours(1);
+
+    //== 복사하는 동안 dest 의 replica 를 0, refresh_interval 을 -1 로 두었다가 끝나면 되돌린다. ==//
+    private boolean tuneTarget = true;
+
+    //== alias 를 옮기기 전에 dest 의 replica 가 모두 할당되기(green)를 기다리는 최대 시간 ==//
+    private Duration healthTimeout = Duration.ofMinutes(10);
+
+    //== _cluster/health 한 번에 서버에서 기다리는 시간. 소켓 타임아웃(elastic.pool.socket-timeout)보다 충분히 짧아야 한다. ==//
+    private Duration healthPollTimeout = Duration.ofSeconds(10);
+}
@@ -0,0 +1,30 @@
+package com.example.elasticdemo.reindex;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+@Getter
+@RequiredArgsConstructor
+public class ReindexResult {
+
+    private final String taskId;
+    private final String target;
+    private final ReindexProgress progress;
+    //== alias 를 옮기지 않았으면 null ==//
+    private final String alias;
+    //== 교체 전에 alias 가 가리키던 인덱스 ==//
+    private final List<String> previousIndices;
+    private final long elapsedMillis;
+
+    public double getDocsPerSecond() {
+        return elapsedMillis == 0 ? progress.getProcessed() : progress.getProcessed() * 1000.0 / elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("task=%s, target=%s, alias=%s, previous=%s, %s, elapsed=%dms, docs/s=%.1f",
+                taskId, target, alias, previousIndices, progress, elapsedMillis, getDocsPerSecond());
+    }
+}
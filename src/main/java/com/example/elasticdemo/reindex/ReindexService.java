@@ -0,0 +1,288 @@
+package com.example.elasticdemo.reindex;
+
+import com.example.elasticdemo.client.InstrumentedElasticClient;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.action.admin.cluster.health.ClusterHealthRequest;
+import org.elasticsearch.action.admin.cluster.health.ClusterHealthResponse;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequest;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequest.AliasActions;
+import org.elasticsearch.action.admin.indices.alias.get.GetAliasesRequest;
+import org.elasticsearch.action.admin.indices.refresh.RefreshRequest;
+import org.elasticsearch.action.admin.indices.settings.get.GetSettingsRequest;
+import org.elasticsearch.action.admin.indices.settings.get.GetSettingsResponse;
+import org.elasticsearch.action.admin.indices.settings.put.UpdateSettingsRequest;
+import org.elasticsearch.client.RethrottleRequest;
+import org.elasticsearch.client.indices.GetIndexRequest;
+import org.elasticsearch.client.tasks.CancelTasksRequest;
+import org.elasticsearch.cluster.health.ClusterHealthStatus;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.reindex.AbstractBulkByScrollRequest;
+import org.elasticsearch.index.reindex.ReindexRequest;
+import org.elasticsearch.tasks.TaskId;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * reindex 를 task 로 제출하고(wait_for_completion=false) Tasks API 로 진행 상황을 확인한 뒤,
+ * 끝나면 dest 가 green 이 되기를 기다렸다가 읽기용 alias 를 이전 인덱스에서 새 인덱스로 한 번의 _aliases 요청으로 옮긴다.
+ * 검색은 alias 로 하므로 geo_point 추가처럼 mapping 을 바꾸는 동안에도 이전 인덱스를 계속 읽는다.
+ * slices, requests_per_second, scroll 크기는 ReindexProperties 의 값으로 덮어쓴다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReindexService {
+
+    private static final String NUMBER_OF_REPLICAS = IndexMetadata.SETTING_NUMBER_OF_REPLICAS;
+    private static final String REFRESH_INTERVAL = IndexSettings.INDEX_REFRESH_INTERVAL_SETTING.getKey();
+
+    private final InstrumentedElasticClient client;
+    private final ReindexProperties properties;
+
+    public ReindexResult reindex(ReindexRequest request, String alias) throws IOException {
+        return reindex(request, alias, progress -> {
+        });
+    }
+
+    /**
+     * dest 인덱스는 새 mapping 으로 미리 만들어 두어야 한다. 없으면 dynamic mapping 으로 만들어진다.
+     * alias 는 인덱스 이름과 겹칠 수 없다. null 이면 복사만 하고 alias 는 건드리지 않는다.
+     * 실패하거나 시간 안에 끝나지 않으면 alias 는 그대로 두고 IllegalStateException 을 던진다.
+     */
+    public ReindexResult reindex(ReindexRequest request, String alias, Consumer<ReindexProgress> listener) throws IOException {
+        String target = request.getDestination().index();
+        prepare(request);
+        long start = System.currentTimeMillis();
+
+        Settings original = properties.isTuneTarget() ? tune(target) : null;
+        String taskId = null;
+        ReindexProgress progress;
+        Exception failure = null;
+        try {
+            taskId = client.submitReindexTask(request).getTask();
+            log.info("reindex submitted: task={}, {} -> {}", taskId, Arrays.toString(request.getSearchRequest().indices()), target);
+            progress = await(taskId, listener);
+        } catch (IOException | RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            restore(target, original, failure);
+        }
+        client.refresh(new RefreshRequest(target));
+
+        List<String> previous = List.of();
+        if (alias != null) {
+            awaitHealthy(target, alias);
+            previous = swapAlias(alias, target);
+        }
+        ReindexResult result = new ReindexResult(taskId, target, progress, alias, previous, System.currentTimeMillis() - start);
+        log.info("reindex finished: {}", result);
+        return result;
+    }
+
+    /**
+     * 진행 중인 task 의 속도를 바꾼다. 0 이하면 제한을 푼다.
+     */
+    public void rethrottle(String taskId, float requestsPerSecond) throws IOException {
+        client.reindexRethrottle(new RethrottleRequest(new TaskId(taskId), requestsPerSecond(requestsPerSecond)));
+    }
+
+    private void prepare(ReindexRequest request) {
+        request.setSlices(properties.getSlices() > 0 ? properties.getSlices() : AbstractBulkByScrollRequest.AUTO_SLICES)
+                .setRequestsPerSecond(requestsPerSecond(properties.getRequestsPerSecond()))
+                .setSourceBatchSize(properties.getBatchSize());
+        //== 끝난 뒤 한 번만 refresh 한다. ==//
+        request.setRefresh(false);
+    }
+
+    private static float requestsPerSecond(float value) {
+        return value > 0 ? value : Float.POSITIVE_INFINITY;
+    }
+
+    //=========================== 진행 상황 =============================//
+
+    private ReindexProgress await(String taskId, Consumer<ReindexProgress> listener) throws IOException {
+        long deadline = System.nanoTime() + properties.getTimeout().toNanos();
+        while (true) {
+            Map<String, Object> task = client.getTask(taskId);
+            if (Boolean.TRUE.equals(task.get("completed"))) {
+                ReindexProgress progress = completed(taskId, task);
+                listener.accept(progress);
+                return progress;
+            }
+            ReindexProgress progress = ReindexProgress.of(child(child(task, "task"), "status"));
+            listener.accept(progress);
+            log.info("reindex {} : {}", taskId, progress);
+
+            if (System.nanoTime() > deadline) {
+                cancel(taskId);
+                throw new IllegalStateException("reindex task " + taskId + " did not finish within " + properties.getTimeout());
+            }
+            try {
+                TimeUnit.MILLISECONDS.sleep(properties.getPollInterval().toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancel(taskId);
+                throw new IllegalStateException("interrupted while waiting for reindex task " + taskId, e);
+            }
+        }
+    }
+
+    //== 끝난 task 는 response 에 최종 결과가, 예외로 끝났으면 error 에 원인이 담긴다. ==//
+    private static ReindexProgress completed(String taskId, Map<String, Object> task) {
+        Map<String, Object> error = child(task, "error");
+        if (error != null) {
+            throw new IllegalStateException("reindex task " + taskId + " failed : " + error.get("type") + " " + error.get("reason"));
+        }
+        Map<String, Object> response = child(task, "response");
+        if (response == null) {
+            throw new IllegalStateException("reindex task " + taskId + " has no response");
+        }
+        Object failures = response.get("failures");
+        if (failures instanceof List && !((List<?>) failures).isEmpty()) {
+            List<?> list = (List<?>) failures;
+            throw new IllegalStateException("reindex task " + taskId + " finished with " + list.size() + " failures, first : " + list.get(0));
+        }
+        if (Boolean.TRUE.equals(response.get("timed_out")) || response.get("canceled") != null) {
+            throw new IllegalStateException("reindex task " + taskId + " stopped early : " + response);
+        }
+        return ReindexProgress.of(response);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> child(Map<String, Object> parent, String name) {
+        Object value = parent == null ? null : parent.get(name);
+        return value instanceof Map ? (Map<String, Object>) value : null;
+    }
+
+    private void cancel(String taskId) {
+        try {
+            client.cancelTask(new CancelTasksRequest.Builder()
+                    .withTaskId(new org.elasticsearch.client.tasks.TaskId(taskId))
+                    .build());
+        } catch (IOException | RuntimeException e) {
+            log.warn("failed to cancel reindex task {}", taskId, e);
+        }
+    }
+
+    //=========================== dest 설정 =============================//
+
+    /**
+     * 복사 전의 값을 돌려준다. 지정하지 않았던 값은 null 로 두어 되돌릴 때 기본값을 따르게 한다.
+     */
+    private Settings tune(String target) throws IOException {
+        if (!client.existsIndex(new GetIndexRequest(target))) {
+            return null;
+        }
+        GetSettingsResponse response = client.getSettings(new GetSettingsRequest()
+                .indices(target)
+                .names(NUMBER_OF_REPLICAS, REFRESH_INTERVAL));
+        Settings.Builder original = Settings.builder();
+        for (String name : List.of(NUMBER_OF_REPLICAS, REFRESH_INTERVAL)) {
+            String value = response.getSetting(target, name);
+            if (value == null) {
+                original.putNull(name);
+            } else {
+                original.put(name, value);
+            }
+        }
+
+        //== replica 복제와 주기적인 refresh 를 멈추면 primary 에만 segment 를 쌓으므로 색인이 빨라진다. ==//
+        client.putSettings(new UpdateSettingsRequest(target).settings(Settings.builder()
+                .put(NUMBER_OF_REPLICAS, 0)
+                .put(REFRESH_INTERVAL, "-1")));
+        return original.build();
+    }
+
+    //== 복사가 실패했어도 되돌린다. 되돌리기마저 실패하면 원래 예외에 붙여서 함께 알린다. ==//
+    private void restore(String target, Settings original, Exception failure) throws IOException {
+        if (original == null) {
+            return;
+        }
+        try {
+            client.putSettings(new UpdateSettingsRequest(target).settings(original));
+        } catch (IOException | RuntimeException e) {
+            log.error("failed to restore settings of {} : {}", target, original, e);
+            if (failure == null) {
+                throw e;
+            }
+            failure.addSuppressed(e);
+        }
+    }
+
+    //=========================== alias =============================//
+
+    /**
+     * 되돌린 replica 가 복구되기 전에 alias 를 옮기면 검색이 primary 에만 몰리고 복제본도 없으므로 green 이 될 때까지 기다린다.
+     * 한 번의 요청으로 오래 기다리면 소켓 타임아웃에 먼저 걸리므로 healthPollTimeout 씩 나눠서 healthTimeout 까지 다시 묻는다.
+     * data 노드가 replica 수 이하라 replica 를 할당할 수 없으면(단일 노드 등) primary 가 모두 올라온 yellow 로 충분하다.
+     */
+    private void awaitHealthy(String target, String alias) throws IOException {
+        int replicas = replicas(target);
+        long deadline = System.nanoTime() + properties.getHealthTimeout().toNanos();
+        while (true) {
+            long remaining = Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+            ClusterHealthResponse health = client.clusterHealth(new ClusterHealthRequest(target)
+                    .waitForGreenStatus()
+                    .timeout(TimeValue.timeValueMillis(Math.min(properties.getHealthPollTimeout().toMillis(), remaining))));
+            if (!health.isTimedOut()) {
+                return;
+            }
+            if (health.getStatus() == ClusterHealthStatus.YELLOW && health.getNumberOfDataNodes() <= replicas) {
+                log.warn("{} has {} replicas but only {} data nodes, moving alias {} while yellow",
+                        target, replicas, health.getNumberOfDataNodes(), alias);
+                return;
+            }
+            if (System.nanoTime() >= deadline) {
+                throw new IllegalStateException(target + " did not become green within " + properties.getHealthTimeout()
+                        + " (status " + health.getStatus() + "), alias " + alias + " was not moved");
+            }
+            log.info("waiting for {} to become green : {}, {} unassigned shards", target, health.getStatus(), health.getUnassignedShards());
+        }
+    }
+
+    //== 지정하지 않았으면 Elasticsearch 기본값(1)이다. ==//
+    private int replicas(String target) throws IOException {
+        String value = client.getSettings(new GetSettingsRequest()
+                .indices(target)
+                .names(NUMBER_OF_REPLICAS)
+                .includeDefaults(true))
+                .getSetting(target, NUMBER_OF_REPLICAS);
+        return value == null ? IndexMetadata.INDEX_NUMBER_OF_REPLICAS_SETTING.getDefault(Settings.EMPTY) : Integer.parseInt(value);
+    }
+
+    /**
+     * remove 와 add 를 한 요청으로 보내므로 alias 가 어느 인덱스도 가리키지 않는 순간이 없다.
+     */
+    private List<String> swapAlias(String alias, String target) throws IOException {
+        //== alias 가 아직 없으면 404 가 아니라 빈 응답이 온다. ==//
+        List<String> previous = client.getAlias(new GetAliasesRequest(alias)).getAliases().keySet().stream()
+                .filter(index -> !index.equals(target))
+                .sorted()
+                .collect(Collectors.toList());
+
+        IndicesAliasesRequest request = new IndicesAliasesRequest();
+        if (!previous.isEmpty()) {
+            request.addAliasAction(AliasActions.remove()
+                    .indices(previous.toArray(new String[0]))
+                    .alias(alias));
+        }
+        request.addAliasAction(AliasActions.add()
+                .index(target)
+                .alias(alias));
+        client.updateAliases(request);
+        log.info("alias {} : {} -> {}", alias, previous, target);
+        return previous;
+    }
+}
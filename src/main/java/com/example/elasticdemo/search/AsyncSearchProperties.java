@@ -0,0 +1,16 @@
+package com.example.elasticdemo.search;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "elastic.search.async")
+public class AsyncSearchProperties {
+
+    //== 호출 시 deadline 을 따로 주지 않았을 때 적용하는 제한 시간 ==//
+    private Duration timeout = Duration.ofSeconds(10);
+}
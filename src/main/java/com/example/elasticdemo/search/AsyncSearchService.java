@@ -0,0 +1,70 @@
+package com.example.elasticdemo.search;
+
+import com.example.elasticdemo.client.InstrumentedElasticClient;
+import lombok.RequiredArgsConstructor;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.search.MultiSearchRequest;
+import org.elasticsearch.action.search.MultiSearchResponse;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.Cancellable;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * searchAsync/msearchAsync/bulkAsync 를 CompletableFuture 로 감싼다.
+ * 응답을 기다리는 동안 스레드를 붙잡지 않으므로 적은 스레드로 많은 검색을 동시에 처리할 수 있다.
+ * (동시에 나가는 요청 수는 커넥션 풀 크기(elastic.pool)로 제한되고, 나머지는 풀에서 대기한다.)
+ *
+ * deadline 이 지나거나 반환된 future 를 cancel 하면 HTTP 요청도 중단한다.
+ * 콜백은 HTTP I/O 스레드에서 실행되므로 thenApply 등에서 블로킹 작업을 하려면 *Async 와 별도 executor 를 사용해야 한다.
+ */
+@Service
+@RequiredArgsConstructor
+public class AsyncSearchService {
+
+    private final InstrumentedElasticClient client;
+    private final AsyncSearchProperties properties;
+
+    public CompletableFuture<SearchResponse> search(SearchRequest request) {
+        return search(request, properties.getTimeout());
+    }
+
+    public CompletableFuture<SearchResponse> search(SearchRequest request, Duration timeout) {
+        return call(listener -> client.searchAsync(request, listener), timeout);
+    }
+
+    public CompletableFuture<MultiSearchResponse> msearch(MultiSearchRequest request) {
+        return msearch(request, properties.getTimeout());
+    }
+
+    public CompletableFuture<MultiSearchResponse> msearch(MultiSearchRequest request, Duration timeout) {
+        return call(listener -> client.msearchAsync(request, listener), timeout);
+    }
+
+    /**
+     * bulk 는 중단해도 이미 서버에 도착한 문서는 색인될 수 있다.
+     */
+    public CompletableFuture<BulkResponse> bulk(BulkRequest request, Duration timeout) {
+        return call(listener -> client.bulkAsync(request, listener), timeout);
+    }
+
+    private <T> CompletableFuture<T> call(Function<ActionListener<T>, Cancellable> invoker, Duration timeout) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Cancellable cancellable = invoker.apply(ActionListener.wrap(future::complete, future::completeExceptionally));
+        //== 시간 초과(TimeoutException)나 호출자의 cancel 로 끝나면 진행 중인 HTTP 요청을 중단한다. ==//
+        future.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .whenComplete((response, failure) -> {
+                    if (failure != null) {
+                        cancellable.cancel();
+                    }
+                });
+        return future;
+    }
+}
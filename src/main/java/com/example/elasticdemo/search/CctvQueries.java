@@ -0,0 +1,50 @@
+package com.example.elasticdemo.search;
+
+import org.elasticsearch.common.unit.DistanceUnit;
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.springframework.util.StringUtils;
+
+import static org.elasticsearch.index.query.QueryBuilders.boolQuery;
+import static org.elasticsearch.index.query.QueryBuilders.geoDistanceQuery;
+import static org.elasticsearch.index.query.QueryBuilders.matchQuery;
+
+/**
+ * geo_point(location) 로 재색인한 CCTV 인덱스 검색 조건. 검색은 cctv-read alias 로 한다.
+ */
+public final class CctvQueries {
+
+    //== 재색인할 때마다 new-cctv-data-<시각> 인덱스를 새로 만들고 이 alias 를 옮기므로 읽는 쪽은 항상 alias 를 쓴다. ==//
+    public static final String CCTV_READ = "cctv-read";
+    //== 재색인 대상 인덱스 이름의 접두어 ==//
+    public static final String NEW_CCTV_DATA = "new-cctv-data";
+
+    //== 지도에 핀만 찍는 경우. location(geo_point) 과 카메라대수(long)는 doc values 로 바로 읽는다. ==//
+    public static final Projection PIN = Projection.docValues("pin", "location", "카메라대수");
+    //== 목록 화면 ==//
+    public static final Projection LIST = Projection.source("list",
+            new String[]{"관리기관명", "설치목적구분", "소재지도로명주소", "소재지지번주소", "카메라대수", "location"}, null);
+    //== 상세 화면. _source 전체 ==//
+    public static final Projection DETAIL = Projection.source("detail", null, null);
+
+    private CctvQueries() {
+    }
+
+    public static Projection projection(String name) {
+        return Projection.select(name, PIN, LIST, DETAIL, Projection.ID_ONLY);
+    }
+
+    /**
+     * (lat, lon) 에서 distanceKm 안에 있는 CCTV. purpose 가 있으면 설치목적구분도 매칭한다.
+     */
+    public static SearchSourceBuilder nearby(double lat, double lon, double distanceKm, String purpose) {
+        BoolQueryBuilder query = boolQuery()
+                .filter(geoDistanceQuery("location")
+                        .point(lat, lon)
+                        .distance(distanceKm, DistanceUnit.KILOMETERS));
+        if (StringUtils.hasText(purpose)) {
+            query.must(matchQuery("설치목적구분.nori", purpose));
+        }
+        return new SearchSourceBuilder().query(query);
+    }
+}
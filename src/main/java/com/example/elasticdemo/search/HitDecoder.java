@@ -0,0 +1,76 @@
+package com.example.elasticdemo.search;
+
+import com.example.elasticdemo.jfr.HitDecodeEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * SearchHit 의 _source bytes 를 Map 을 거치지 않고 바로 모델 객체로 바인딩한다.
+ * ModelMapper(LOOSE) 는 hit 마다 Map 을 만들고 reflection 으로 이름을 추측해서 맞추는데,
+ * 여기서는 타입별로 한 번 만든 ObjectReader(Blackbird 로 생성된 accessor 사용)를 재사용한다.
+ */
+@Component
+public class HitDecoder {
+
+    private final ObjectMapper objectMapper;
+    private final Map<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+
+    public HitDecoder(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public <T> T decode(SearchHit hit, Class<T> type) {
+        BytesReference source = hit.getSourceRef();
+        if (source == null) {
+            return null;
+        }
+        //== BytesArray 는 복사 없이 내부 배열을 그대로 넘겨준다. ==//
+        BytesRef bytes = source.toBytesRef();
+        try {
+            return reader(type).readValue(bytes.bytes, bytes.offset, bytes.length);
+        } catch (IOException e) {
+            throw new UncheckedIOException("failed to decode hit " + hit.getId(), e);
+        }
+    }
+
+    public <T> List<T> decodeAll(SearchHits hits, Class<T> type) {
+        return decodeAll(hits.getHits(), type);
+    }
+
+    public <T> List<T> decodeAll(SearchHit[] hits, Class<T> type) {
+        HitDecodeEvent event = new HitDecodeEvent();
+        event.begin();
+        List<T> result = new ArrayList<>(hits.length);
+        long bytes = 0;
+        for (SearchHit hit : hits) {
+            T decoded = decode(hit, type);
+            if (decoded != null) {
+                result.add(decoded);
+                bytes += hit.getSourceRef().length();
+            }
+        }
+        if (event.shouldCommit()) {
+            event.type = type;
+            event.hits = hits.length;
+            event.bytes = bytes;
+            event.commit();
+        }
+        return result;
+    }
+
+    private ObjectReader reader(Class<?> type) {
+        return readers.computeIfAbsent(type, objectMapper::readerFor);
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.elasticdemo.search;
+
+import com.example.elasticdemo.client.InstrumentedElasticClient;
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.DeprecationHandler;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.builder.PointInTimeBuilder;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.sort.FieldSortBuilder;
+import org.elasticsearch.search.sort.SortBuilder;
+import org.elasticsearch.search.sort.SortBuilders;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * point in time + search_after 로 검색 결과 전체를 순회한다.
+ * from/size 의 10,000 건 제한이 없고, 한 페이지를 처리하는 동안 다음 페이지를 미리 요청해 둔다.
+ * 메모리에는 현재 페이지와 다음 페이지만 올라가며, close() 하면 PIT 를 반납한다.
+ * PIT 열기/닫기는 이 버전의 high-level client 에 없어서 low-level client 로 호출한다.
+ */
+@Slf4j
+public class PitSearchIterator implements Iterator<SearchHit>, AutoCloseable {
+
+    //== 같은 정렬 값을 가진 문서가 페이지 경계에서 빠지거나 중복되지 않도록 마지막에 붙이는 정렬 ==//
+    private static final String SHARD_DOC = "_shard_doc";
+
+    private final InstrumentedElasticClient client;
+    private final SearchSourceBuilder template;
+    private final TimeValue keepAlive;
+    private final int pageSize;
+
+    private String pitId;
+    private SearchHit[] page = new SearchHit[0];
+    private int cursor;
+    private CompletableFuture<SearchResponse> nextPage;
+    private boolean closed;
+
+    PitSearchIterator(InstrumentedElasticClient client, SearchSourceBuilder source, TimeValue keepAlive, int pageSize, String... indices) {
+        this.client = client;
+        this.keepAlive = keepAlive;
+        this.pageSize = pageSize;
+        this.template = prepare(source, pageSize);
+        this.pitId = openPointInTime(indices);
+        this.nextPage = fetch(null);
+    }
+
+    private String openPointInTime(String... indices) {
+        Request request = new Request("POST", "/" + String.join(",", indices) + "/_pit");
+        request.addParameter("keep_alive", keepAlive.getStringRep());
+        try {
+            Response response = client.getLowLevelClient().performRequest(request);
+            try (InputStream content = response.getEntity().getContent();
+                 XContentParser parser = XContentType.JSON.xContent()
+                         .createParser(NamedXContentRegistry.EMPTY, DeprecationHandler.THROW_UNSUPPORTED_OPERATION, content)) {
+                return (String) parser.map().get("id");
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static SearchSourceBuilder prepare(SearchSourceBuilder source, int pageSize) {
+        //== tiebreaker 를 덧붙이므로 sort 목록을 공유하지 않는 사본을 쓴다. ==//
+        SearchSourceBuilder copy = SearchSources.copy(source)
+                .size(pageSize)
+                .trackTotalHits(false);
+        List<SortBuilder<?>> sorts = copy.sorts();
+        boolean hasTiebreaker = sorts != null && sorts.stream()
+                .anyMatch(sort -> sort instanceof FieldSortBuilder && SHARD_DOC.equals(((FieldSortBuilder) sort).getFieldName()));
+        if (!hasTiebreaker) {
+            copy.sort(SortBuilders.fieldSort(SHARD_DOC));
+        }
+        return copy;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (cursor >= page.length) {
+            if (nextPage == null || closed) {
+                return false;
+            }
+            advance();
+        }
+        return true;
+    }
+
+    @Override
+    public SearchHit next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return page[cursor++];
+    }
+
+    private void advance() {
+        SearchResponse response;
+        try {
+            response = nextPage.join();
+        } catch (CompletionException e) {
+            nextPage = null;
+            throw new IllegalStateException("failed to fetch next page", e.getCause());
+        }
+        //== PIT id 는 응답마다 바뀔 수 있으므로 항상 마지막 값을 사용한다. ==//
+        if (response.pointInTimeId() != null) {
+            pitId = response.pointInTimeId();
+        }
+        page = response.getHits().getHits();
+        cursor = 0;
+        //== 페이지가 가득 찼으면 현재 페이지를 처리하는 동안 다음 페이지를 미리 가져온다. ==//
+        nextPage = page.length < pageSize ? null : fetch(page[page.length - 1].getSortValues());
+    }
+
+    private CompletableFuture<SearchResponse> fetch(Object[] searchAfter) {
+        SearchSourceBuilder source = template.shallowCopy()
+                .pointInTimeBuilder(new PointInTimeBuilder(pitId).setKeepAlive(keepAlive));
+        if (searchAfter != null) {
+            source.searchAfter(searchAfter);
+        }
+        CompletableFuture<SearchResponse> future = new CompletableFuture<>();
+        //== PIT 검색은 인덱스를 지정하지 않는다. ==//
+        client.searchAsync(new SearchRequest().source(source),
+                ActionListener.wrap(future::complete, future::completeExceptionally));
+        return future;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (nextPage != null) {
+            nextPage.cancel(true);
+            nextPage = null;
+        }
+        try {
+            Request request = new Request("DELETE", "/_pit");
+            request.setJsonEntity(Strings.toString(XContentFactory.jsonBuilder()
+                    .startObject()
+                    .field("id", pitId)
+                    .endObject()));
+            client.getLowLevelClient().performRequest(request);
+        } catch (IOException | RuntimeException e) {
+            //== 반납에 실패해도 keep_alive 가 지나면 서버에서 정리된다. ==//
+            log.warn("failed to close point in time", e);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.elasticdemo.search;
+
+import com.example.elasticdemo.client.InstrumentedElasticClient;
+import lombok.RequiredArgsConstructor;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.springframework.stereotype.Service;
+
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 검색 결과 전체를 일정한 메모리로 순회하기 위한 서비스.
+ */
+@Service
+@RequiredArgsConstructor
+public class PitSearchService {
+
+    public static final int DEFAULT_PAGE_SIZE = 1000;
+    public static final TimeValue DEFAULT_KEEP_ALIVE = TimeValue.timeValueMinutes(1);
+
+    private final InstrumentedElasticClient client;
+
+    public PitSearchIterator iterate(SearchSourceBuilder source, String... indices) {
+        return new PitSearchIterator(client, source, DEFAULT_KEEP_ALIVE, DEFAULT_PAGE_SIZE, indices);
+    }
+
+    public PitSearchIterator iterate(SearchSourceBuilder source, int pageSize, String... indices) {
+        return new PitSearchIterator(client, source, DEFAULT_KEEP_ALIVE, pageSize, indices);
+    }
+
+    /**
+     * 다 쓴 Stream 은 반드시 close 해야 PIT 가 반납된다(try-with-resources 사용).
+     */
+    public Stream<SearchHit> stream(SearchSourceBuilder source, String... indices) {
+        PitSearchIterator iterator = iterate(source, indices);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(iterator::close);
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.elasticdemo.search;
+
+import lombok.Getter;
+import org.elasticsearch.common.document.DocumentField;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 화면마다 필요한 필드만 가져오기 위한 검색 결과 projection.
+ * _source 를 잘라서 받거나(includes/excludes), _source 없이 doc values 만 받는다(docvalue_fields).
+ * doc values 는 _source 를 읽고 파싱하지 않으므로 keyword/숫자/geo_point 처럼 doc values 가 있는 필드만 필요할 때 가장 가볍다.
+ */
+@Getter
+public final class Projection {
+
+    //== _id 만 필요할 때 (존재 여부 확인, 후속 mget/mtermvectors 의 id 수집 등) ==//
+    public static final Projection ID_ONLY = new Projection("id", false, null, null, new String[0]);
+
+    private final String name;
+    private final boolean fetchSource;
+    private final String[] includes;
+    private final String[] excludes;
+    private final String[] docValueFields;
+
+    private Projection(String name, boolean fetchSource, String[] includes, String[] excludes, String[] docValueFields) {
+        this.name = name;
+        this.fetchSource = fetchSource;
+        this.includes = includes;
+        this.excludes = excludes;
+        this.docValueFields = docValueFields;
+    }
+
+    public static Projection source(String name, String[] includes, String[] excludes) {
+        return new Projection(name, true, includes, excludes, new String[0]);
+    }
+
+    public static Projection docValues(String name, String... fields) {
+        return new Projection(name, false, null, null, fields);
+    }
+
+    /**
+     * 여러 profile 중 이름이 같은 것을 고른다.
+     */
+    public static Projection select(String name, Projection... profiles) {
+        return Arrays.stream(profiles)
+                .filter(profile -> profile.name.equalsIgnoreCase(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("unknown projection : " + name));
+    }
+
+    public SearchSourceBuilder apply(SearchSourceBuilder source) {
+        if (fetchSource) {
+            source.fetchSource(includes, excludes);
+        } else {
+            source.fetchSource(false);
+        }
+        for (String field : docValueFields) {
+            source.docValueField(field);
+        }
+        return source;
+    }
+
+    /**
+     * hit 를 응답용 Map 으로 바꾼다. _source 가 없으면 doc values 를 대신 담는다(값이 하나면 배열을 벗긴다).
+     */
+    public static Map<String, Object> toMap(SearchHit hit) {
+        if (hit.getSourceRef() != null) {
+            return hit.getSourceAsMap();
+        }
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("_id", hit.getId());
+        for (DocumentField field : hit.getFields().values()) {
+            fields.put(field.getName(), field.getValues().size() == 1 ? field.getValue() : field.getValues());
+        }
+        return fields;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.elasticdemo.search;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.common.document.DocumentField;
+import org.elasticsearch.search.SearchHit;
+import org.springframework.stereotype.Component;
+
+/**
+ * projection 별 검색 결과 크기(elastic.search.payload, bytes)를 기록한다.
+ * _source 는 실제 바이트 수, doc values 는 값을 문자열로 바꾼 길이로 추정한다.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProjectionMetrics {
+
+    private final MeterRegistry meterRegistry;
+
+    public SearchResponse record(String index, Projection projection, SearchResponse response) {
+        DistributionSummary.builder("elastic.search.payload")
+                .description("검색 응답 하나에 담긴 hit 의 크기")
+                .baseUnit("bytes")
+                .tag("index", index)
+                .tag("projection", projection.getName())
+                .register(meterRegistry)
+                .record(payloadBytes(response));
+        return response;
+    }
+
+    static long payloadBytes(SearchResponse response) {
+        long bytes = 0;
+        for (SearchHit hit : response.getHits().getHits()) {
+            bytes += hit.getId() == null ? 0 : hit.getId().length();
+            if (hit.getSourceRef() != null) {
+                bytes += hit.getSourceRef().length();
+            }
+            for (DocumentField field : hit.getFields().values()) {
+                bytes += field.getName().length() + String.valueOf(field.getValues()).length();
+            }
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.elasticdemo.search;
+
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+
+import static org.elasticsearch.index.query.QueryBuilders.boolQuery;
+import static org.elasticsearch.index.query.QueryBuilders.matchQuery;
+
+/**
+ * 구직공고(saramin) 인덱스 검색 조건.
+ */
+public final class RecruitQueries {
+
+    public static final String SARAMIN = "saramin";
+
+    //== 목록 화면. description, welfare, companyInformation 처럼 큰 배열은 받지 않는다. ==//
+    public static final Projection LIST = Projection.source("list",
+            new String[]{"positionId", "subject", "company", "source", "pageUrl", "finished"}, null);
+    //== 상세 화면. _source 전체 ==//
+    public static final Projection DETAIL = Projection.source("detail", null, null);
+
+    private RecruitQueries() {
+    }
+
+    public static Projection projection(String name) {
+        return Projection.select(name, LIST, DETAIL, Projection.ID_ONLY);
+    }
+
+    /**
+     * etc, company, subject 중 하나라도 키워드와 매칭되는 공고.
+     */
+    public static SearchSourceBuilder keyword(String keyword) {
+        return new SearchSourceBuilder().query(
+                boolQuery()
+                        .should(matchQuery("etc", keyword))
+                        .should(matchQuery("company", keyword))
+                        .should(matchQuery("subject", keyword)));
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.elasticdemo.search;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "elastic.search.batch")
+public class SearchBatchProperties {
+
+    //== 첫 검색이 들어온 뒤 이 시간 동안 모인 검색을 하나의 msearch 로 보낸다. ==//
+    private Duration window = Duration.ofMillis(2);
+
+    //== 시간이 되기 전이라도 이만큼 모이면 바로 보낸다. ==//
+    private int maxBatchSize = 32;
+}
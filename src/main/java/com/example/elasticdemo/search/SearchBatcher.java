@@ -0,0 +1,151 @@
+package com.example.elasticdemo.search;
+
+import com.example.elasticdemo.client.InstrumentedElasticClient;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.search.MultiSearchRequest;
+import org.elasticsearch.action.search.MultiSearchResponse;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * 짧은 시간 안에 들어온 개별 검색을 하나의 msearch 로 묶어 보낸다.
+ * 호출자는 각자의 future 로 자기 검색 결과만 받으며, 한 검색이 실패해도 같은 묶음의 다른 검색에는 영향이 없다.
+ * 검색마다 기다리는 시간이 최대 window 만큼 늘어나는 대신 HTTP 요청 수와 커넥션 사용량이 묶음 크기만큼 줄어든다.
+ * future 는 HTTP I/O 스레드에서 완료되므로 이어지는 콜백에서 블로킹 작업을 하면 안 된다.
+ */
+@Slf4j
+@Component
+public class SearchBatcher {
+
+    private final BiConsumer<MultiSearchRequest, ActionListener<MultiSearchResponse>> sender;
+    private final SearchBatchProperties properties;
+    private final DistributionSummary batchSize;
+    private final ScheduledExecutorService scheduler;
+
+    private final Object lock = new Object();
+    private List<Pending> pending = new ArrayList<>();
+
+    @Autowired
+    public SearchBatcher(InstrumentedElasticClient client, SearchBatchProperties properties, MeterRegistry meterRegistry) {
+        this((request, listener) -> client.msearchAsync(request, listener), properties, meterRegistry);
+    }
+
+    SearchBatcher(BiConsumer<MultiSearchRequest, ActionListener<MultiSearchResponse>> sender,
+                  SearchBatchProperties properties, MeterRegistry meterRegistry) {
+        this.sender = sender;
+        this.properties = properties;
+        this.batchSize = DistributionSummary.builder("elastic.search.batch.size")
+                .description("msearch 하나에 묶인 검색 수")
+                .register(meterRegistry);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "search-batcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public CompletableFuture<SearchResponse> search(SearchRequest request) {
+        Pending search = new Pending(request);
+        List<Pending> full = null;
+        synchronized (lock) {
+            //== 묶음의 첫 검색이 들어오면 window 뒤에 보내도록 예약한다. ==//
+            if (pending.isEmpty()) {
+                List<Pending> batch = pending;
+                scheduler.schedule(() -> flush(batch), properties.getWindow().toNanos(), TimeUnit.NANOSECONDS);
+            }
+            pending.add(search);
+            if (pending.size() >= properties.getMaxBatchSize()) {
+                full = pending;
+                pending = new ArrayList<>();
+            }
+        }
+        if (full != null) {
+            send(full);
+        }
+        return search.future;
+    }
+
+    private void flush(List<Pending> batch) {
+        synchronized (lock) {
+            //== 이미 가득 차서 보낸 묶음이면 할 일이 없다. ==//
+            if (pending != batch) {
+                return;
+            }
+            pending = new ArrayList<>();
+        }
+        send(batch);
+    }
+
+    private void send(List<Pending> batch) {
+        //== 보내기 전에 호출자가 취소한 검색은 뺀다. ==//
+        List<Pending> searches = new ArrayList<>(batch.size());
+        MultiSearchRequest request = new MultiSearchRequest();
+        for (Pending search : batch) {
+            if (!search.future.isDone()) {
+                searches.add(search);
+                request.add(search.request);
+            }
+        }
+        if (searches.isEmpty()) {
+            return;
+        }
+        batchSize.record(searches.size());
+
+        try {
+            sender.accept(request, ActionListener.wrap(
+                    response -> complete(searches, response),
+                    failure -> searches.forEach(search -> search.future.completeExceptionally(failure))));
+        } catch (RuntimeException e) {
+            searches.forEach(search -> search.future.completeExceptionally(e));
+        }
+    }
+
+    private static void complete(List<Pending> searches, MultiSearchResponse response) {
+        MultiSearchResponse.Item[] items = response.getResponses();
+        for (int i = 0; i < searches.size(); i++) {
+            CompletableFuture<SearchResponse> future = searches.get(i).future;
+            if (i >= items.length) {
+                future.completeExceptionally(new IllegalStateException("missing msearch item " + i));
+            } else if (items[i].isFailure()) {
+                future.completeExceptionally(items[i].getFailure());
+            } else {
+                future.complete(items[i].getResponse());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        List<Pending> remaining;
+        synchronized (lock) {
+            remaining = pending;
+            pending = new ArrayList<>();
+        }
+        scheduler.shutdownNow();
+        send(remaining);
+    }
+
+    private static class Pending {
+
+        private final SearchRequest request;
+        private final CompletableFuture<SearchResponse> future = new CompletableFuture<>();
+
+        private Pending(SearchRequest request) {
+            this.request = request;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.elasticdemo.search;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.hash.MurmurHash3;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * 검색 결과 캐시의 키.
+ * 인덱스는 정렬해서 순서와 무관하게 만들고, 검색 조건은 JSON 으로 직렬화한 뒤 128bit murmur3 해시만 보관한다.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+public class SearchCacheKey {
+
+    private final Set<String> indices;
+    private final long hash1;
+    private final long hash2;
+
+    private SearchCacheKey(Set<String> indices, long hash1, long hash2) {
+        this.indices = indices;
+        this.hash1 = hash1;
+        this.hash2 = hash2;
+    }
+
+    public static SearchCacheKey of(SearchSourceBuilder source, String... indices) {
+        String[] sorted = indices.clone();
+        Arrays.sort(sorted);
+        byte[] json = Strings.toString(source).getBytes(StandardCharsets.UTF_8);
+        MurmurHash3.Hash128 hash = MurmurHash3.hash128(json, 0, json.length, 0, new MurmurHash3.Hash128());
+        return new SearchCacheKey(Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(sorted))), hash.h1, hash.h2);
+    }
+
+    public boolean targets(String index) {
+        return indices.contains(index);
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.elasticdemo.search;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "elastic.search.cache")
+public class SearchCacheProperties {
+
+    //== 캐시가 차지할 수 있는 대략적인 메모리(_source 크기 기준) ==//
+    private DataSize maximumSize = DataSize.ofMegabytes(64);
+
+    //== 색인이 계속 들어와도 이 시간이 지나면 다시 검색한다. ==//
+    private Duration ttl = Duration.ofSeconds(30);
+
+    //== bulk 색인이 끝난 인덱스의 캐시를 바로 비운다. ==//
+    private boolean invalidateOnWrite = true;
+}
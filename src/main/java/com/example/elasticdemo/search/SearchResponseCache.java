@@ -0,0 +1,102 @@
+package com.example.elasticdemo.search;
+
+import com.example.elasticdemo.bulk.IndexWriteListener;
+import com.example.elasticdemo.client.InstrumentedElasticClient;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * 같은 검색 조건의 결과를 TTL 동안 재사용하는 캐시.
+ * 동시에 들어온 같은 검색은 진행 중인 요청 하나를 함께 기다린다(request coalescing).
+ * 실패한 요청은 캐시에 남지 않는다. 자주 쓰이는 검색어가 오래 남도록 W-TinyLFU 로 내보낸다.
+ * 돌려주는 SearchResponse 는 여러 호출자가 공유하므로 수정하면 안 된다.
+ * 색인 시 무효화는 인덱스 이름 기준이므로 alias 로 검색한 결과는 TTL 로만 만료된다.
+ */
+@Slf4j
+@Component
+public class SearchResponseCache implements IndexWriteListener {
+
+    static final String CACHE_NAME = "elastic.search";
+
+    //== hit 하나당 _source 외의 대략적인 비용 ==//
+    private static final int HIT_OVERHEAD = 256;
+    private static final int RESPONSE_OVERHEAD = 1024;
+
+    private final InstrumentedElasticClient client;
+    private final SearchCacheProperties properties;
+    private final AsyncCache<SearchCacheKey, SearchResponse> cache;
+
+    public SearchResponseCache(InstrumentedElasticClient client, SearchCacheProperties properties, MeterRegistry meterRegistry) {
+        this.client = client;
+        this.properties = properties;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(properties.getMaximumSize().toBytes())
+                .weigher((SearchCacheKey key, SearchResponse response) -> weigh(response))
+                .expireAfterWrite(properties.getTtl())
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), CACHE_NAME);
+    }
+
+    public SearchResponse search(SearchSourceBuilder source, String... indices) {
+        try {
+            return searchAsync(source, indices).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    public CompletableFuture<SearchResponse> searchAsync(SearchSourceBuilder source, String... indices) {
+        //== PIT 검색은 매번 결과가 달라질 수 있어 캐시하지 않는다. ==//
+        if (source.pointInTimeBuilder() != null) {
+            return execute(new SearchRequest().source(source));
+        }
+        SearchCacheKey key = SearchCacheKey.of(source, indices);
+        return cache.get(key, (k, executor) -> execute(new SearchRequest(indices).source(source)));
+    }
+
+    public void invalidateIndex(String index) {
+        cache.synchronous().asMap().keySet().removeIf(key -> key.targets(index));
+    }
+
+    public void invalidateAll() {
+        cache.synchronous().invalidateAll();
+    }
+
+    @Override
+    public void onWrite(String index) {
+        if (properties.isInvalidateOnWrite()) {
+            log.debug("index [{}] written, invalidating search cache", index);
+            invalidateIndex(index);
+        }
+    }
+
+    private CompletableFuture<SearchResponse> execute(SearchRequest request) {
+        CompletableFuture<SearchResponse> future = new CompletableFuture<>();
+        client.searchAsync(request, ActionListener.wrap(future::complete, future::completeExceptionally));
+        return future;
+    }
+
+    static int weigh(SearchResponse response) {
+        long weight = RESPONSE_OVERHEAD;
+        for (SearchHit hit : response.getHits().getHits()) {
+            weight += HIT_OVERHEAD + (hit.getSourceRef() == null ? 0 : hit.getSourceRef().length());
+        }
+        return (int) Math.min(weight, Integer.MAX_VALUE);
+    }
+}
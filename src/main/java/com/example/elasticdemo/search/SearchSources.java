@@ -0,0 +1,38 @@
+package com.example.elasticdemo.search;
+
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.NamedWriteableAwareStreamInput;
+import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.search.SearchModule;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * SearchSourceBuilder.shallowCopy() 는 sort 목록을 원본과 같은 list 로 공유하므로
+ * 사본에 sort 를 덧붙이면 호출한 쪽의 builder 에도 쌓인다. 정렬을 바꿀 사본은 여기서 직렬화 후 다시 읽어 만든다.
+ * Elasticsearch core 의 query 만 등록되어 있어 plugin query(has_child 등)가 들어 있으면 복사할 수 없다.
+ */
+public final class SearchSources {
+
+    private static final NamedWriteableRegistry REGISTRY =
+            new NamedWriteableRegistry(new SearchModule(Settings.EMPTY, false, List.of()).getNamedWriteables());
+
+    private SearchSources() {
+    }
+
+    public static SearchSourceBuilder copy(SearchSourceBuilder source) {
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            source.writeTo(out);
+            try (StreamInput in = new NamedWriteableAwareStreamInput(out.bytes().streamInput(), REGISTRY)) {
+                return new SearchSourceBuilder(in);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("failed to copy search source", e);
+        }
+    }
+}
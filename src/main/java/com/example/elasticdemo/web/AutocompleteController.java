@@ -0,0 +1,42 @@
+package com.example.elasticdemo.web;
+
+import com.example.elasticdemo.autocomplete.AutocompleteService;
+import com.example.elasticdemo.autocomplete.Suggestion;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/autocomplete")
+@RequiredArgsConstructor
+public class AutocompleteController {
+
+    private static final int MAX_SIZE = 50;
+
+    private final AutocompleteService autocompleteService;
+
+    /**
+     * 메모리의 자동 완성 사전에서 바로 조회하므로 Elasticsearch 에 요청하지 않는다.
+     */
+    @GetMapping
+    public List<Suggestion> suggest(@RequestParam String prefix,
+                                    @RequestParam(defaultValue = "10") int size) {
+        return autocompleteService.suggest(prefix, Math.min(size, MAX_SIZE));
+    }
+
+    /**
+     * 마지막 갱신 이후 색인된 공고의 검색어를 사전에 더한다. 처음 호출하면 사전 전체를 만든다.
+     */
+    @PostMapping("/refresh")
+    public Map<String, Integer> refresh() throws IOException {
+        return Collections.singletonMap("terms", autocompleteService.refresh().size());
+    }
+}
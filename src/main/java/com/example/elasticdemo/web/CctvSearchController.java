@@ -0,0 +1,80 @@
+package com.example.elasticdemo.web;
+
+import com.example.elasticdemo.search.AsyncSearchService;
+import com.example.elasticdemo.search.CctvQueries;
+import com.example.elasticdemo.search.PitSearchIterator;
+import com.example.elasticdemo.search.PitSearchService;
+import com.example.elasticdemo.search.Projection;
+import com.example.elasticdemo.search.ProjectionMetrics;
+import lombok.RequiredArgsConstructor;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/api/cctv")
+@RequiredArgsConstructor
+public class CctvSearchController {
+
+    private static final int MAX_SIZE = 100;
+
+    private final AsyncSearchService asyncSearchService;
+    private final PitSearchService pitSearchService;
+    private final ProjectionMetrics projectionMetrics;
+
+    /**
+     * 현재 위치에서 반경 distanceKm 안의 CCTV.
+     * view 는 pin(위치와 카메라대수만, doc values), list(기본), detail(_source 전체), id 중 하나이다.
+     */
+    @GetMapping("/nearby")
+    public CompletableFuture<List<Map<String, Object>>> nearby(@RequestParam double lat,
+                                                               @RequestParam double lon,
+                                                               @RequestParam(defaultValue = "5") double distanceKm,
+                                                               @RequestParam(required = false) String purpose,
+                                                               @RequestParam(defaultValue = "list") String view,
+                                                               @RequestParam(defaultValue = "20") int size) {
+        Projection projection = CctvQueries.projection(view);
+        SearchRequest request = new SearchRequest(CctvQueries.CCTV_READ)
+                .source(projection.apply(CctvQueries.nearby(lat, lon, distanceKm, purpose)).size(Math.min(size, MAX_SIZE)));
+        return asyncSearchService.search(request)
+                .thenApply(response -> projectionMetrics.record(CctvQueries.CCTV_READ, projection, response))
+                .thenApply(response -> Arrays.stream(response.getHits().getHits())
+                        .map(Projection::toMap)
+                        .collect(Collectors.toList()));
+    }
+
+    /**
+     * 반경 안의 CCTV 전체를 NDJSON 으로 내려준다. view 는 _source 를 쓰는 list(기본) 또는 detail 이다.
+     */
+    @GetMapping("/nearby/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam double lat,
+                                                        @RequestParam double lon,
+                                                        @RequestParam(defaultValue = "5") double distanceKm,
+                                                        @RequestParam(required = false) String purpose,
+                                                        @RequestParam(defaultValue = "list") String view) {
+        Projection projection = CctvQueries.projection(view);
+        if (!projection.isFetchSource()) {
+            throw new IllegalArgumentException("export needs a _source projection : " + view);
+        }
+        SearchSourceBuilder source = projection.apply(CctvQueries.nearby(lat, lon, distanceKm, purpose));
+        StreamingResponseBody body = out -> {
+            try (PitSearchIterator hits = pitSearchService.iterate(source, CctvQueries.CCTV_READ)) {
+                NdjsonHitWriter.write(hits, out);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(NdjsonHitWriter.APPLICATION_NDJSON)
+                .body(body);
+    }
+}
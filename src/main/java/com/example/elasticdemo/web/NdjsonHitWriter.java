@@ -0,0 +1,39 @@
+package com.example.elasticdemo.web;
+
+import org.elasticsearch.search.SearchHit;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+
+/**
+ * 검색 결과의 _source 를 파싱하지 않고 그대로 한 줄씩(NDJSON) 응답에 쓴다.
+ */
+final class NdjsonHitWriter {
+
+    static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    //== 이만큼 쓸 때마다 flush 해서 클라이언트가 먼저 받은 결과부터 처리할 수 있게 한다. ==//
+    private static final int FLUSH_EVERY = 1000;
+
+    private NdjsonHitWriter() {
+    }
+
+    static long write(Iterator<SearchHit> hits, OutputStream out) throws IOException {
+        long count = 0;
+        while (hits.hasNext()) {
+            SearchHit hit = hits.next();
+            if (hit.getSourceRef() == null) {
+                continue;
+            }
+            hit.getSourceRef().writeTo(out);
+            out.write('\n');
+            if (++count % FLUSH_EVERY == 0) {
+                out.flush();
+            }
+        }
+        out.flush();
+        return count;
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.elasticdemo.web;
+
+import com.example.elasticdemo.model.ElasticRecruitModel;
+import com.example.elasticdemo.search.HitDecoder;
+import com.example.elasticdemo.search.PitSearchIterator;
+import com.example.elasticdemo.search.PitSearchService;
+import com.example.elasticdemo.search.Projection;
+import com.example.elasticdemo.search.ProjectionMetrics;
+import com.example.elasticdemo.search.RecruitQueries;
+import com.example.elasticdemo.search.SearchResponseCache;
+import lombok.RequiredArgsConstructor;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/api/recruits")
+@RequiredArgsConstructor
+public class RecruitSearchController {
+
+    private static final int MAX_SIZE = 100;
+
+    private final SearchResponseCache searchResponseCache;
+    private final PitSearchService pitSearchService;
+    private final HitDecoder hitDecoder;
+    private final ProjectionMetrics projectionMetrics;
+
+    /**
+     * 키워드 검색. 응답을 기다리는 동안 요청 스레드를 붙잡지 않으며, 같은 검색은 캐시를 공유한다.
+     * view 는 list(기본, 목록에 필요한 필드만) 또는 detail(_source 전체)이다.
+     */
+    @GetMapping
+    public CompletableFuture<List<ElasticRecruitModel>> search(@RequestParam String keyword,
+                                                               @RequestParam(defaultValue = "list") String view,
+                                                               @RequestParam(defaultValue = "0") int from,
+                                                               @RequestParam(defaultValue = "20") int size) {
+        Projection projection = RecruitQueries.projection(view);
+        if (!projection.isFetchSource()) {
+            throw new IllegalArgumentException("use /api/recruits/ids for id only search");
+        }
+        return search(keyword, projection, from, size)
+                .thenApply(response -> hitDecoder.decodeAll(response.getHits(), ElasticRecruitModel.class));
+    }
+
+    /**
+     * 키워드에 매칭되는 공고의 id 만 돌려준다.
+     */
+    @GetMapping("/ids")
+    public CompletableFuture<List<String>> searchIds(@RequestParam String keyword,
+                                                     @RequestParam(defaultValue = "0") int from,
+                                                     @RequestParam(defaultValue = "20") int size) {
+        return search(keyword, Projection.ID_ONLY, from, size)
+                .thenApply(response -> Arrays.stream(response.getHits().getHits())
+                        .map(SearchHit::getId)
+                        .collect(Collectors.toList()));
+    }
+
+    private CompletableFuture<SearchResponse> search(String keyword, Projection projection, int from, int size) {
+        SearchSourceBuilder source = projection.apply(RecruitQueries.keyword(keyword))
+                .from(Math.max(from, 0))
+                .size(Math.min(size, MAX_SIZE));
+        return searchResponseCache.searchAsync(source, RecruitQueries.SARAMIN)
+                .thenApply(response -> projectionMetrics.record(RecruitQueries.SARAMIN, projection, response));
+    }
+
+    /**
+     * 키워드에 매칭되는 공고 전체를 NDJSON 으로 내려준다. 페이지 단위로 읽어서 바로 쓰므로 전체 목록을 메모리에 올리지 않는다.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam String keyword) {
+        StreamingResponseBody body = out -> {
+            SearchSourceBuilder source = RecruitQueries.DETAIL.apply(RecruitQueries.keyword(keyword));
+            try (PitSearchIterator hits = pitSearchService.iterate(source, RecruitQueries.SARAMIN)) {
+                NdjsonHitWriter.write(hits, out);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(NdjsonHitWriter.APPLICATION_NDJSON)
+                .body(body);
+    }
+}
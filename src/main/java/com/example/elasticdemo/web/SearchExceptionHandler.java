@@ -0,0 +1,20 @@
+package com.example.elasticdemo.web;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.Collections;
+import java.util.Map;
+
+@RestControllerAdvice
+public class SearchExceptionHandler {
+
+    //== 알 수 없는 view 등 잘못된 요청 값 ==//
+    @ExceptionHandler(IllegalArgumentException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public Map<String, String> badRequest(IllegalArgumentException e) {
+        return Collections.singletonMap("error", e.getMessage());
+    }
+}
@@ -1,7 +1,11 @@
 package com.example.elasticdemo;
 
+import com.example.elasticdemo.reindex.ReindexResult;
+import com.example.elasticdemo.reindex.ReindexService;
+import com.example.elasticdemo.search.AsyncSearchService;
+import com.example.elasticdemo.search.HitDecoder;
+import com.example.elasticdemo.search.SearchBatcher;
 import com.example.elasticdemo.model.ElasticRecruitModel;
-import org.apache.http.HttpHost;
 import org.elasticsearch.action.DocWriteResponse;
 import org.elasticsearch.action.admin.indices.alias.Alias;
 import org.elasticsearch.action.admin.indices.delete.DeleteIndexRequest;
@@ -12,32 +16,32 @@ import org.elasticsearch.action.index.IndexResponse;
 import org.elasticsearch.action.search.MultiSearchRequest;
 import org.elasticsearch.action.search.MultiSearchResponse;
 import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.action.support.master.AcknowledgedResponse;
 import org.elasticsearch.client.RequestOptions;
-import org.elasticsearch.client.RestClient;
 import org.elasticsearch.client.RestHighLevelClient;
 import org.elasticsearch.client.indices.*;
 import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.index.query.QueryBuilders;
-import org.elasticsearch.index.reindex.BulkByScrollResponse;
 import org.elasticsearch.index.reindex.ReindexRequest;
 import org.elasticsearch.script.Script;
 import org.elasticsearch.script.ScriptType;
-import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.junit.jupiter.api.*;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
 
 import static org.elasticsearch.index.query.QueryBuilders.matchAllQuery;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -47,20 +51,24 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 class ElasticDemoApplicationTests {
 
     public static final String PETITIONS = "petitions";
+    @Autowired
     RestHighLevelClient client;
     private final String NEW_INDEX = "new-index";
 
-    @Value("${elastic.host}")
-    private String HOST;
+    String 전국cctv표준데이터3 = "전국cctv표준데이터3";
 
-    @Value("${elastic.port}")
-    private int PORT;
 
-    String 전국cctv표준데이터3 = "전국cctv표준데이터3";
+    @Autowired
+    HitDecoder hitDecoder;
 
+    @Autowired
+    AsyncSearchService asyncSearchService;
+
+    @Autowired
+    SearchBatcher searchBatcher;
 
     @Autowired
-    ModelMapper mapper;
+    ReindexService reindexService;
 
     /**
      * 이미 해당 인덱스가 존재한다는 가정하에 만들어진 API
@@ -70,8 +78,6 @@ class ElasticDemoApplicationTests {
     @DisplayName("모든 작업을 시작하기 전 인덱스를 조회 후 삭제하고 결과를 출력한다.")
     @BeforeEach
     void beforeEach() throws IOException {
-        client = createClient(HOST, PORT);
-
         //== 인덱스 존재 여부 확인 ==//
         GetIndexRequest getIndexRequest = new GetIndexRequest(NEW_INDEX);
         boolean exists = client.indices().exists(getIndexRequest, RequestOptions.DEFAULT);
@@ -87,19 +93,6 @@ class ElasticDemoApplicationTests {
         }
     }
 
-    private RestHighLevelClient createClient(String host, int port) {
-        return new RestHighLevelClient(
-                RestClient.builder(
-                        new HttpHost(host, port, "http")
-                )
-        );
-    }
-
-    @AfterEach
-    void afterEach() throws IOException {
-        client.close();
-    }
-
     @DisplayName("ElasticSearch 의 cat API 를 이용하여 모든 인덱스 목록을 가져온다.")
     @Test
     void catAPI_indices() throws IOException {
@@ -167,13 +160,7 @@ class ElasticDemoApplicationTests {
 
         newIndexSearchRequest.source(searchSourceBuilder);
 
-        List<ElasticRecruitModel> collect = Arrays.stream(client.search(newIndexSearchRequest, RequestOptions.DEFAULT)
-                        .getInternalResponse()
-                        .hits()
-                        .getHits())
-                .map(SearchHit::getSourceAsMap)
-                .map(e -> mapper.map(e, ElasticRecruitModel.class))
-                .collect(Collectors.toList());
+        List<ElasticRecruitModel> collect = hitDecoder.decodeAll(client.search(newIndexSearchRequest, RequestOptions.DEFAULT).getHits(), ElasticRecruitModel.class);
 
         for (ElasticRecruitModel elasticRecruitModel : collect) {
             System.out.println(elasticRecruitModel);
@@ -210,6 +197,47 @@ class ElasticDemoApplicationTests {
         Assertions.assertNotNull(responses);
     }
 
+    @DisplayName("동시에 들어온 개별 검색을 msearch 로 자동으로 묶기")
+    @Test
+    void batched_search() {
+        //== MultiSearchRequest 를 직접 만들지 않아도 짧은 시간 안에 들어온 검색은 하나의 msearch 로 나간다. ==//
+        List<CompletableFuture<SearchResponse>> futures = new ArrayList<>();
+        for (String keyword : new String[]{"신입", "서울", "개발", "경력"}) {
+            SearchRequest searchRequest = new SearchRequest()
+                    .source(new SearchSourceBuilder().query(QueryBuilders.matchQuery("subject", keyword)));
+            futures.add(searchBatcher.search(searchRequest));
+        }
+        for (CompletableFuture<SearchResponse> future : futures) {
+            System.out.println(future.join().getHits().getTotalHits());
+        }
+    }
+
+    @DisplayName("비동기 검색 API 로 많은 검색을 동시에 요청")
+    @Test
+    void async_search() {
+        SearchRequest searchRequest = new SearchRequest()
+                .source(new SearchSourceBuilder().query(QueryBuilders.matchQuery("subject", "서울")));
+
+        //== 요청하는 스레드는 기다리지 않고 1,000 건을 모두 보낸 뒤 결과를 모은다. ==//
+        long start = System.currentTimeMillis();
+        List<CompletableFuture<SearchResponse>> futures = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            futures.add(asyncSearchService.search(searchRequest, Duration.ofSeconds(30)));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        System.out.println("1000 건 소요 시간 : " + (System.currentTimeMillis() - start) + "ms");
+    }
+
+    @DisplayName("deadline 이 지나면 TimeoutException 으로 끝나고 요청은 중단된다.")
+    @Test
+    void async_search_with_deadline() {
+        SearchRequest searchRequest = new SearchRequest()
+                .source(new SearchSourceBuilder().query(matchAllQuery()));
+        CompletableFuture<SearchResponse> future = asyncSearchService.search(searchRequest, Duration.ofNanos(1));
+        ExecutionException exception = Assertions.assertThrows(ExecutionException.class, future::get);
+        Assertions.assertTrue(exception.getCause() instanceof TimeoutException);
+    }
+
     @DisplayName("Template API 를 이용한 인덱스 템플릿 생성")
     @Test
     void create_index_template() throws IOException {
@@ -298,8 +326,9 @@ class ElasticDemoApplicationTests {
                         .setDestIndex(전국cctv표준데이터3)
                         .setScript(script);
 
-                BulkByScrollResponse reindexResponse = client.reindex(reindexRequest, RequestOptions.DEFAULT);
-                System.out.println("reindexResponse = " + reindexResponse);
+                //== 검색은 "전국cctv" alias 로 하므로 복사가 끝나기 전까지는 이전 인덱스를 읽는다. ==//
+                ReindexResult reindexResult = reindexService.reindex(reindexRequest, "전국cctv");
+                System.out.println("reindexResult = " + reindexResult);
 
             }
 
@@ -1,18 +1,25 @@
 package com.example.elasticdemo;
 
+import com.example.elasticdemo.bulk.BulkIndexingService;
+import com.example.elasticdemo.bulk.BulkSession;
+import com.example.elasticdemo.export.ExportResult;
+import com.example.elasticdemo.export.SlicedExportService;
+import com.example.elasticdemo.ingest.StreamingJsonReader;
+import com.example.elasticdemo.reindex.ReindexResult;
+import com.example.elasticdemo.reindex.ReindexService;
+import com.example.elasticdemo.search.CctvQueries;
+import com.example.elasticdemo.search.PitSearchService;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import org.apache.http.HttpHost;
-import org.elasticsearch.action.DocWriteRequest;
 import org.elasticsearch.action.admin.indices.delete.DeleteIndexRequest;
 import org.elasticsearch.action.bulk.BulkRequest;
 import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.search.ClearScrollRequest;
 import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.action.search.SearchScrollRequest;
 import org.elasticsearch.client.RequestOptions;
-import org.elasticsearch.client.RestClient;
 import org.elasticsearch.client.RestHighLevelClient;
 import org.elasticsearch.client.indices.CreateIndexRequest;
 import org.elasticsearch.client.indices.GetIndexRequest;
@@ -25,7 +32,6 @@ import org.elasticsearch.geometry.Rectangle;
 import org.elasticsearch.index.rankeval.EvaluationMetric;
 import org.elasticsearch.index.rankeval.PrecisionAtK;
 import org.elasticsearch.index.rankeval.RatedDocument;
-import org.elasticsearch.index.reindex.BulkByScrollResponse;
 import org.elasticsearch.index.reindex.ReindexRequest;
 import org.elasticsearch.script.Script;
 import org.elasticsearch.script.ScriptType;
@@ -34,18 +40,25 @@ import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.elasticsearch.search.fetch.subphase.highlight.HighlightBuilder;
 import org.elasticsearch.search.sort.SortOrder;
 import org.junit.jupiter.api.*;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.util.StringUtils;
 
 import java.awt.print.Pageable;
+import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
 
 import static org.elasticsearch.index.query.QueryBuilders.*;
 
@@ -54,74 +67,44 @@ import static org.elasticsearch.index.query.QueryBuilders.*;
 public class ElasticSearchGuidBookTest {
 
     public static final String CCTV_DATA = "cctv-data";
-    public static final String NEW_CCTV_DATA = "new-cctv-data";
+    //== 재인덱싱할 때마다 이 접두어에 시각을 붙인 새 인덱스를 만든다. ==//
+    public static final String NEW_CCTV_DATA = CctvQueries.NEW_CCTV_DATA;
+    //== 검색은 이 alias 로 하고, geo_point 로 재인덱싱이 끝나면 새 인덱스로 옮긴다. ==//
+    public static final String CCTV_READ = CctvQueries.CCTV_READ;
     public static final String TEST_DATA = "test_data";
-    @Value("${elastic.host}")
-    private String HOST;
-
-    @Value("${elastic.port}")
-    private int PORT;
-
+    @Autowired
     RestHighLevelClient client;
 
-    private static AtomicLong id = new AtomicLong(1);
+    @Autowired
+    BulkIndexingService bulkIndexingService;
 
+    @Autowired
+    StreamingJsonReader jsonReader;
 
-    @BeforeEach
-    void beforeEach() {
-        client = createClient(HOST, PORT);
-    }
+    @Autowired
+    PitSearchService pitSearchService;
 
+    @Autowired
+    SlicedExportService slicedExportService;
 
-    @AfterEach
-    void afterEach() {
-        try {
-            client.close();
-        } catch (IOException e) {
-            throw new RuntimeException(e.getMessage());
-        }
-    }
+    @Autowired
+    ReindexService reindexService;
+
+    private static AtomicLong id = new AtomicLong(1);
 
-    private RestHighLevelClient createClient(String host, int port) {
-        return new RestHighLevelClient(
-                RestClient.builder(
-                        new HttpHost(host, port, "http")
-                )
-        );
-    }
 
     @DisplayName("검색 학습을 위한 BulkAPI 사용1")
     @Test
     void create_index_using_bulk_index_api1() throws Exception {
         removeIndexIfExists(CCTV_DATA);
         createCctvIndex();
-        List<Map<String, Object>> records = getObjectFromResourceFile();
-        BulkRequest bulkRequest = new BulkRequest();
-
-
-        int i = 0;
-        for (Map<String, Object> record : records) {
-            IndexRequest indexRequest = new IndexRequest(CCTV_DATA);
-            indexRequest.id(String.valueOf(id.getAndAdd(1)))
-                    .source(record);
-            bulkRequest.add(indexRequest);
-            i++;
-            if (i >= 10000) {
-                i = 0;
-                long count = Arrays.stream(client.bulk(bulkRequest, RequestOptions.DEFAULT)
-                                .getItems())
-                        .filter(e -> e.getOpType().equals(DocWriteRequest.OpType.INDEX))
-                        .count();
-                System.out.println(count + " 개의 문서가 인덱싱 되었습니다.");
-                bulkRequest = new BulkRequest();
-            }
+        //== 건수/크기/시간 기준으로 나눠서 여러 BulkRequest 를 동시에 전송한다. ==//
+        BulkSession session = bulkIndexingService.openSession();
+        try (session; Stream<Map<String, Object>> records = getObjectFromResourceFile()) {
+            records.forEach(record -> session.add(CCTV_DATA, String.valueOf(id.getAndAdd(1)), record));
         }
-
-        long count = Arrays.stream(client.bulk(bulkRequest, RequestOptions.DEFAULT)
-                        .getItems())
-                .filter(e -> e.getOpType().equals(DocWriteRequest.OpType.INDEX))
-                .count();
-        System.out.println(count + " 개의 문서가 인덱싱 되었습니다.");
+        System.out.println(session.getStats().getIndexedDocs() + " 개의 문서가 인덱싱 되었습니다.");
+        System.out.println("bulk stats : " + session.getStats());
         id.set(1);
     }
 
@@ -129,11 +112,12 @@ public class ElasticSearchGuidBookTest {
     @DisplayName("geo_point 사용을 위한 재인덱싱")
     @Test
     void reindex_for_geo_point() throws Exception {
-        removeIndexIfExists(NEW_CCTV_DATA);
         // TODO 만약 인덱스가 없으면 생성
         if (!isExistIndex(CCTV_DATA)) create_index_using_bulk_index_api1();
 
-        CreateIndexRequest createIndexRequest = new CreateIndexRequest(NEW_CCTV_DATA);
+        //== alias 가 가리키는 인덱스를 지우면 그동안 검색이 끊기므로 매번 새 이름으로 만든다. ==//
+        String newIndex = NEW_CCTV_DATA + "-" + System.currentTimeMillis();
+        CreateIndexRequest createIndexRequest = new CreateIndexRequest(newIndex);
 
 
         //TODO 기존의 longitude, latitude 에서 geo_point 를 사용허기 위한 사전 Mapping 작업
@@ -151,12 +135,18 @@ public class ElasticSearchGuidBookTest {
                         "ctx._source.remove('latitude');", new HashMap<>());
 
         reindexRequest.setSourceIndices(CCTV_DATA)
-                .setDestIndex(NEW_CCTV_DATA)
+                .setDestIndex(newIndex)
                 .setScript(script)
                 .setTimeout(TimeValue.timeValueMinutes(2));
 
-        BulkByScrollResponse reindexResponse = client.reindex(reindexRequest, RequestOptions.DEFAULT);
-        System.out.println("reindexResponse = " + reindexResponse);
+        ReindexResult result = reindexService.reindex(reindexRequest, CCTV_READ,
+                progress -> System.out.println("진행 상황 : " + progress));
+        System.out.println("reindex result = " + result);
+
+        //== alias 가 새 인덱스로 옮겨졌으므로 더 이상 읽히지 않는 이전 인덱스를 지운다. ==//
+        for (String previous : result.getPreviousIndices()) {
+            removeIndexIfExists(previous);
+        }
     }
 
 
@@ -348,6 +338,48 @@ public class ElasticSearchGuidBookTest {
         for (Map<String, Object> result : searchResult) {
             System.out.println(result);
         }
+
+        //== 다 쓴 scroll context 는 직접 정리해야 서버 자원이 바로 반납된다. ==//
+        ClearScrollRequest clearScrollRequest = new ClearScrollRequest();
+        clearScrollRequest.addScrollId(scrollId);
+        Assertions.assertTrue(client.clearScroll(clearScrollRequest, RequestOptions.DEFAULT).isSucceeded());
+    }
+
+    @DisplayName("sliced scroll 을 이용한 병렬 전체 내보내기")
+    @Test
+    void export_with_sliced_scroll() throws Exception {
+        if (!isExistIndex(CCTV_READ)) reindex_for_geo_point();
+        Path target = Files.createTempFile(CCTV_READ, ".ndjson.gz");
+        try {
+            ExportResult result = slicedExportService.export(CCTV_READ, new SearchSourceBuilder().query(matchAllQuery()), target);
+            System.out.println(result);
+
+            //== slice 별 gzip member 가 이어 붙어 있어도 하나의 gzip 으로 읽혀야 한다. ==//
+            long lines;
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    new GZIPInputStream(Files.newInputStream(target)), StandardCharsets.UTF_8))) {
+                lines = reader.lines().count();
+            }
+            Assertions.assertEquals(result.getDocuments(), lines);
+        } finally {
+            Files.deleteIfExists(target);
+        }
+    }
+
+    @DisplayName("point in time + search_after 를 이용한 전체 조회")
+    @Test
+    void search_with_point_in_time() throws Exception {
+        if (!isExistIndex(CCTV_READ)) reindex_for_geo_point();
+        SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder()
+                .query(matchAllQuery());
+
+        //== from/size 의 10,000 건 제한 없이 13 만건 전체를 페이지 단위로 순회한다. ==//
+        long start = System.currentTimeMillis();
+        long count;
+        try (Stream<SearchHit> hits = pitSearchService.stream(searchSourceBuilder, CCTV_READ)) {
+            count = hits.count();
+        }
+        System.out.println("총 " + count + " 건 조회, 소요 시간 : " + (System.currentTimeMillis() - start) + "ms");
     }
 
     //== QueryContext ==//
@@ -847,9 +879,9 @@ public class ElasticSearchGuidBookTest {
     @Test
     void search_api_review() throws Exception {
         //TODO 실제 검색을 위해 13 만건 정도 되는 CCTV 데이터 사용(Analyzer 적용 완료)
-        if (!isExistIndex(NEW_CCTV_DATA)) reindex_for_geo_point();
+        if (!isExistIndex(CCTV_READ)) reindex_for_geo_point();
         //TODO 검색 조건 : 관리기관명이나 소 재지번주소에 "서울"이 들어가며 "시설물"과 관련된 설치구분 중 설치년월이 2014년 이후인 것을 검색
-        SearchRequest searchRequest = new SearchRequest(NEW_CCTV_DATA);
+        SearchRequest searchRequest = new SearchRequest(CCTV_READ);
         SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder();
 
         searchSourceBuilder.query(
@@ -879,8 +911,8 @@ public class ElasticSearchGuidBookTest {
     @Test
     void search_with_geo_distance_api1() throws Exception {
         //TODO 실제 검색을 위해 13 만건 정도 되는 CCTV 데이터 사용(Analyzer 적용 완료)
-        if (!isExistIndex(NEW_CCTV_DATA)) reindex_for_geo_point();
-        SearchRequest searchRequest = new SearchRequest(NEW_CCTV_DATA);
+        if (!isExistIndex(CCTV_READ)) reindex_for_geo_point();
+        SearchRequest searchRequest = new SearchRequest(CCTV_READ);
         SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder();
 
 
@@ -919,9 +951,9 @@ public class ElasticSearchGuidBookTest {
     @DisplayName("geo distance 를 이용한 검색")
     @Test
     void search_with_geo_distance_api2() throws Exception {
-        if (!isExistIndex(NEW_CCTV_DATA)) reindex_for_geo_point();
+        if (!isExistIndex(CCTV_READ)) reindex_for_geo_point();
         // TODO 촬영방면정보가 360도 전방면인 반경 10KM 안에 있으면서 설치목적구분이 어린이보호인 모든 CCTV 조회
-        SearchRequest searchRequest = new SearchRequest(NEW_CCTV_DATA);
+        SearchRequest searchRequest = new SearchRequest(CCTV_READ);
         SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder();
         searchSourceBuilder.query(
                 boolQuery()
@@ -1035,13 +1067,13 @@ public class ElasticSearchGuidBookTest {
         System.out.println(CCTV_DATA + " 인덱스가 생성되었습니다.");
     }
 
-    private List<Map<String, Object>> getObjectFromResourceFile() throws IOException {
+    private Stream<Map<String, Object>> getObjectFromResourceFile() throws IOException {
+        //== 13 만건 배열을 한 번에 List 로 읽지 않고 원소 단위로 읽는다. ==//
         InputStream inputStream = new ClassPathResource("cctv-data.json").getInputStream();
-        return new ObjectMapper().readValue(inputStream, new TypeReference<List<Map<String, Object>>>() {
-                }).stream()
+        return jsonReader.readArray(inputStream, new TypeReference<Map<String, Object>>() {
+                })
                 .filter(e -> StringUtils.hasText(String.valueOf(e.get("longitude"))))
-                .filter(e -> StringUtils.hasText(String.valueOf(e.get("latitude"))))
-                .collect(Collectors.toList());
+                .filter(e -> StringUtils.hasText(String.valueOf(e.get("latitude"))));
     }
 
 
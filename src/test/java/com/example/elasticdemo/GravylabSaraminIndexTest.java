@@ -1,7 +1,15 @@
 package com.example.elasticdemo;
 
+import com.example.elasticdemo.analyze.AnalyzeService;
+import com.example.elasticdemo.analyze.BatchAnalyzeResult;
+import com.example.elasticdemo.autocomplete.AutocompleteService;
+import com.example.elasticdemo.autocomplete.Suggestion;
+import com.example.elasticdemo.autocomplete.SuggestionIndex;
+import com.example.elasticdemo.reindex.ReindexResult;
+import com.example.elasticdemo.reindex.ReindexService;
+import com.example.elasticdemo.search.HitDecoder;
+import com.example.elasticdemo.search.SearchResponseCache;
 import com.example.elasticdemo.model.ElasticRecruitModel;
-import org.apache.http.HttpHost;
 import org.elasticsearch.action.admin.indices.alias.Alias;
 import org.elasticsearch.action.admin.indices.delete.DeleteIndexRequest;
 import org.elasticsearch.action.admin.indices.template.delete.DeleteIndexTemplateRequest;
@@ -11,7 +19,6 @@ import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.action.support.master.AcknowledgedResponse;
 import org.elasticsearch.client.RequestOptions;
-import org.elasticsearch.client.RestClient;
 import org.elasticsearch.client.RestHighLevelClient;
 import org.elasticsearch.client.core.MultiTermVectorsRequest;
 import org.elasticsearch.client.core.MultiTermVectorsResponse;
@@ -20,21 +27,18 @@ import org.elasticsearch.client.core.TermVectorsResponse;
 import org.elasticsearch.client.indices.*;
 import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.index.query.QueryBuilders;
-import org.elasticsearch.index.reindex.BulkByScrollResponse;
 import org.elasticsearch.index.reindex.ReindexRequest;
-import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 import static org.elasticsearch.index.query.QueryBuilders.boolQuery;
@@ -46,51 +50,36 @@ public class GravylabSaraminIndexTest {
 
     public static final String SARAMIN = "saramin";
     public static final String NEW_SARAMIN = "new_saramin";
+    //== 검색은 이 alias 로 하고, reindex 가 끝나면 새 인덱스로 옮긴다. ==//
+    public static final String SARAMIN_READ = "saramin-read";
     public static final String MYTEMPLATE_1 = "mytemplate_1";
     public static final String STANDARD_ANALYZER = "standard";
     public static final String CREATED = "CREATED";
+    @Autowired
     RestHighLevelClient client;
 
-    @Value("${elastic.host}")
-    private String HOST;
-
-    @Value("${elastic.port}")
-    private int PORT;
-
     private final static String GRAVYLAB_NORI_ANALYZER = "gravylab-nori-analyzer";
 
     @Autowired
-    ModelMapper mapper;
+    HitDecoder hitDecoder;
 
+    @Autowired
+    ReindexService reindexService;
 
-    private RestHighLevelClient createClient(String host, int port) {
-        return new RestHighLevelClient(
-                RestClient.builder(
-                        new HttpHost(host, port, "http")
-                )
-        );
-    }
+    @Autowired
+    AutocompleteService autocompleteService;
 
-    @BeforeEach
-    @Test
-    void beforeEach() {
-        //== client 생성 ==//
-        client = createClient(HOST, PORT);
-    }
+    @Autowired
+    AnalyzeService analyzeService;
 
+    @Autowired
+    SearchResponseCache searchResponseCache;
 
-    @AfterEach
-    @Test
-    void afterEach() throws IOException {
-        //== 사용 완료한 client 닫기 ==//
-        client.close();
-    }
 
     //=========================== SARAMIN =============================//
     @DisplayName("ElasticSearch 에서 모든 구직공고 가져오기")
     @Test
     void get_recruit_data() throws IOException {
-        client = createClient(HOST, PORT);
         //== 생성자 안에 조회할 인덱스 지정 가능(String) 아무것도 안넣고 할 시 모든 INDEX 에서 검색 ==//
         SearchRequest searchRequest = new SearchRequest();
         SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder();
@@ -102,13 +91,7 @@ public class GravylabSaraminIndexTest {
                 .size(50);
 
         searchRequest.source(searchSourceBuilder);
-        List<ElasticRecruitModel> modelList = Arrays.stream(client.search(searchRequest, RequestOptions.DEFAULT)
-                        .getInternalResponse()
-                        .hits()
-                        .getHits())
-                .map(SearchHit::getSourceAsMap)
-                .map(e -> mapper.map(e, ElasticRecruitModel.class))
-                .collect(Collectors.toList());
+        List<ElasticRecruitModel> modelList = hitDecoder.decodeAll(client.search(searchRequest, RequestOptions.DEFAULT).getHits(), ElasticRecruitModel.class);
 
         for (ElasticRecruitModel elasticRecruitModel : modelList) {
             System.out.println(elasticRecruitModel);
@@ -144,13 +127,7 @@ public class GravylabSaraminIndexTest {
         searchRequest.source(searchSourceBuilder);
 
         //== searchRequest 로 client 에 검색을 요청 후, 검색 결과를 객체로 변환하는 작업 ==//
-        List<ElasticRecruitModel> modelList = Arrays.stream(client.search(searchRequest, RequestOptions.DEFAULT)
-                        .getInternalResponse()
-                        .hits()
-                        .getHits())
-                .map(SearchHit::getSourceAsMap)
-                .map(this::converSourceMapToModel)
-                .collect(Collectors.toList());
+        List<ElasticRecruitModel> modelList = hitDecoder.decodeAll(client.search(searchRequest, RequestOptions.DEFAULT).getHits(), ElasticRecruitModel.class);
 
         //== 검색 결과 출력 ==//
         for (ElasticRecruitModel elasticRecruitModel : modelList) {
@@ -159,6 +136,31 @@ public class GravylabSaraminIndexTest {
     }
 
 
+    @DisplayName("같은 키워드 검색은 캐시에서 재사용")
+    @Test
+    void search_by_keyword_with_cache() throws Exception {
+        SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder().query(
+                boolQuery()
+                        .should(matchQuery("etc", "개발자"))
+                        .should(matchQuery("company", "개발자"))
+                        .should(matchQuery("subject", "개발자")));
+
+        //== 동시에 들어온 같은 검색은 진행 중인 요청 하나를 함께 기다린다. ==//
+        List<CompletableFuture<SearchResponse>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(searchResponseCache.searchAsync(searchSourceBuilder, SARAMIN));
+        }
+        SearchResponse first = futures.get(0).get();
+        for (CompletableFuture<SearchResponse> future : futures) {
+            Assertions.assertSame(first, future.get());
+        }
+
+        long start = System.nanoTime();
+        SearchResponse cached = searchResponseCache.search(searchSourceBuilder, SARAMIN);
+        System.out.println("캐시 조회 : " + (System.nanoTime() - start) / 1000 + "us");
+        Assertions.assertSame(first, cached);
+    }
+
     @DisplayName("사용자가 구현한 분석기 사용")
     @ParameterizedTest(name = "{index} 번 텍스트 : {0}")
     @ValueSource(strings = {"안녕하세요. 그레이비랩입니다.", "아버지가 방에 들어가신다.", "아버지 가방에 들어가신다", "[체외진단의료기기 전문기업] 면역진단 마케팅 및 PM (7년 이상)"})
@@ -183,6 +185,44 @@ public class GravylabSaraminIndexTest {
         System.out.println("tokens = " + tokens);
     }
 
+    @DisplayName("자주 쓰는 키워드의 분석 결과 캐시")
+    @Test
+    void analyze_with_cache() {
+        String[] keywords = {"개발자", "개발", "인사", "회계"};
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            for (String keyword : keywords) {
+                analyzeService.terms(SARAMIN, GRAVYLAB_NORI_ANALYZER, keyword);
+            }
+            //== 첫 회차만 Elasticsearch 에 요청하고 이후는 캐시에서 바로 돌려준다. ==//
+            System.out.println(round + " 회차 : " + (System.nanoTime() - start) / 1000 + "us");
+        }
+        System.out.println(analyzeService.terms(SARAMIN, GRAVYLAB_NORI_ANALYZER, "개발자"));
+    }
+
+    @DisplayName("여러 텍스트를 묶어서 한 번에 분석")
+    @Test
+    void analyze_in_batch() throws IOException {
+        //== 공고 제목 1,000 건을 가져와 묶음 단위로 분석한다. ==//
+        SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder()
+                .query(QueryBuilders.matchAllQuery())
+                .fetchSource("subject", null)
+                .size(1000);
+        SearchResponse response = client.search(new SearchRequest(SARAMIN).source(searchSourceBuilder), RequestOptions.DEFAULT);
+        List<String> subjects = hitDecoder.decodeAll(response.getHits(), ElasticRecruitModel.class)
+                .stream()
+                .map(ElasticRecruitModel::getSubject)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+
+        BatchAnalyzeResult result = analyzeService.analyzeAll(SARAMIN, GRAVYLAB_NORI_ANALYZER, subjects);
+        System.out.println(result);
+        Assertions.assertEquals(subjects.size(), result.getTokens().size());
+        for (int i = 0; i < 5 && i < subjects.size(); i++) {
+            System.out.println(subjects.get(i) + " -> " + result.getTokens().get(i));
+        }
+    }
+
     @DisplayName("Standard Tokenizer 사용")
     @Test
     void analyze_with_standard_tokenizer() throws IOException {
@@ -200,7 +240,6 @@ public class GravylabSaraminIndexTest {
 
 
         //== 검색을 위한 SearchRequest 생성 ==//
-        //TODO 자동 완성 검색어 목록을 어떻게 추려낼 지
         long start = new Date().getTime();
         SearchRequest searchRequest = new SearchRequest("saramin");
         SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder();
@@ -210,11 +249,8 @@ public class GravylabSaraminIndexTest {
                 .size(50);
         searchRequest.source(searchSourceBuilder);
         SearchResponse response = client.search(searchRequest, RequestOptions.DEFAULT);
-        List<String> idList = Arrays.stream(response.getInternalResponse()
-                        .hits()
-                        .getHits())
-                .map(SearchHit::getSourceAsMap)
-                .map(this::converSourceMapToModel)
+        List<String> idList = hitDecoder.decodeAll(response.getHits(), ElasticRecruitModel.class)
+                .stream()
                 .map(ElasticRecruitModel::getPositionId)
                 .collect(Collectors.toList());
 
@@ -247,6 +283,29 @@ public class GravylabSaraminIndexTest {
         }
     }
 
+    @DisplayName("전체 문서의 term vector 로 자동 완성 사전 생성")
+    @Test
+    void autocomplete_from_term_vectors() throws IOException {
+        SuggestionIndex index = autocompleteService.rebuild();
+        System.out.println("자동 완성 검색어 수 : " + index.size());
+
+        //== 사전이 만들어진 뒤에는 Elasticsearch 를 거치지 않고 메모리에서 조회한다. ==//
+        for (String prefix : new String[]{"개발", "자바", "서버"}) {
+            long start = System.nanoTime();
+            List<Suggestion> suggestions = autocompleteService.suggest(prefix);
+            System.out.println(prefix + " -> " + suggestions + " (" + (System.nanoTime() - start) / 1000 + "us)");
+        }
+    }
+
+    @DisplayName("마지막 수집 이후 색인된 문서로 자동 완성 사전 갱신")
+    @Test
+    void refresh_autocomplete() throws IOException {
+        SuggestionIndex before = autocompleteService.rebuild();
+        //== 새로 색인된 문서가 없으면 검색어 수도 그대로여야 한다. ==//
+        SuggestionIndex after = autocompleteService.refresh();
+        Assertions.assertEquals(before.size(), after.size());
+    }
+
     @DisplayName("Reindex API 사용")
     @Test
     void re_index() throws IOException {
@@ -263,12 +322,13 @@ public class GravylabSaraminIndexTest {
             System.out.println("새로운 인덱스 삭제 결과 : " + result);
         }
 
-        //== 기존의 saramin 인덱스를 new_saramin 이라는 인덱스로 복사 요청 ==//
+        //== 기존의 saramin 인덱스를 new_saramin 이라는 인덱스로 복사한 뒤 읽기용 alias 를 옮긴다. ==//
         ReindexRequest reindexRequest = new ReindexRequest();
         reindexRequest.setSourceIndices(SARAMIN)
                 .setDestIndex(NEW_SARAMIN);
-        BulkByScrollResponse response = client.reindex(reindexRequest, RequestOptions.DEFAULT);
-        System.out.println(response.getCreated() + "개의 데이터가 추가됨.");
+        ReindexResult result = reindexService.reindex(reindexRequest, SARAMIN_READ,
+                progress -> System.out.println("진행 상황 : " + progress));
+        System.out.println(result.getProgress().getCreated() + "개의 데이터가 추가됨.");
     }
 
     @DisplayName("Template API 를 이용한 인덱스 템플릿 생성")
@@ -363,9 +423,4 @@ public class GravylabSaraminIndexTest {
                 .distinct()
                 .collect(Collectors.toList());
     }
-
-
-    private ElasticRecruitModel converSourceMapToModel(Map<String, Object> e) {
-        return mapper.map(e, ElasticRecruitModel.class);
-    }
 }
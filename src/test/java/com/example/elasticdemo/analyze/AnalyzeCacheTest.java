@@ -0,0 +1,58 @@
+package com.example.elasticdemo.analyze;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnalyzeCacheTest {
+
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    AnalyzeCache cache = new AnalyzeCache(new AnalyzeCacheProperties(), registry);
+    AtomicInteger loads = new AtomicInteger();
+
+    List<AnalyzedToken> load(AnalyzeKey key) {
+        loads.incrementAndGet();
+        return List.of(new AnalyzedToken(key.getText(), 0, key.getText().length(), 0, "NNG"));
+    }
+
+    @DisplayName("같은 (index, analyzer, text) 는 한 번만 분석한다.")
+    @Test
+    void load_once_per_key() {
+        for (int i = 0; i < 100; i++) {
+            cache.get(new AnalyzeKey("saramin", "gravylab_nori_analyzer", "개발자"), this::load);
+        }
+        cache.get(new AnalyzeKey("saramin", "standard", "개발자"), this::load);
+
+        assertEquals(2, loads.get());
+        assertEquals(99, cache.stats().hitCount());
+        assertEquals(99.0, registry.get("cache.gets").tag("cache", AnalyzeCache.CACHE_NAME).tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @DisplayName("인덱스 단위로 비우면 다른 인덱스와 전역 분석기 결과는 남는다.")
+    @Test
+    void invalidate_index() {
+        cache.get(new AnalyzeKey("saramin", "standard", "개발"), this::load);
+        cache.get(new AnalyzeKey("new_saramin", "standard", "개발"), this::load);
+        cache.get(new AnalyzeKey(null, "standard", "개발"), this::load);
+
+        cache.invalidateIndex("saramin");
+
+        assertEquals(2, cache.estimatedSize());
+        cache.get(new AnalyzeKey("saramin", "standard", "개발"), this::load);
+        assertEquals(4, loads.get());
+    }
+
+    @DisplayName("긴 텍스트일수록 무게가 크다.")
+    @Test
+    void weigh_by_length() {
+        AnalyzeKey shortKey = new AnalyzeKey("saramin", "standard", "인사");
+        AnalyzeKey longKey = new AnalyzeKey("saramin", "standard", "[체외진단의료기기 전문기업] 면역진단 마케팅 및 PM (7년 이상)");
+        assertTrue(AnalyzeCache.weigh(longKey, load(longKey)) > AnalyzeCache.weigh(shortKey, load(shortKey)));
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.elasticdemo.analyze;
+
+import com.example.elasticdemo.client.InstrumentedElasticClient;
+import com.example.elasticdemo.standin.ElasticStandInServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.elasticsearch.action.admin.indices.settings.put.UpdateSettingsRequest;
+import org.elasticsearch.client.RestClient;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.client.indices.CreateIndexRequest;
+import org.elasticsearch.common.settings.Settings;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnalyzeServiceStandInTest {
+
+    static final String INDEX = "saramin";
+    static final String ANALYZER = "standard";
+
+    ElasticStandInServer server;
+    RestHighLevelClient restHighLevelClient;
+    InstrumentedElasticClient client;
+    AnalyzeService analyzeService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = ElasticStandInServer.start();
+        restHighLevelClient = new RestHighLevelClient(RestClient.builder(server.httpHost()));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        client = new InstrumentedElasticClient(restHighLevelClient, meterRegistry);
+        AnalyzeCacheProperties properties = new AnalyzeCacheProperties();
+        properties.setSettingsCheckInterval(Duration.ofMillis(1));
+        analyzeService = new AnalyzeService(client, new AnalyzeCache(properties, meterRegistry), properties, new AnalyzeBatchProperties());
+        client.createIndex(new CreateIndexRequest(INDEX));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        restHighLevelClient.close();
+        server.close();
+    }
+
+    @DisplayName("한 스레드가 설정을 확인하는 동안 다른 스레드는 기다리지 않고 캐시를 쓴다.")
+    @Test
+    void do_not_wait_for_settings_check() throws Exception {
+        assertEquals(List.of("백엔드", "개발자"), analyzeService.terms(INDEX, ANALYZER, "백엔드 개발자"));
+        server.fault("_settings").latency(Duration.ofMillis(500));
+        TimeUnit.MILLISECONDS.sleep(5);
+
+        CompletableFuture<List<String>> checking = CompletableFuture.supplyAsync(() -> analyzeService.terms(INDEX, ANALYZER, "백엔드 개발자"));
+        while (server.requestCount("_settings") < 2) {
+            TimeUnit.MILLISECONDS.sleep(1);
+        }
+        long start = System.nanoTime();
+        List<String> terms = analyzeService.terms(INDEX, ANALYZER, "백엔드 개발자");
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(List.of("백엔드", "개발자"), terms);
+        assertTrue(elapsedMillis < 250, elapsedMillis + "ms");
+        assertEquals(terms, checking.get(5, TimeUnit.SECONDS));
+        assertEquals(1, server.requestCount(ElasticStandInServer.ANALYZE));
+    }
+
+    @DisplayName("analysis 설정이 바뀌면 그 인덱스의 캐시를 비우고 다시 분석한다.")
+    @Test
+    void invalidate_on_settings_change() throws Exception {
+        analyzeService.terms(INDEX, ANALYZER, "백엔드 개발자");
+        client.putSettings(new UpdateSettingsRequest(INDEX).settings(Settings.builder()
+                .put("index.analysis.analyzer.custom.type", "whitespace")));
+        TimeUnit.MILLISECONDS.sleep(5);
+
+        analyzeService.terms(INDEX, ANALYZER, "백엔드 개발자");
+        analyzeService.terms(INDEX, ANALYZER, "백엔드 개발자");
+
+        assertEquals(2, server.requestCount(ElasticStandInServer.ANALYZE));
+    }
+}
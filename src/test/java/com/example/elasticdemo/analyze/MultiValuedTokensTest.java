@@ -0,0 +1,44 @@
+package com.example.elasticdemo.analyze;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MultiValuedTokensTest {
+
+    @DisplayName("offset 으로 입력별 토큰을 나누고 offset/position 을 입력 기준으로 되돌린다.")
+    @Test
+    void split_by_offset() {
+        //== "자바 개발자" / "" / "인사 회계" 를 한 번에 분석한 응답 (offset gap 1, position gap 100) ==//
+        List<String> texts = List.of("자바 개발자", "", "인사 회계");
+        List<AnalyzedToken> tokens = List.of(
+                new AnalyzedToken("자바", 0, 2, 0, "word"),
+                new AnalyzedToken("개발자", 3, 6, 1, "word"),
+                new AnalyzedToken("인사", 8, 10, 202, "word"),
+                new AnalyzedToken("회계", 11, 13, 203, "word"));
+
+        List<List<AnalyzedToken>> split = MultiValuedTokens.split(texts, tokens);
+
+        assertEquals(3, split.size());
+        assertEquals(List.of(new AnalyzedToken("자바", 0, 2, 0, "word"), new AnalyzedToken("개발자", 3, 6, 1, "word")), split.get(0));
+        assertTrue(split.get(1).isEmpty());
+        assertEquals(List.of(new AnalyzedToken("인사", 0, 2, 0, "word"), new AnalyzedToken("회계", 3, 5, 1, "word")), split.get(2));
+    }
+
+    @DisplayName("불용어만 있어서 토큰이 없는 입력도 빈 목록으로 자리를 지킨다.")
+    @Test
+    void keep_empty_results() {
+        List<String> texts = List.of("개발", "은", "는");
+        List<AnalyzedToken> tokens = List.of(new AnalyzedToken("개발", 0, 2, 0, "word"));
+
+        List<List<AnalyzedToken>> split = MultiValuedTokens.split(texts, tokens);
+
+        assertEquals(3, split.size());
+        assertEquals(1, split.get(0).size());
+        assertTrue(split.get(1).isEmpty());
+        assertTrue(split.get(2).isEmpty());
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.elasticdemo.autocomplete;
+
+import org.elasticsearch.index.query.RangeQueryBuilder;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HarvestCheckpointTest {
+
+    @DisplayName("checkpoint 와 같은 millis 의 문서도 다시 조회하도록 gte 로 범위를 건다.")
+    @Test
+    void query_includes_checkpoint_millis() {
+        RangeQueryBuilder query = (RangeQueryBuilder) new HarvestCheckpoint(1_000L, Set.of("a")).query("created");
+
+        assertEquals("created", query.fieldName());
+        assertEquals(1_000L, query.from());
+        assertTrue(query.includeLower());
+        assertNull(query.to());
+        assertEquals("epoch_millis", query.format());
+    }
+
+    @DisplayName("같은 millis 에서 이미 수집한 id 만 건너뛰고, 새 id 는 수집해서 checkpoint 에 더한다.")
+    @Test
+    void skip_harvested_ids_at_same_millis() {
+        CheckpointTracker tracker = new CheckpointTracker(new HarvestCheckpoint(1_000L, Set.of("a", "b")));
+
+        List<String> harvested = new ArrayList<>();
+        for (String id : List.of("a", "b", "c")) {
+            if (tracker.accept(1_000L, id)) {
+                harvested.add(id);
+            }
+        }
+
+        assertEquals(List.of("c"), harvested);
+        HarvestCheckpoint next = tracker.checkpoint();
+        assertEquals(1_000L, next.getMillis());
+        assertEquals(Set.of("a", "b", "c"), next.getIds());
+    }
+
+    @DisplayName("더 최신 값을 만나면 checkpoint 를 그 값과 그 값의 id 로 옮긴다.")
+    @Test
+    void advance_to_latest_millis() {
+        CheckpointTracker tracker = new CheckpointTracker(new HarvestCheckpoint(1_000L, Set.of("a")));
+
+        assertFalse(tracker.accept(1_000L, "a"));
+        assertTrue(tracker.accept(2_000L, "b"));
+        assertTrue(tracker.accept(3_000L, "c"));
+        assertTrue(tracker.accept(3_000L, "d"));
+        //== 기준 필드가 없는 문서는 수집하되 checkpoint 는 움직이지 않는다. ==//
+        assertTrue(tracker.accept(null, "e"));
+
+        HarvestCheckpoint next = tracker.checkpoint();
+        assertEquals(3_000L, next.getMillis());
+        assertEquals(Set.of("c", "d"), next.getIds());
+        //== 다른 millis 의 같은 id 는 수정된 문서이므로 다시 수집한다. ==//
+        assertTrue(new CheckpointTracker(next).accept(4_000L, "c"));
+    }
+
+    @DisplayName("새 문서가 없으면 이전 checkpoint 를, 처음부터 값이 없으면 null 을 돌려준다.")
+    @Test
+    void keep_checkpoint_without_new_documents() {
+        HarvestCheckpoint since = new HarvestCheckpoint(1_000L, Set.of("a"));
+        CheckpointTracker tracker = new CheckpointTracker(since);
+        assertFalse(tracker.accept(1_000L, "a"));
+
+        assertEquals(since.getMillis(), tracker.checkpoint().getMillis());
+        assertEquals(since.getIds(), tracker.checkpoint().getIds());
+
+        CheckpointTracker empty = new CheckpointTracker(null);
+        assertTrue(empty.accept(null, "a"));
+        assertNull(empty.checkpoint());
+    }
+}
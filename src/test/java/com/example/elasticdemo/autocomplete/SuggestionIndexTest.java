@@ -0,0 +1,85 @@
+package com.example.elasticdemo.autocomplete;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SuggestionIndexTest {
+
+    @DisplayName("접두어가 같은 검색어를 빈도 순으로, 빈도가 같으면 사전 순으로 반환한다.")
+    @Test
+    void suggest_by_frequency() {
+        Map<String, Long> frequencies = new HashMap<>();
+        frequencies.put("개발", 30L);
+        frequencies.put("개발자", 50L);
+        frequencies.put("개발팀", 30L);
+        frequencies.put("개선", 100L);
+        frequencies.put("java", 10L);
+        SuggestionIndex index = SuggestionIndex.of(frequencies);
+
+        assertEquals(List.of(
+                new Suggestion("개발자", 50L),
+                new Suggestion("개발", 30L),
+                new Suggestion("개발팀", 30L)), index.suggest("개발", 10));
+        assertEquals(List.of(new Suggestion("개선", 100L), new Suggestion("개발자", 50L)), index.suggest("개", 2));
+        assertTrue(index.suggest("파이썬", 10).isEmpty());
+        assertEquals(100L, index.frequency("개선"));
+        assertEquals(0L, index.frequency("개"));
+    }
+
+    @DisplayName("무작위 사전에서도 전체를 정렬한 결과와 같다.")
+    @Test
+    void matches_full_sort() {
+        Random random = new Random(42);
+        Map<String, Long> frequencies = new HashMap<>();
+        for (int i = 0; i < 5000; i++) {
+            StringBuilder term = new StringBuilder();
+            int length = 1 + random.nextInt(5);
+            for (int j = 0; j < length; j++) {
+                term.append((char) ('a' + random.nextInt(4)));
+            }
+            frequencies.put(term.toString(), (long) random.nextInt(100));
+        }
+        SuggestionIndex index = SuggestionIndex.of(frequencies);
+
+        for (String prefix : List.of("", "a", "ab", "dcb", "abcd")) {
+            List<Suggestion> expected = frequencies.entrySet().stream()
+                    .filter(e -> e.getKey().startsWith(prefix))
+                    .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                    .limit(7)
+                    .map(e -> new Suggestion(e.getKey(), e.getValue()))
+                    .collect(Collectors.toList());
+            assertEquals(expected, index.suggest(prefix, 7), prefix);
+        }
+    }
+
+    @DisplayName("증분 빈도를 합친 새 사전을 만들고 기존 사전은 그대로 둔다.")
+    @Test
+    void merge_is_copy_on_write() {
+        SuggestionIndex base = SuggestionIndex.of(Map.of("개발", 30L, "개발자", 50L, "java", 10L));
+        SuggestionIndex merged = base.merge(Map.of("개발", 40L, "개발팀", 5L, "aws", 1L));
+
+        assertEquals(List.of(new Suggestion("개발", 70L), new Suggestion("개발자", 50L), new Suggestion("개발팀", 5L)),
+                merged.suggest("개발", 10));
+        assertEquals(5, merged.size());
+        assertEquals(1L, merged.frequency("aws"));
+
+        assertEquals(3, base.size());
+        assertEquals(30L, base.frequency("개발"));
+        assertSame(base, base.merge(Map.of()));
+    }
+
+    @DisplayName("빈 사전도 조회할 수 있다.")
+    @Test
+    void empty_index() {
+        assertTrue(SuggestionIndex.EMPTY.suggest("a", 10).isEmpty());
+        assertEquals(0, SuggestionIndex.EMPTY.size());
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.elasticdemo.autocomplete;
+
+import com.example.elasticdemo.client.InstrumentedElasticClient;
+import com.example.elasticdemo.search.PitSearchService;
+import com.example.elasticdemo.standin.ElasticStandInServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestClient;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.client.indices.CreateIndexRequest;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TermHarvesterStandInTest {
+
+    static final String INDEX = "saramin";
+
+    ElasticStandInServer server;
+    RestHighLevelClient restHighLevelClient;
+    TermHarvester termHarvester;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        AutocompleteProperties properties = new AutocompleteProperties();
+        properties.setIndex(INDEX);
+        properties.setFields(List.of("subject"));
+        properties.setBatchSize(2);
+        server = ElasticStandInServer.start();
+        restHighLevelClient = new RestHighLevelClient(RestClient.builder(server.httpHost()));
+        InstrumentedElasticClient client = new InstrumentedElasticClient(restHighLevelClient, new SimpleMeterRegistry());
+        termHarvester = new TermHarvester(client, new PitSearchService(client), properties);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        restHighLevelClient.close();
+        server.close();
+    }
+
+    @DisplayName("created 가 매핑되어 있지 않으면 정렬 없이 전체를 수집하고 checkpoint 를 남기지 않는다.")
+    @Test
+    void harvest_everything_without_created() throws IOException {
+        index(null);
+
+        Harvest harvest = termHarvester.harvest();
+
+        assertEquals(5, harvest.getDocuments());
+        assertEquals(5L, harvest.getFrequencies().get("개발자"));
+        assertTrue(harvest.isFull());
+        assertNull(harvest.getCheckpoint());
+    }
+
+    @DisplayName("created 가 text 로 매핑되어 있으면 이전 checkpoint 가 있어도 전체를 다시 수집한다.")
+    @Test
+    void harvest_everything_when_created_is_text() throws IOException {
+        index("{\"properties\":{\"created\":{\"type\":\"text\"}}}");
+
+        Harvest harvest = termHarvester.harvest(new HarvestCheckpoint(1_000L, Set.of("0")));
+
+        assertEquals(5, harvest.getDocuments());
+        assertTrue(harvest.isFull());
+        assertNull(harvest.getCheckpoint());
+    }
+
+    private void index(String mappings) throws IOException {
+        CreateIndexRequest createIndexRequest = new CreateIndexRequest(INDEX);
+        if (mappings != null) {
+            createIndexRequest.mapping(mappings, XContentType.JSON);
+        }
+        restHighLevelClient.indices().create(createIndexRequest, RequestOptions.DEFAULT);
+        BulkRequest bulkRequest = new BulkRequest();
+        for (int i = 0; i < 5; i++) {
+            bulkRequest.add(new IndexRequest(INDEX).id(String.valueOf(i))
+                    .source("{\"subject\":\"백엔드 개발자\",\"created\":\"2021-07-23T15:45:26.370085\"}", XContentType.JSON));
+        }
+        restHighLevelClient.bulk(bulkRequest, RequestOptions.DEFAULT);
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.elasticdemo.bulk;
+
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.rest.RestStatus;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.ConnectException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkRetryPolicyTest {
+
+    BulkRetryPolicy policy = new BulkRetryPolicy(3, Duration.ofMillis(100), Duration.ofSeconds(1));
+
+    @DisplayName("429, 503 은 재시도하고 매핑 오류(400), 버전 충돌(409)은 재시도하지 않는다.")
+    @Test
+    void classify_item_status() {
+        assertTrue(policy.isRetryable(RestStatus.TOO_MANY_REQUESTS));
+        assertTrue(policy.isRetryable(RestStatus.SERVICE_UNAVAILABLE));
+        assertFalse(policy.isRetryable(RestStatus.BAD_REQUEST));
+        assertFalse(policy.isRetryable(RestStatus.CONFLICT));
+    }
+
+    @DisplayName("요청 전체가 실패한 경우 연결 오류와 rejected execution 만 재시도한다.")
+    @Test
+    void classify_request_failure() {
+        assertTrue(policy.isRetryable(new ConnectException("refused")));
+        assertTrue(policy.isRetryable(new EsRejectedExecutionException("rejected")));
+        assertFalse(policy.isRetryable(new ElasticsearchStatusException("mapper_parsing_exception", RestStatus.BAD_REQUEST)));
+        assertFalse(policy.isRetryable(new IllegalStateException("closed")));
+    }
+
+    @DisplayName("backoff 는 지수적으로 늘어나지만 최대값을 넘지 않는다.")
+    @Test
+    void backoff_is_bounded() {
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(policy.backoffMillis(0) <= 100);
+            assertTrue(policy.backoffMillis(2) <= 400);
+            assertTrue(policy.backoffMillis(40) <= 1000);
+        }
+        assertTrue(policy.canRetry(2));
+        assertFalse(policy.canRetry(3));
+    }
+}
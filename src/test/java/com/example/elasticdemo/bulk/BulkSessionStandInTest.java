@@ -0,0 +1,100 @@
+package com.example.elasticdemo.bulk;
+
+import com.example.elasticdemo.client.InstrumentedElasticClient;
+import com.example.elasticdemo.standin.ElasticStandInServer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.elasticsearch.client.RestClient;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkSessionStandInTest {
+
+    ElasticStandInServer server;
+    RestHighLevelClient client;
+    ObjectMapper objectMapper = new ObjectMapper();
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    BulkIndexingProperties properties = new BulkIndexingProperties();
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = ElasticStandInServer.start();
+        client = new RestHighLevelClient(RestClient.builder(server.httpHost()));
+        properties.setBulkActions(50);
+        properties.setConcurrentRequests(2);
+        properties.setMaxRetries(20);
+        properties.setInitialBackoff(Duration.ofMillis(5));
+        properties.setMaxBackoff(Duration.ofMillis(50));
+        properties.setAwaitCloseTimeout(Duration.ofSeconds(30));
+        properties.setDeadLetterPath(tempDir.resolve("dead-letter.ndjson"));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        client.close();
+        server.close();
+    }
+
+    @DisplayName("문서 단위 429 와 요청 단위 429 가 섞여도 재시도로 모든 문서가 색인된다.")
+    @Test
+    void retry_rejected_items_until_indexed() {
+        server.fault(ElasticStandInServer.BULK)
+                .latency(Duration.ofMillis(2), Duration.ofMillis(20))
+                .itemRejectRate(0.3)
+                .rejectRate(0.1);
+
+        BulkSession session = new BulkSession(new InstrumentedElasticClient(client, meterRegistry), objectMapper, properties,
+                new DeadLetterWriter(objectMapper, properties), meterRegistry, List.of());
+        for (int i = 0; i < 500; i++) {
+            session.add("standin", String.valueOf(i), Map.of("n", i));
+        }
+        session.close();
+
+        assertEquals(500, server.documentCount("standin"));
+        assertEquals(500, session.getStats().getIndexedDocs().sum());
+        assertTrue(session.getStats().getRetriedDocs().sum() > 0);
+        assertEquals(0, session.getStats().getFailedDocs().sum());
+        assertFalse(Files.exists(properties.getDeadLetterPath()));
+    }
+
+    @DisplayName("close() 가 시간 초과로 끝나면 재시도를 기다리던 문서는 버리지 않고 dead letter 로 보낸다.")
+    @Test
+    void dead_letter_retries_left_at_close() throws IOException {
+        server.fault(ElasticStandInServer.BULK).itemRejectRate(1);
+        properties.setInitialBackoff(Duration.ofSeconds(10));
+        properties.setMaxBackoff(Duration.ofSeconds(10));
+        properties.setAwaitCloseTimeout(Duration.ofMillis(300));
+
+        DeadLetterWriter deadLetterWriter = new DeadLetterWriter(objectMapper, properties);
+        BulkSession session = new BulkSession(new InstrumentedElasticClient(client, meterRegistry), objectMapper, properties,
+                deadLetterWriter, meterRegistry, List.of());
+        BulkTracker tracker = new BulkTracker();
+        for (int i = 0; i < 20; i++) {
+            session.add("standin", String.valueOf(i), Map.of("n", i), tracker);
+        }
+        session.close();
+        deadLetterWriter.close();
+
+        assertEquals(20, tracker.seal().join().getFailed());
+        assertEquals(0, server.documentCount("standin"));
+        assertEquals(20, session.getStats().getFailedDocs().sum());
+        assertEquals(20, Files.readAllLines(properties.getDeadLetterPath()).size());
+        assertTrue(Files.readString(properties.getDeadLetterPath()).contains("closed before retry"));
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.elasticdemo.bulk;
+
+import com.example.elasticdemo.model.BulkRequestModel;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class NdjsonBulkEncoderTest {
+
+    NdjsonBulkEncoder encoder = new NdjsonBulkEncoder(new ObjectMapper());
+
+    @DisplayName("action 줄과 문서 줄을 번갈아 쓰고 마지막에 줄바꿈을 붙인다.")
+    @Test
+    void encode_bulk_body() throws IOException {
+        List<BulkRequestModel> documents = List.of(
+                BulkRequestModel.builder().positionId("p1").subject("개발자").build(),
+                BulkRequestModel.builder().positionId("p2").subject("회계").build()
+        );
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        encoder.encode("saramin", documents, BulkRequestModel::getPositionId, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n", -1);
+        assertEquals(5, lines.length);
+        assertEquals("{\"index\":{\"_index\":\"saramin\",\"_id\":\"p1\"}}", lines[0]);
+        assertEquals("{\"index\":{\"_index\":\"saramin\",\"_id\":\"p2\"}}", lines[2]);
+        assertEquals("", lines[4]);
+        assertEquals("p2", new ObjectMapper().readTree(lines[3]).get("positionId").asText());
+    }
+}
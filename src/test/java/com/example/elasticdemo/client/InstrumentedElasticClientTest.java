@@ -0,0 +1,120 @@
+package com.example.elasticdemo.client;
+
+import com.example.elasticdemo.standin.ElasticStandInServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.HttpResponseInterceptor;
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.client.ResponseException;
+import org.elasticsearch.client.RestClient;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InstrumentedElasticClientTest {
+
+    ElasticStandInServer server;
+    RestHighLevelClient restHighLevelClient;
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    InstrumentedElasticClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = ElasticStandInServer.start();
+        ElasticHttpMetrics httpMetrics = new ElasticHttpMetrics(meterRegistry);
+        restHighLevelClient = new RestHighLevelClient(RestClient.builder(server.httpHost())
+                .setHttpClientConfigCallback(builder -> builder
+                        .addInterceptorLast((HttpRequestInterceptor) httpMetrics)
+                        .addInterceptorLast((HttpResponseInterceptor) httpMetrics)));
+        client = new InstrumentedElasticClient(restHighLevelClient, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        restHighLevelClient.close();
+        server.close();
+    }
+
+    @DisplayName("호출마다 operation, index 태그로 지연, took 과의 차이, body 크기를 기록한다.")
+    @Test
+    void record_latency_overhead_and_bytes() throws IOException {
+        server.fault(ElasticStandInServer.SEARCH).latency(Duration.ofMillis(20));
+        client.bulk(new BulkRequest()
+                .add(new IndexRequest("saramin").id("1").source("{\"subject\":\"서울\"}", XContentType.JSON)));
+        client.search(new SearchRequest("saramin"));
+
+        assertEquals(1, meterRegistry.get("elastic.client.requests")
+                .tags("operation", "search", "index", "saramin", "outcome", "success").timer().count());
+        //== stand-in 의 took 은 1ms 이므로 주입한 20ms 지연은 대부분 overhead 로 잡힌다. ==//
+        assertTrue(meterRegistry.get("elastic.client.overhead")
+                .tags("operation", "search", "index", "saramin").timer().totalTime(TimeUnit.MILLISECONDS) >= 15);
+        assertTrue(meterRegistry.get("elastic.client.request.size")
+                .tags("operation", "bulk", "index", "_all").summary().totalAmount() > 0);
+        assertTrue(meterRegistry.get("elastic.client.response.size")
+                .tags("operation", "search", "index", "saramin").summary().totalAmount() > 0);
+    }
+
+    @DisplayName("실패는 HTTP status 또는 예외 이름으로 센다.")
+    @Test
+    void count_errors() {
+        server.fault(ElasticStandInServer.SEARCH).rejectRate(1);
+        assertThrows(ElasticsearchStatusException.class, () -> client.search(new SearchRequest("saramin")));
+
+        server.fault(ElasticStandInServer.SEARCH).reset().dropRate(1);
+        assertThrows(IOException.class, () -> client.search(new SearchRequest("saramin")));
+
+        assertEquals(1, meterRegistry.get("elastic.client.errors").tags("exception", "429").counter().count());
+        assertEquals(2, meterRegistry.get("elastic.client.requests").tags("outcome", "error").timer().count());
+    }
+
+    @DisplayName("비동기 호출에서 listener 가 던져도 성공으로 한 번만 기록하고, low-level 호출의 실패도 status 로 센다.")
+    @Test
+    void record_async_once_and_low_level_status() throws Exception {
+        CountDownLatch failed = new CountDownLatch(1);
+        client.searchAsync(new SearchRequest("saramin"), ActionListener.wrap(
+                response -> {
+                    throw new IllegalStateException("listener bug");
+                },
+                e -> failed.countDown()));
+        assertTrue(failed.await(5, TimeUnit.SECONDS));
+
+        assertEquals(1, meterRegistry.get("elastic.client.requests")
+                .tags("operation", "search", "outcome", "success").timer().count());
+        assertNull(meterRegistry.find("elastic.client.requests").tags("operation", "search", "outcome", "error").timer());
+
+        assertThrows(ResponseException.class, () -> client.getTask("stand-in:404"));
+        assertEquals(1, meterRegistry.get("elastic.client.errors")
+                .tags("operation", "get_task", "exception", "404").counter().count());
+    }
+
+    @DisplayName("URL 경로에서 operation 과 index 를 뽑는다.")
+    @Test
+    void tags_from_path() {
+        assertArrayEquals(new String[]{"operation", "search", "index", "saramin"},
+                ElasticHttpMetrics.tags("POST", "/saramin/_search?typed_keys=true"));
+        assertArrayEquals(new String[]{"operation", "mtermvectors", "index", "_all"},
+                ElasticHttpMetrics.tags("GET", "_mtermvectors"));
+        assertArrayEquals(new String[]{"operation", "scroll", "index", "_all"},
+                ElasticHttpMetrics.tags("POST", "/_search/scroll"));
+        assertArrayEquals(new String[]{"operation", "get", "index", "saramin"},
+                ElasticHttpMetrics.tags("GET", "/saramin/_doc/1"));
+        assertArrayEquals(new String[]{"operation", "index_head", "index", "saramin"},
+                ElasticHttpMetrics.tags("HEAD", "/saramin"));
+        assertEquals("a,b", InstrumentedElasticClient.indexTag("b", "a", null));
+        assertEquals("_all", InstrumentedElasticClient.indexTag());
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.elasticdemo.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VirtualThreadsTest {
+
+    @DisplayName("JDK 21 이상에서만 가상 스레드 executor 를 만든다.")
+    @Test
+    void depends_on_jdk() throws Exception {
+        boolean expected = Runtime.version().feature() >= 21;
+        assertEquals(expected, VirtualThreads.isSupported());
+        assertEquals(expected, VirtualThreads.newVirtualThreadPerTaskExecutor().isPresent());
+
+        if (expected) {
+            ExecutorService executor = VirtualThreads.newVirtualThreadPerTaskExecutor().orElseThrow();
+            try {
+                Future<String> name = executor.submit(() -> Thread.currentThread().toString());
+                assertTrue(name.get().startsWith("VirtualThread"));
+            } finally {
+                executor.shutdown();
+            }
+        }
+    }
+
+    @DisplayName("동기 클라이언트 호출이 carrier 스레드를 고정하지 않는 JDK 24 이상에서만 켠다.")
+    @Test
+    void requires_unpinned_monitors() {
+        int feature = Runtime.version().feature();
+        assertEquals(feature >= 24, VirtualThreads.isBlockingClientFriendly());
+        assertEquals(feature >= 24, new VirtualThreadConfig.VirtualThreadsSupported().matches(null, null));
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.elasticdemo.ingest;
+
+import com.example.elasticdemo.model.BulkRequestModel;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingJsonReaderTest {
+
+    StreamingJsonReader jsonReader = new StreamingJsonReader(new ObjectMapper());
+
+    @DisplayName("최상위 배열을 원소 단위로 읽는다.")
+    @Test
+    void read_array() {
+        InputStream inputStream = toStream("[{\"title\":\"a\"},{\"title\":\"b\"},{\"title\":\"c\"}]");
+        try (Stream<Map<String, Object>> stream = jsonReader.readArray(inputStream, new TypeReference<Map<String, Object>>() {
+        })) {
+            List<Object> titles = stream.map(e -> e.get("title")).collect(Collectors.toList());
+            assertEquals(List.of("a", "b", "c"), titles);
+        }
+    }
+
+    @DisplayName("pointer 위치의 객체만 읽고 나머지는 건너뛴다.")
+    @Test
+    void read_at_pointer() throws IOException {
+        InputStream inputStream = toStream("{\"result\":{\"url\":\"x\",\"other\":{\"detail\":1},\"detail\":{\"positionId\":\"p1\",\"hashtag\":[\"java\"]}}}");
+        Optional<BulkRequestModel> model = jsonReader.readAt(inputStream, "/result/detail", BulkRequestModel.class);
+        assertTrue(model.isPresent());
+        assertEquals("p1", model.get().getPositionId());
+        assertEquals(List.of("java"), model.get().getHashTag());
+    }
+
+    @DisplayName("pointer 위치가 없으면 비어있는 결과를 준다.")
+    @Test
+    void read_at_missing_pointer() throws IOException {
+        assertTrue(jsonReader.readAt(toStream("{\"result\":{}}"), "/result/detail", BulkRequestModel.class).isEmpty());
+    }
+
+    @DisplayName("크롤링한 구직공고 파일을 BulkRequestModel 로 읽는다.")
+    @Test
+    void read_crawled_file() {
+        RecruitCorpusReader corpusReader = new RecruitCorpusReader(jsonReader);
+        Optional<BulkRequestModel> model = corpusReader.readDetail(new ClassPathResource("test-json/2021-07-09/jobkorea_35118805.json"));
+        assertTrue(model.isPresent());
+        assertEquals("jobkorea_35118805", model.get().getPositionId());
+        assertFalse(model.get().getHashTag().isEmpty());
+    }
+
+    @DisplayName("깨진 파일은 건너뛰고 onError 로 알린다.")
+    @Test
+    void report_unreadable_file() {
+        RecruitCorpusReader corpusReader = new RecruitCorpusReader(jsonReader);
+        Resource broken = new ByteArrayResource("{\"result\":{\"detail\":{\"positionId\":".getBytes(StandardCharsets.UTF_8));
+        Resource file = new ClassPathResource("test-json/2021-07-09/jobkorea_35118805.json");
+
+        List<Resource> unreadable = new ArrayList<>();
+        List<BulkRequestModel> models = corpusReader.read(unreadable::add, broken, file).collect(Collectors.toList());
+
+        assertEquals(1, models.size());
+        assertEquals(List.of(broken), unreadable);
+    }
+
+    private InputStream toStream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.elasticdemo.ingest;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorkUnitTest {
+
+    Resource[] resources = {
+            new ClassPathResource("test-json/2021-07-09/jobkorea_35118805.json"),
+            new ClassPathResource("test-json/2021-07-09/jobkorea_35125762.json"),
+            new ClassPathResource("test-json/2021-07-09/saramin_35293860.json"),
+            new ClassPathResource("test-json/2021-07-22/saramin_40765143.json"),
+    };
+
+    @DisplayName("날짜 폴더와 출처 단위로 파일을 묶는다.")
+    @Test
+    void group_by_date_and_source() {
+        List<WorkUnit> units = WorkUnit.group(resources, Set.of());
+
+        assertEquals(3, units.size());
+        assertEquals("2021-07-09/jobkorea", units.get(0).getKey());
+        assertEquals(List.of("2021-07-09/jobkorea_35118805.json", "2021-07-09/jobkorea_35125762.json"), units.get(0).getFileKeys());
+        assertEquals("2021-07-09/saramin", units.get(1).getKey());
+        assertEquals("2021-07-22/saramin", units.get(2).getKey());
+    }
+
+    @DisplayName("체크포인트에 기록된 파일은 다시 실행해도 작업 단위에 포함되지 않는다.")
+    @Test
+    void skip_completed_files(@TempDir Path dir) throws IOException {
+        Path checkpointPath = dir.resolve("checkpoint.txt");
+        try (IngestCheckpoint checkpoint = new IngestCheckpoint(checkpointPath)) {
+            checkpoint.markCompleted(List.of("2021-07-09/jobkorea_35118805.json", "2021-07-09/jobkorea_35125762.json"));
+        }
+
+        try (IngestCheckpoint reopened = new IngestCheckpoint(checkpointPath)) {
+            List<WorkUnit> units = WorkUnit.group(resources, reopened.getCompleted());
+            assertEquals(2, units.size());
+            assertTrue(units.stream().noneMatch(unit -> unit.getKey().equals("2021-07-09/jobkorea")));
+        }
+    }
+}
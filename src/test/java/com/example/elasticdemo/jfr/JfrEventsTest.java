@@ -0,0 +1,114 @@
+package com.example.elasticdemo.jfr;
+
+import com.example.elasticdemo.bulk.IndexWriteListener;
+import com.example.elasticdemo.bulk.NdjsonBulkWriter;
+import com.example.elasticdemo.client.InstrumentedElasticClient;
+import com.example.elasticdemo.model.BulkRequestModel;
+import com.example.elasticdemo.model.ElasticRecruitModel;
+import com.example.elasticdemo.search.HitDecoder;
+import com.example.elasticdemo.standin.ElasticStandInServer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.client.RestClient;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.search.SearchHit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JfrEventsTest {
+
+    @TempDir
+    Path tempDir;
+
+    @DisplayName("기록 중이면 Elasticsearch 호출과 hit 바인딩이 JFR event 로 남는다.")
+    @Test
+    void emit_events_while_recording() throws IOException {
+        Path file = tempDir.resolve("events.jfr");
+        try (ElasticStandInServer server = ElasticStandInServer.start();
+             RestHighLevelClient restHighLevelClient = new RestHighLevelClient(RestClient.builder(server.httpHost()));
+             Recording recording = new Recording()) {
+            recording.enable(ElasticRequestEvent.class);
+            recording.enable(HitDecodeEvent.class);
+            recording.start();
+
+            InstrumentedElasticClient client = new InstrumentedElasticClient(restHighLevelClient, new SimpleMeterRegistry());
+            client.bulk(new BulkRequest()
+                    .add(new IndexRequest("saramin").id("1").source("{\"positionId\":\"saramin_1\"}", XContentType.JSON)));
+            client.search(new SearchRequest("saramin"));
+
+            HitDecoder hitDecoder = new HitDecoder(new ObjectMapper());
+            hitDecoder.decodeAll(new SearchHit[]{new SearchHit(1).sourceRef(new BytesArray("{\"positionId\":\"a\"}"))},
+                    ElasticRecruitModel.class);
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        List<RecordedEvent> requests = events.stream()
+                .filter(event -> event.getEventType().getName().equals("com.example.elasticdemo.ElasticRequest"))
+                .collect(Collectors.toList());
+        assertEquals(List.of("bulk", "search"), requests.stream().map(event -> event.getString("operation")).collect(Collectors.toList()));
+        RecordedEvent search = requests.get(1);
+        assertEquals("saramin", search.getString("index"));
+        assertTrue(search.getBoolean("success"));
+        assertEquals(1, search.getLong("took"));
+        assertTrue(search.getLong("requestBytes") > 0);
+        assertTrue(search.getLong("responseBytes") > 0);
+
+        RecordedEvent decode = events.stream()
+                .filter(event -> event.getEventType().getName().equals("com.example.elasticdemo.HitDecode"))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(1, decode.getInt("hits"));
+        assertEquals(18, decode.getLong("bytes"));
+    }
+
+    @DisplayName("NDJSON bulk 전송이 실패해도 모든 문서를 실패로 한 BulkFlush event 가 남는다.")
+    @Test
+    void emit_flush_event_on_failure() throws IOException {
+        Path file = tempDir.resolve("flush.jfr");
+        try (ElasticStandInServer server = ElasticStandInServer.start();
+             RestHighLevelClient restHighLevelClient = new RestHighLevelClient(RestClient.builder(server.httpHost()));
+             Recording recording = new Recording()) {
+            recording.enable(BulkFlushEvent.class);
+            recording.start();
+
+            server.fault(ElasticStandInServer.BULK).rejectRate(1);
+            NdjsonBulkWriter writer = new NdjsonBulkWriter(new InstrumentedElasticClient(restHighLevelClient, new SimpleMeterRegistry()),
+                    new ObjectMapper(), new StaticListableBeanFactory().getBeanProvider(IndexWriteListener.class));
+            BulkRequestModel document = new BulkRequestModel();
+            document.setPositionId("saramin_1");
+            assertThrows(IOException.class, () -> writer.index("saramin", List.of(document)));
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        RecordedEvent flush = RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().equals("com.example.elasticdemo.BulkFlush"))
+                .findFirst()
+                .orElseThrow();
+        assertEquals("ndjson", flush.getString("source"));
+        assertEquals(1, flush.getInt("documents"));
+        assertEquals(1, flush.getInt("failures"));
+        assertEquals(-1, flush.getLong("took"));
+    }
+}
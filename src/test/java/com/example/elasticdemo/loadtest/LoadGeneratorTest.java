@@ -0,0 +1,77 @@
+package com.example.elasticdemo.loadtest;
+
+import com.example.elasticdemo.standin.ElasticStandInServer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.elasticsearch.client.RestClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoadGeneratorTest {
+
+    ElasticStandInServer server;
+    RestClient client;
+    List<RecordedQuery> queries;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = ElasticStandInServer.start();
+        client = RestClient.builder(server.httpHost()).build();
+        queries = RecordedQuery.read(getClass().getClassLoader().getResourceAsStream("loadtest/search-queries.ndjson"), new ObjectMapper());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        client.close();
+        server.close();
+    }
+
+    @DisplayName("샘플 쿼리 파일을 읽을 수 있다.")
+    @Test
+    void read_sample_queries() {
+        assertEquals(8, queries.size());
+        assertEquals("saramin", queries.get(0).getIndex());
+        assertEquals("cctv-read", queries.get(3).getIndex());
+    }
+
+    @DisplayName("open 모드에서 서버가 요청 간격보다 느리면 밀린 시간이 corrected 지연에만 반영된다.")
+    @Test
+    void open_model_corrects_coordinated_omission() throws InterruptedException {
+        server.fault(ElasticStandInServer.SEARCH).latency(Duration.ofMillis(50));
+        //== 20ms 마다 보내야 하지만 동시에 한 건만 기다릴 수 있으므로 요청이 점점 밀린다. ==//
+        LoadTestOptions options = LoadTestOptions.parse(
+                "--mode=open", "--rate=50", "--concurrency=1", "--warmup=0s", "--duration=500ms", "--report-interval=10s");
+
+        LatencyStats stats = new LoadGenerator(client, queries, options, new PrintStream(new ByteArrayOutputStream())).run();
+
+        assertEquals(25, stats.getCorrected().getTotalCount());
+        assertEquals(0, stats.getErrors());
+        long serviceP99 = stats.getService().getValueAtPercentile(99);
+        long correctedP99 = stats.getCorrected().getValueAtPercentile(99);
+        assertTrue(serviceP99 < 200_000, "service p99 " + serviceP99);
+        assertTrue(correctedP99 > 3 * serviceP99, "corrected p99 " + correctedP99 + " service p99 " + serviceP99);
+        assertTrue(stats.getTook().getTotalCount() > 0);
+    }
+
+    @DisplayName("closed 모드는 concurrency 개의 worker 로 요청하고 실패를 따로 센다.")
+    @Test
+    void closed_model_counts_errors() throws InterruptedException {
+        server.fault(ElasticStandInServer.SEARCH).rejectRate(0.5);
+        LoadTestOptions options = LoadTestOptions.parse(
+                "--mode=closed", "--rate=0", "--concurrency=4", "--warmup=100ms", "--duration=500ms", "--report-interval=10s");
+
+        LatencyStats stats = new LoadGenerator(client, queries, options, new PrintStream(new ByteArrayOutputStream())).run();
+
+        assertTrue(stats.getCorrected().getTotalCount() > 0);
+        assertTrue(stats.getErrors() > 0);
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.elasticdemo.reindex;
+
+import com.example.elasticdemo.client.InstrumentedElasticClient;
+import com.example.elasticdemo.standin.ElasticStandInServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequest;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequest.AliasActions;
+import org.elasticsearch.action.admin.indices.settings.put.UpdateSettingsRequest;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.client.RestClient;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.client.indices.CreateIndexRequest;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.index.reindex.ReindexRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReindexServiceTest {
+
+    static final String OLD_INDEX = "cctv_v1";
+    static final String NEW_INDEX = "cctv_v2";
+    static final String ALIAS = "cctv";
+
+    ElasticStandInServer server;
+    RestHighLevelClient restHighLevelClient;
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    InstrumentedElasticClient client;
+    ReindexProperties properties = new ReindexProperties();
+    ReindexService reindexService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = ElasticStandInServer.start();
+        restHighLevelClient = new RestHighLevelClient(RestClient.builder(server.httpHost()));
+        client = new InstrumentedElasticClient(restHighLevelClient, meterRegistry);
+        properties.setBatchSize(10);
+        properties.setPollInterval(Duration.ofMillis(10));
+        reindexService = new ReindexService(client, properties);
+
+        BulkRequest bulkRequest = new BulkRequest();
+        for (int i = 0; i < 25; i++) {
+            bulkRequest.add(new IndexRequest(OLD_INDEX).id(String.valueOf(i))
+                    .source("{\"latitude\":37.5,\"longitude\":127.0}", XContentType.JSON));
+        }
+        client.bulk(bulkRequest);
+        client.createIndex(new CreateIndexRequest(NEW_INDEX));
+        client.updateAliases(new IndicesAliasesRequest()
+                .addAliasAction(AliasActions.add().index(OLD_INDEX).alias(ALIAS)));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        restHighLevelClient.close();
+        server.close();
+    }
+
+    @DisplayName("slices=auto 로 task 를 제출하고, 끝나면 alias 를 새 인덱스로 옮기고 dest 설정을 되돌린다.")
+    @Test
+    void reindex_and_swap_alias() throws IOException {
+        client.putSettings(new UpdateSettingsRequest(NEW_INDEX).settings(Settings.builder()
+                .put("index.number_of_replicas", 1)
+                .put("index.refresh_interval", "5s")));
+        //== batch 10 개마다 20ms 씩 쉬므로 진행 중인 상태를 몇 번 볼 수 있다. ==//
+        properties.setRequestsPerSecond(500);
+
+        List<ReindexProgress> progresses = new CopyOnWriteArrayList<>();
+        List<String> replicasWhileCopying = new CopyOnWriteArrayList<>();
+        ReindexRequest request = new ReindexRequest()
+                .setSourceIndices(OLD_INDEX)
+                .setDestIndex(NEW_INDEX);
+        ReindexResult result = reindexService.reindex(request, ALIAS, progress -> {
+            progresses.add(progress);
+            replicasWhileCopying.add(server.setting(NEW_INDEX, "number_of_replicas") + "/" + server.setting(NEW_INDEX, "refresh_interval"));
+        });
+
+        Map<String, String> parameters = server.lastParameters(ElasticStandInServer.REINDEX);
+        assertEquals("auto", parameters.get("slices"));
+        assertEquals("false", parameters.get("wait_for_completion"));
+        assertEquals(500f, Float.parseFloat(parameters.get("requests_per_second")));
+
+        assertEquals(25, result.getProgress().getCreated());
+        assertEquals(100.0, result.getProgress().getPercent());
+        assertTrue(progresses.size() > 1);
+        assertTrue(replicasWhileCopying.stream().allMatch("0/-1"::equals), replicasWhileCopying::toString);
+        assertEquals("1", server.setting(NEW_INDEX, "number_of_replicas"));
+        assertEquals("5s", server.setting(NEW_INDEX, "refresh_interval"));
+
+        assertEquals(List.of(OLD_INDEX), result.getPreviousIndices());
+        assertEquals(Set.of(NEW_INDEX), server.aliasedIndices(ALIAS));
+        assertEquals(25, client.search(new SearchRequest(ALIAS)).getHits().getTotalHits().value);
+    }
+
+    @DisplayName("복사 중 실패하면 alias 는 이전 인덱스에 두고 dest 설정만 되돌린다.")
+    @Test
+    void keep_alias_on_failure() {
+        server.fault(ElasticStandInServer.BULK).itemRejectRate(1);
+
+        ReindexRequest request = new ReindexRequest()
+                .setSourceIndices(OLD_INDEX)
+                .setDestIndex(NEW_INDEX);
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> reindexService.reindex(request, ALIAS));
+
+        assertTrue(e.getMessage().contains("es_rejected_execution_exception"), e.getMessage());
+        assertEquals(Set.of(OLD_INDEX), server.aliasedIndices(ALIAS));
+        //== 지정한 적 없던 refresh_interval 은 기본값(null)으로 돌아간다. ==//
+        assertEquals("0", server.setting(NEW_INDEX, "number_of_replicas"));
+        assertNull(server.setting(NEW_INDEX, "refresh_interval"));
+    }
+
+    @DisplayName("replica 를 할당할 노드가 있는데도 green 이 되지 않으면 나눠서 다시 묻다가 alias 를 옮기지 않고 실패한다.")
+    @Test
+    void keep_alias_until_green() throws IOException {
+        client.putSettings(new UpdateSettingsRequest(NEW_INDEX).settings(Settings.builder().put("index.number_of_replicas", 1)));
+        server.dataNodes(2);
+        server.clusterStatus("yellow");
+        properties.setHealthTimeout(Duration.ofMillis(100));
+        properties.setHealthPollTimeout(Duration.ofMillis(20));
+
+        ReindexRequest request = new ReindexRequest()
+                .setSourceIndices(OLD_INDEX)
+                .setDestIndex(NEW_INDEX);
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> reindexService.reindex(request, ALIAS));
+
+        assertTrue(e.getMessage().contains("did not become green"), e.getMessage());
+        assertEquals(25, server.documentCount(NEW_INDEX));
+        assertEquals(Set.of(OLD_INDEX), server.aliasedIndices(ALIAS));
+        assertTrue(server.requestCount("_cluster") > 1);
+        Map<String, String> parameters = server.lastParameters("_cluster");
+        assertEquals("green", parameters.get("wait_for_status"));
+        assertTrue(TimeValue.parseTimeValue(parameters.get("timeout"), "timeout").millis() <= 20, parameters::toString);
+    }
+
+    @DisplayName("단일 노드라 replica 를 할당할 수 없으면 yellow 에서 alias 를 옮긴다.")
+    @Test
+    void move_alias_while_yellow_on_single_node() throws IOException {
+        client.putSettings(new UpdateSettingsRequest(NEW_INDEX).settings(Settings.builder().put("index.number_of_replicas", 1)));
+        server.clusterStatus("yellow");
+        properties.setHealthPollTimeout(Duration.ofMillis(20));
+
+        ReindexRequest request = new ReindexRequest()
+                .setSourceIndices(OLD_INDEX)
+                .setDestIndex(NEW_INDEX);
+        ReindexResult result = reindexService.reindex(request, ALIAS);
+
+        assertEquals(List.of(OLD_INDEX), result.getPreviousIndices());
+        assertEquals(Set.of(NEW_INDEX), server.aliasedIndices(ALIAS));
+        assertEquals(1, server.requestCount("_cluster"));
+    }
+
+    @DisplayName("timeout 안에 끝나지 않으면 task 를 취소한다.")
+    @Test
+    void cancel_on_timeout() {
+        properties.setBatchSize(1);
+        properties.setRequestsPerSecond(10);
+        properties.setTimeout(Duration.ofMillis(50));
+
+        ReindexRequest request = new ReindexRequest()
+                .setSourceIndices(OLD_INDEX)
+                .setDestIndex(NEW_INDEX);
+        assertThrows(IllegalStateException.class, () -> reindexService.reindex(request, ALIAS));
+
+        assertEquals(1, meterRegistry.get("elastic.client.requests")
+                .tags("operation", "cancel_task", "outcome", "success").timer().count());
+        assertTrue(server.documentCount(NEW_INDEX) < 25);
+        assertEquals(Set.of(OLD_INDEX), server.aliasedIndices(ALIAS));
+    }
+}
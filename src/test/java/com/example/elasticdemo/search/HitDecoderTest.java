@@ -0,0 +1,48 @@
+package com.example.elasticdemo.search;
+
+import com.example.elasticdemo.model.ElasticRecruitModel;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.search.SearchHit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HitDecoderTest {
+
+    HitDecoder hitDecoder = new HitDecoder(JsonMapper.builder()
+            .addModule(new BlackbirdModule())
+            .build());
+
+    @DisplayName("_source bytes 를 ElasticRecruitModel 로 바로 바인딩하고 모르는 필드는 무시한다.")
+    @Test
+    void decode_source() {
+        SearchHit hit = new SearchHit(1).sourceRef(new BytesArray(
+                "{\"positionId\":\"saramin_1\",\"company\":\"그레이비랩\",\"subject\":\"백엔드 개발자\"," +
+                        "\"etc\":[\"신입\",\"서울\"],\"recruitSupportType\":\"x\"}"));
+
+        ElasticRecruitModel model = hitDecoder.decode(hit, ElasticRecruitModel.class);
+
+        assertEquals("saramin_1", model.getPositionId());
+        assertEquals("그레이비랩", model.getCompany());
+        assertEquals(List.of("신입", "서울"), model.getEtc());
+    }
+
+    @DisplayName("_source 가 없는 hit 은 결과에서 빠진다.")
+    @Test
+    void skip_hits_without_source() {
+        SearchHit[] hits = {
+                new SearchHit(1).sourceRef(new BytesArray("{\"positionId\":\"a\"}")),
+                new SearchHit(2)
+        };
+
+        List<ElasticRecruitModel> models = hitDecoder.decodeAll(hits, ElasticRecruitModel.class);
+
+        assertEquals(1, models.size());
+        assertEquals("a", models.get(0).getPositionId());
+    }
+}
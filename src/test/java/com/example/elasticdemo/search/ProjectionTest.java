@@ -0,0 +1,77 @@
+package com.example.elasticdemo.search;
+
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.ShardSearchFailure;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.document.DocumentField;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.internal.InternalSearchResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProjectionTest {
+
+    @DisplayName("list 는 필요한 필드만, id 는 _source 없이 요청한다.")
+    @Test
+    void apply_to_source() {
+        String list = Strings.toString(RecruitQueries.LIST.apply(new SearchSourceBuilder()));
+        assertTrue(list.contains("\"includes\":[\"positionId\",\"subject\""));
+        assertFalse(list.contains("description"));
+
+        String id = Strings.toString(Projection.ID_ONLY.apply(new SearchSourceBuilder()));
+        assertTrue(id.contains("\"_source\":false"));
+
+        String pin = Strings.toString(CctvQueries.PIN.apply(new SearchSourceBuilder()));
+        assertTrue(pin.contains("\"_source\":false"));
+        assertTrue(pin.contains("\"docvalue_fields\":[{\"field\":\"location\"}"));
+    }
+
+    @DisplayName("이름으로 profile 을 고르고, 없는 이름은 IllegalArgumentException 이다.")
+    @Test
+    void select_by_name() {
+        assertSame(CctvQueries.PIN, CctvQueries.projection("PIN"));
+        assertSame(Projection.ID_ONLY, RecruitQueries.projection("id"));
+        assertThrows(IllegalArgumentException.class, () -> RecruitQueries.projection("pin"));
+    }
+
+    @DisplayName("_source 가 없으면 doc values 로 Map 을 만든다.")
+    @Test
+    void doc_values_to_map() {
+        DocumentField location = new DocumentField("location", List.of(Map.of("lat", 37.5, "lon", 126.7)));
+        SearchHit hit = new SearchHit(1, "cctv-1", null, Map.of("location", location), Collections.emptyMap());
+
+        Map<String, Object> map = Projection.toMap(hit);
+
+        assertEquals("cctv-1", map.get("_id"));
+        assertEquals(Map.of("lat", 37.5, "lon", 126.7), map.get("location"));
+    }
+
+    @DisplayName("payload 크기는 _source 바이트와 doc values 길이의 합이다.")
+    @Test
+    void payload_bytes() {
+        SearchHit full = hit("a")
+                .sourceRef(new BytesArray("{\"subject\":\"개발자\",\"description\":[\"아주 긴 설명\"]}"));
+        SearchHit listed = hit("a")
+                .sourceRef(new BytesArray("{\"subject\":\"개발자\"}"));
+        assertTrue(ProjectionMetrics.payloadBytes(response(full)) > ProjectionMetrics.payloadBytes(response(listed)));
+    }
+
+    static SearchHit hit(String id) {
+        return new SearchHit(1, id, null, Collections.emptyMap(), Collections.emptyMap());
+    }
+
+    static SearchResponse response(SearchHit... hits) {
+        SearchHits searchHits = new SearchHits(hits, null, 1f);
+        return new SearchResponse(new InternalSearchResponse(searchHits, null, null, null, false, null, 1),
+                null, 1, 1, 0, 1, ShardSearchFailure.EMPTY_ARRAY, SearchResponse.Clusters.EMPTY);
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.elasticdemo.search;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.search.MultiSearchRequest;
+import org.elasticsearch.action.search.MultiSearchResponse;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.ShardSearchFailure;
+import org.elasticsearch.search.internal.InternalSearchResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchBatcherTest {
+
+    List<MultiSearchRequest> sent = new CopyOnWriteArrayList<>();
+    SearchBatchProperties properties = new SearchBatchProperties();
+    SearchBatcher batcher;
+
+    //== index 이름이 "fail" 인 검색만 실패로 응답하는 가짜 msearch ==//
+    void respond(MultiSearchRequest request, ActionListener<MultiSearchResponse> listener) {
+        sent.add(request);
+        MultiSearchResponse.Item[] items = request.requests().stream()
+                .map(search -> "fail".equals(search.indices()[0])
+                        ? new MultiSearchResponse.Item(null, new IllegalArgumentException("no such index"))
+                        : new MultiSearchResponse.Item(response(), null))
+                .toArray(MultiSearchResponse.Item[]::new);
+        listener.onResponse(new MultiSearchResponse(items, 1));
+    }
+
+    static SearchResponse response() {
+        return new SearchResponse(InternalSearchResponse.empty(), null, 1, 1, 0, 1,
+                ShardSearchFailure.EMPTY_ARRAY, SearchResponse.Clusters.EMPTY);
+    }
+
+    SearchBatcher batcher(int maxBatchSize, Duration window) {
+        properties.setMaxBatchSize(maxBatchSize);
+        properties.setWindow(window);
+        batcher = new SearchBatcher(this::respond, properties, new SimpleMeterRegistry());
+        return batcher;
+    }
+
+    @AfterEach
+    void tearDown() {
+        batcher.close();
+    }
+
+    @DisplayName("maxBatchSize 만큼 모이면 하나의 msearch 로 보낸다.")
+    @Test
+    void flush_when_full() throws Exception {
+        batcher(10, Duration.ofMinutes(1));
+        List<CompletableFuture<SearchResponse>> futures = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            futures.add(batcher.search(new SearchRequest("saramin")));
+        }
+        for (CompletableFuture<SearchResponse> future : futures) {
+            assertNotNull(future.get(1, TimeUnit.SECONDS));
+        }
+        assertEquals(3, sent.size());
+        assertEquals(10, sent.get(0).requests().size());
+    }
+
+    @DisplayName("window 가 지나면 덜 찬 묶음도 보낸다.")
+    @Test
+    void flush_after_window() throws Exception {
+        batcher(100, Duration.ofMillis(5));
+        CompletableFuture<SearchResponse> first = batcher.search(new SearchRequest("saramin"));
+        CompletableFuture<SearchResponse> second = batcher.search(new SearchRequest("saramin"));
+
+        assertNotNull(first.get(1, TimeUnit.SECONDS));
+        assertNotNull(second.get(1, TimeUnit.SECONDS));
+        assertEquals(1, sent.size());
+        assertEquals(2, sent.get(0).requests().size());
+    }
+
+    @DisplayName("실패한 검색은 그 호출자에게만 전달된다.")
+    @Test
+    void isolate_failures() throws Exception {
+        batcher(3, Duration.ofMinutes(1));
+        CompletableFuture<SearchResponse> ok1 = batcher.search(new SearchRequest("saramin"));
+        CompletableFuture<SearchResponse> failed = batcher.search(new SearchRequest("fail"));
+        CompletableFuture<SearchResponse> ok2 = batcher.search(new SearchRequest("saramin"));
+
+        assertNotNull(ok1.get(1, TimeUnit.SECONDS));
+        assertNotNull(ok2.get(1, TimeUnit.SECONDS));
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> failed.get(1, TimeUnit.SECONDS));
+        assertTrue(exception.getCause() instanceof IllegalArgumentException);
+        assertEquals(1, sent.size());
+    }
+
+    @DisplayName("보내기 전에 취소한 검색은 msearch 에 넣지 않는다.")
+    @Test
+    void skip_cancelled() throws Exception {
+        batcher(100, Duration.ofMillis(20));
+        CompletableFuture<SearchResponse> cancelled = batcher.search(new SearchRequest("saramin"));
+        CompletableFuture<SearchResponse> kept = batcher.search(new SearchRequest("saramin"));
+        cancelled.cancel(true);
+
+        assertNotNull(kept.get(1, TimeUnit.SECONDS));
+        assertEquals(1, sent.get(0).requests().size());
+    }
+}
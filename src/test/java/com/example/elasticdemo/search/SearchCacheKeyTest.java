@@ -0,0 +1,43 @@
+package com.example.elasticdemo.search;
+
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.elasticsearch.index.query.QueryBuilders.boolQuery;
+import static org.elasticsearch.index.query.QueryBuilders.matchQuery;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchCacheKeyTest {
+
+    SearchSourceBuilder keyword(String keyword) {
+        return new SearchSourceBuilder().query(boolQuery()
+                .should(matchQuery("etc", keyword))
+                .should(matchQuery("company", keyword))
+                .should(matchQuery("subject", keyword)));
+    }
+
+    @DisplayName("같은 검색 조건은 새로 만든 builder 라도, 인덱스 순서가 달라도 같은 키가 된다.")
+    @Test
+    void same_query_same_key() {
+        assertEquals(SearchCacheKey.of(keyword("개발자"), "saramin", "new_saramin"),
+                SearchCacheKey.of(keyword("개발자"), "new_saramin", "saramin"));
+    }
+
+    @DisplayName("검색어, 페이지, 인덱스가 다르면 다른 키가 된다.")
+    @Test
+    void different_query_different_key() {
+        SearchCacheKey key = SearchCacheKey.of(keyword("개발자"), "saramin");
+        assertNotEquals(key, SearchCacheKey.of(keyword("개발"), "saramin"));
+        assertNotEquals(key, SearchCacheKey.of(keyword("개발자").from(10), "saramin"));
+        assertNotEquals(key, SearchCacheKey.of(keyword("개발자"), "new_saramin"));
+    }
+
+    @DisplayName("키가 대상으로 하는 인덱스만 무효화 대상이다.")
+    @Test
+    void targets_index() {
+        SearchCacheKey key = SearchCacheKey.of(keyword("개발자"), "saramin", "new_saramin");
+        assertTrue(key.targets("saramin"));
+        assertFalse(key.targets("new-cctv-data"));
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.elasticdemo.search;
+
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.sort.SortBuilders;
+import org.elasticsearch.search.sort.SortOrder;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchSourcesTest {
+
+    @DisplayName("사본에 sort 를 덧붙여도 원본 builder 의 sort 는 그대로다.")
+    @Test
+    void copy_does_not_share_sorts() {
+        SearchSourceBuilder source = new SearchSourceBuilder()
+                .query(QueryBuilders.matchQuery("subject", "서울"))
+                .sort(SortBuilders.fieldSort("created").order(SortOrder.DESC))
+                .fetchSource(new String[]{"subject"}, null);
+
+        SearchSourceBuilder copy = SearchSources.copy(source).sort(SortBuilders.fieldSort("_shard_doc"));
+
+        assertEquals(1, source.sorts().size());
+        assertEquals(2, copy.sorts().size());
+        assertEquals(source.query(), copy.query());
+        assertArrayEquals(new String[]{"subject"}, copy.fetchSource().includes());
+    }
+}
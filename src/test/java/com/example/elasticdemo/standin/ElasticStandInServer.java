@@ -0,0 +1,1071 @@
+package com.example.elasticdemo.standin;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.ExceptionLogger;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestFactory;
+import org.apache.http.HttpResponse;
+import org.apache.http.RequestLine;
+import org.apache.http.config.ConnectionConfig;
+import org.apache.http.config.SocketConfig;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.bootstrap.HttpServer;
+import org.apache.http.impl.DefaultBHttpServerConnectionFactory;
+import org.apache.http.impl.bootstrap.ServerBootstrap;
+import org.apache.http.impl.io.DefaultHttpRequestParserFactory;
+import org.apache.http.message.BasicHttpEntityEnclosingRequest;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 클러스터 없이 클라이언트 코드를 돌려보기 위한 Elasticsearch 대역 서버.
+ * _bulk, _search, _msearch, _analyze, _mtermvectors, _pit, _reindex, _tasks, _aliases, _cluster/health, _mapping/field 와
+ * 인덱스 생성/삭제/조회/설정 API 를
+ * 우리 코드가 파싱할 수 있을 만큼만 흉내 낸다. 검색은 쿼리를 해석하지 않고 인덱스의 문서를 _id 순서로 돌려준다.
+ * reindex 는 script 를 실행하지 않고 문서를 그대로 복사한다.
+ * 엔드포인트마다 FaultProfile 로 지연, 429, 연결 끊김을 주입할 수 있다.
+ *
+ * <pre>
+ * try (ElasticStandInServer server = ElasticStandInServer.start()) {
+ *     server.fault(ElasticStandInServer.BULK).latency(Duration.ofMillis(5), Duration.ofMillis(50)).itemRejectRate(0.1);
+ *     RestHighLevelClient client = new RestHighLevelClient(RestClient.builder(server.httpHost()));
+ * }
+ * </pre>
+ */
+@Slf4j
+public class ElasticStandInServer implements AutoCloseable {
+
+    public static final String BULK = "_bulk";
+    public static final String SEARCH = "_search";
+    public static final String MSEARCH = "_msearch";
+    public static final String ANALYZE = "_analyze";
+    public static final String MTERMVECTORS = "_mtermvectors";
+    public static final String PIT = "_pit";
+    public static final String REINDEX = "_reindex";
+    public static final String TASKS = "_tasks";
+    public static final String ALIASES = "_aliases";
+    public static final String ADMIN = "admin";
+
+    private static final int POSITION_INCREMENT_GAP = 100;
+
+    //== _analyze, _mtermvectors 는 GET 에 body 를 싣는다. Content-Length 가 없으면 body 는 0 byte 로 읽힌다. ==//
+    private static final HttpRequestFactory BODY_REQUESTS = new HttpRequestFactory() {
+        @Override
+        public HttpRequest newHttpRequest(RequestLine requestLine) {
+            return new BasicHttpEntityEnclosingRequest(requestLine);
+        }
+
+        @Override
+        public HttpRequest newHttpRequest(String method, String uri) {
+            return new BasicHttpEntityEnclosingRequest(method, uri);
+        }
+    };
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpServer server;
+    private final Map<String, FaultProfile> faults = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> requests = new ConcurrentHashMap<>();
+    private final Map<String, Index> indices = new ConcurrentHashMap<>();
+    private final AtomicLong seqNo = new AtomicLong();
+    private final Map<String, Map<String, String>> lastParameters = new ConcurrentHashMap<>();
+    //== alias -> 인덱스 ==//
+    private final Map<String, Set<String>> aliases = new ConcurrentHashMap<>();
+    private final Map<Long, ReindexTask> tasks = new ConcurrentHashMap<>();
+    private final AtomicLong taskIds = new AtomicLong();
+    private volatile String clusterStatus = "green";
+    private volatile int dataNodes = 1;
+    private final ExecutorService taskExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "stand-in-task");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private ElasticStandInServer(int port) throws IOException {
+        //== HLRC 는 _mtermvectors 처럼 '/' 없는 경로로 요청하기도 해서 JDK HttpServer 대신 httpcore 서버를 쓴다. ==//
+        //== 연결마다 worker 스레드가 하나씩 붙으므로 sleep 으로 흉내 낸 지연이 다른 연결을 막지 않는다. ==//
+        this.server = ServerBootstrap.bootstrap()
+                .setLocalAddress(InetAddress.getLoopbackAddress())
+                .setListenerPort(port)
+                .setSocketConfig(SocketConfig.custom().setSoReuseAddress(true).setBacklogSize(1024).build())
+                .setConnectionFactory(new DefaultBHttpServerConnectionFactory(ConnectionConfig.DEFAULT,
+                        new DefaultHttpRequestParserFactory(null, BODY_REQUESTS), null))
+                //== 일부러 끊은 연결의 예외까지 로그로 남기지 않는다. ==//
+                .setExceptionLogger(ExceptionLogger.NO_OP)
+                .registerHandler("*", this::handle)
+                .create();
+        this.server.start();
+    }
+
+    public static ElasticStandInServer start() throws IOException {
+        return start(0);
+    }
+
+    public static ElasticStandInServer start(int port) throws IOException {
+        return new ElasticStandInServer(port);
+    }
+
+    /**
+     * 노트북에서 애플리케이션을 띄워볼 때: elastic.host=localhost, elastic.port=9200 으로 실행한다.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 9200;
+        ElasticStandInServer server = start(port);
+        log.info("elasticsearch stand-in listening on {}", server.getPort());
+    }
+
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    public HttpHost httpHost() {
+        return new HttpHost(InetAddress.getLoopbackAddress(), getPort(), "http");
+    }
+
+    public FaultProfile fault(String endpoint) {
+        return faults.computeIfAbsent(endpoint, key -> new FaultProfile());
+    }
+
+    public long requestCount(String endpoint) {
+        AtomicLong count = requests.get(endpoint);
+        return count == null ? 0 : count.get();
+    }
+
+    public int documentCount(String index) {
+        Index found = indices.get(index);
+        return found == null ? 0 : found.documents.size();
+    }
+
+    public JsonNode document(String index, String id) {
+        Index found = indices.get(index);
+        return found == null ? null : found.documents.get(id);
+    }
+
+    /**
+     * "index." 을 뺀 이름으로 조회한다. 지정한 적이 없으면 null.
+     */
+    public String setting(String index, String name) {
+        Index found = indices.get(index);
+        return found == null ? null : found.settings.get(name);
+    }
+
+    public Set<String> aliasedIndices(String alias) {
+        return Set.copyOf(aliases.getOrDefault(alias, Set.of()));
+    }
+
+    /**
+     * _cluster/health 가 돌려줄 상태. green 이 아니면 wait_for_status=green 요청은 바로 시간 초과(408)로 응답한다.
+     */
+    public void clusterStatus(String status) {
+        this.clusterStatus = status;
+    }
+
+    /**
+     * _cluster/health 가 알려줄 data 노드 수. 기본은 단일 노드다.
+     */
+    public void dataNodes(int count) {
+        this.dataNodes = count;
+    }
+
+    /**
+     * 마지막으로 받은 요청의 query string.
+     */
+    public Map<String, String> lastParameters(String endpoint) {
+        return lastParameters.getOrDefault(endpoint, Map.of());
+    }
+
+    @Override
+    public void close() {
+        taskExecutor.shutdownNow();
+        server.shutdown(0, TimeUnit.SECONDS);
+    }
+
+    //=========================== 라우팅 =============================//
+
+    private void handle(HttpRequest request, HttpResponse response, HttpContext context) throws IOException {
+        String method = request.getRequestLine().getMethod();
+        URI uri = URI.create(request.getRequestLine().getUri());
+        try {
+            List<String> path = segments(uri);
+            String endpoint = endpoint(path);
+            requests.computeIfAbsent(endpoint, key -> new AtomicLong()).incrementAndGet();
+            lastParameters.put(endpoint, parameters(uri));
+
+            FaultProfile fault = fault(endpoint);
+            long latency = fault.sampleLatencyMicros();
+            if (latency > 0) {
+                TimeUnit.MICROSECONDS.sleep(latency);
+            }
+            if (fault.shouldDrop()) {
+                //== handler 에서 IOException 이 나가면 서버는 응답 없이 연결을 닫는다. ==//
+                throw new IOException("connection dropped by stand-in");
+            }
+            if (fault.shouldReject()) {
+                send(response, 429, rejected());
+                return;
+            }
+            route(request, response, method, uri, path, endpoint);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("stand-in interrupted", e);
+        } catch (RuntimeException e) {
+            log.warn("stand-in failed to handle {} {}", method, uri, e);
+            send(response, 500, error("illegal_state_exception", String.valueOf(e.getMessage()), 500));
+        } finally {
+            //== 읽지 않은 body 가 남으면 keep-alive 연결의 다음 요청을 망가뜨린다. ==//
+            if (request instanceof HttpEntityEnclosingRequest) {
+                EntityUtils.consumeQuietly(((HttpEntityEnclosingRequest) request).getEntity());
+            }
+        }
+    }
+
+    private static String endpoint(List<String> path) {
+        for (String segment : path) {
+            if (segment.startsWith("_")) {
+                return segment;
+            }
+        }
+        return ADMIN;
+    }
+
+    private void route(HttpRequest request, HttpResponse response, String method, URI uri, List<String> path, String endpoint) throws IOException {
+        String index = path.isEmpty() || path.get(0).startsWith("_") ? null : path.get(0);
+        switch (endpoint) {
+            case BULK:
+                send(response, 200, bulk(index, body(request)));
+                return;
+            case SEARCH:
+                send(response, 200, search(index, readJson(request)));
+                return;
+            case MSEARCH:
+                send(response, 200, msearch(index, body(request)));
+                return;
+            case ANALYZE:
+                send(response, 200, analyze(readJson(request)));
+                return;
+            case MTERMVECTORS:
+                send(response, 200, mtermvectors(index, readJson(request)));
+                return;
+            case PIT:
+                send(response, 200, "DELETE".equals(method) ? closePit() : openPit(index));
+                return;
+            case "_settings":
+                if ("PUT".equals(method)) {
+                    updateSettings(response, index, readJson(request));
+                } else {
+                    send(response, 200, settings(index));
+                }
+                return;
+            case REINDEX:
+                reindex(response, parameters(uri), readJson(request));
+                return;
+            case TASKS:
+                task(response, path, parameters(uri));
+                return;
+            case ALIASES:
+                updateAliases(response, readJson(request));
+                return;
+            case "_alias":
+                getAlias(response, path.get(path.size() - 1));
+                return;
+            case "_cluster":
+                clusterHealth(response, parameters(uri));
+                return;
+            case "_mapping":
+                fieldMapping(response, index, path.get(path.size() - 1));
+                return;
+            case "_refresh":
+                send(response, 200, objectMapper.createObjectNode().set("_shards", shards()));
+                return;
+            case ADMIN:
+                admin(request, response, method, index);
+                return;
+            default:
+                send(response, 400, error("illegal_argument_exception", "stand-in does not support " + endpoint, 400));
+        }
+    }
+
+    private void admin(HttpRequest request, HttpResponse response, String method, String index) throws IOException {
+        if (index == null) {
+            ObjectNode info = objectMapper.createObjectNode()
+                    .put("name", "stand-in")
+                    .put("cluster_name", "stand-in")
+                    .put("cluster_uuid", "stand-in")
+                    .put("tagline", "You Know, for Search");
+            info.putObject("version")
+                    .put("number", "7.12.1")
+                    .put("build_flavor", "default")
+                    .put("build_type", "docker")
+                    .put("build_hash", "stand-in")
+                    .put("build_date", "2021-04-20T20:56:39.040728659Z")
+                    .put("build_snapshot", false)
+                    .put("lucene_version", "8.8.0")
+                    .put("minimum_wire_compatibility_version", "6.8.0")
+                    .put("minimum_index_compatibility_version", "6.0.0-beta1");
+            send(response, 200, info);
+            return;
+        }
+        switch (method) {
+            case "HEAD":
+                response.setStatusCode(indices.containsKey(index) ? 200 : 404);
+                return;
+            case "PUT":
+                Index created = new Index();
+                if (indices.putIfAbsent(index, created) != null) {
+                    send(response, 400, error("resource_already_exists_exception", "index [" + index + "] already exists", 400));
+                    return;
+                }
+                //== 최상위 필드의 매핑만 기억해서 _mapping/field 로 돌려준다. 색인이나 검색에는 쓰지 않는다. ==//
+                readJson(request).path("mappings").path("properties").fields()
+                        .forEachRemaining(field -> created.mappings.put(field.getKey(), field.getValue()));
+                send(response, 200, objectMapper.createObjectNode()
+                        .put("acknowledged", true)
+                        .put("shards_acknowledged", true)
+                        .put("index", index));
+                return;
+            case "DELETE":
+                if (indices.remove(index) == null) {
+                    send(response, 404, error("index_not_found_exception", "no such index [" + index + "]", 404));
+                    return;
+                }
+                send(response, 200, objectMapper.createObjectNode().put("acknowledged", true));
+                return;
+            default:
+                send(response, 400, error("illegal_argument_exception", "stand-in does not support " + method + " /" + index, 400));
+        }
+    }
+
+    //=========================== _bulk =============================//
+
+    private ObjectNode bulk(String defaultIndex, InputStream body) throws IOException {
+        long start = System.nanoTime();
+        ArrayNode items = objectMapper.createArrayNode();
+        boolean errors = false;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                JsonNode action = objectMapper.readTree(line);
+                String opType = action.fieldNames().next();
+                JsonNode meta = action.get(opType);
+                String index = meta.has("_index") ? meta.get("_index").asText() : defaultIndex;
+                String id = meta.has("_id") ? meta.get("_id").asText() : UUID.randomUUID().toString();
+                JsonNode source = "delete".equals(opType) ? null : objectMapper.readTree(reader.readLine());
+
+                ObjectNode item = items.addObject().putObject(opType)
+                        .put("_index", index)
+                        .put("_type", "_doc")
+                        .put("_id", id);
+                if (fault(BULK).shouldRejectItem()) {
+                    errors = true;
+                    item.put("status", 429);
+                    item.set("error", errorCause("es_rejected_execution_exception", "rejected execution of bulk item (stand-in)"));
+                    continue;
+                }
+                Index target = indices.computeIfAbsent(index, key -> new Index());
+                String result = write(target, opType, id, source);
+                item.put("_version", 1)
+                        .put("result", result)
+                        .put("_seq_no", seqNo.getAndIncrement())
+                        .put("_primary_term", 1)
+                        .put("status", "created".equals(result) ? 201 : "not_found".equals(result) ? 404 : 200);
+                item.set("_shards", shards());
+            }
+        }
+        ObjectNode response = objectMapper.createObjectNode()
+                .put("took", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start))
+                .put("errors", errors);
+        response.set("items", items);
+        return response;
+    }
+
+    private static String write(Index target, String opType, String id, JsonNode source) {
+        switch (opType) {
+            case "delete":
+                return target.documents.remove(id) == null ? "not_found" : "deleted";
+            case "update":
+                JsonNode doc = source.has("doc") ? source.get("doc") : source;
+                JsonNode previous = target.documents.get(id);
+                if (previous instanceof ObjectNode && doc instanceof ObjectNode) {
+                    ObjectNode merged = ((ObjectNode) previous).deepCopy();
+                    merged.setAll((ObjectNode) doc);
+                    target.documents.put(id, merged);
+                    return "updated";
+                }
+                target.documents.put(id, doc);
+                return "created";
+            default:
+                return target.documents.put(id, source) == null ? "created" : "updated";
+        }
+    }
+
+    //=========================== _search / _msearch / _pit =============================//
+
+    private ObjectNode search(String index, JsonNode body) {
+        JsonNode pit = body.path("pit");
+        String pitId = pit.isMissingNode() ? null : pit.path("id").asText();
+        String target = resolve(pitId != null ? new String(Base64.getUrlDecoder().decode(pitId), StandardCharsets.UTF_8) : index);
+        Index found = target == null ? null : indices.get(target);
+
+        int from = body.path("from").asInt(0);
+        int size = body.path("size").asInt(10);
+        boolean fetchSource = !body.path("_source").isBoolean() || body.path("_source").asBoolean();
+        //== search_after 는 마지막 정렬 값을 _id 순서상의 위치로 해석한다. ==//
+        JsonNode searchAfter = body.path("search_after");
+        long after = searchAfter.isArray() && searchAfter.size() > 0 ? searchAfter.get(searchAfter.size() - 1).asLong() : -1;
+
+        ArrayNode hits = objectMapper.createArrayNode();
+        long total = 0;
+        if (found != null) {
+            total = found.documents.size();
+            long position = 0;
+            int skipped = 0;
+            for (Map.Entry<String, JsonNode> document : found.documents.entrySet()) {
+                long current = position++;
+                if (current <= after) {
+                    continue;
+                }
+                if (skipped++ < from) {
+                    continue;
+                }
+                if (hits.size() >= size) {
+                    break;
+                }
+                ObjectNode hit = hits.addObject()
+                        .put("_index", target)
+                        .put("_type", "_doc")
+                        .put("_id", document.getKey())
+                        .put("_score", 1.0);
+                if (fetchSource) {
+                    hit.set("_source", document.getValue());
+                }
+                if (pitId != null || body.has("sort")) {
+                    hit.putArray("sort").add(current);
+                }
+            }
+        }
+
+        ObjectNode response = objectMapper.createObjectNode()
+                .put("took", 1)
+                .put("timed_out", false);
+        if (pitId != null) {
+            response.put("pit_id", pitId);
+        }
+        response.set("_shards", shards().put("skipped", 0));
+        ObjectNode hitsNode = response.putObject("hits");
+        hitsNode.putObject("total").put("value", total).put("relation", "eq");
+        hitsNode.put("max_score", 1.0);
+        hitsNode.set("hits", hits);
+        return response;
+    }
+
+    private ObjectNode msearch(String defaultIndex, InputStream body) throws IOException {
+        ArrayNode responses = objectMapper.createArrayNode();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            String header;
+            while ((header = reader.readLine()) != null) {
+                if (header.isEmpty()) {
+                    continue;
+                }
+                JsonNode headerNode = objectMapper.readTree(header);
+                JsonNode searchBody = objectMapper.readTree(reader.readLine());
+                String index = headerNode.has("index") ? firstIndex(headerNode.get("index")) : defaultIndex;
+                responses.add(search(index, searchBody).put("status", 200));
+            }
+        }
+        ObjectNode response = objectMapper.createObjectNode().put("took", 1);
+        response.set("responses", responses);
+        return response;
+    }
+
+    private ObjectNode openPit(String index) {
+        indices.computeIfAbsent(index, key -> new Index());
+        return objectMapper.createObjectNode()
+                .put("id", Base64.getUrlEncoder().encodeToString(index.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private ObjectNode closePit() {
+        return objectMapper.createObjectNode()
+                .put("succeeded", true)
+                .put("num_freed", 1);
+    }
+
+    //=========================== _analyze / _mtermvectors =============================//
+
+    /**
+     * 공백 기준으로 자르고 소문자로 바꾼다. 여러 텍스트는 Elasticsearch 와 같이 offset gap 1, position gap 100 으로 잇는다.
+     */
+    private ObjectNode analyze(JsonNode body) {
+        List<String> texts = new ArrayList<>();
+        JsonNode text = body.path("text");
+        if (text.isArray()) {
+            text.forEach(value -> texts.add(value.asText()));
+        } else {
+            texts.add(text.asText());
+        }
+
+        ArrayNode tokens = objectMapper.createArrayNode();
+        int base = 0;
+        int position = 0;
+        for (String value : texts) {
+            for (Token token : tokenize(value)) {
+                tokens.addObject()
+                        .put("token", token.term)
+                        .put("start_offset", base + token.start)
+                        .put("end_offset", base + token.end)
+                        .put("type", "word")
+                        .put("position", position++);
+            }
+            base += value.length() + 1;
+            position += POSITION_INCREMENT_GAP;
+        }
+        ObjectNode response = objectMapper.createObjectNode();
+        response.set("tokens", tokens);
+        return response;
+    }
+
+    private ObjectNode mtermvectors(String defaultIndex, JsonNode body) {
+        //== HLRC 는 인덱스를 경로가 아니라 body 의 _index 로 보낸다. ==//
+        List<String> ids = new ArrayList<>();
+        List<String> fields = new ArrayList<>();
+        String index = defaultIndex;
+        if (body.has("ids")) {
+            body.get("ids").forEach(id -> ids.add(id.asText()));
+            JsonNode parameters = body.path("parameters");
+            parameters.path("fields").forEach(field -> fields.add(field.asText()));
+            index = parameters.path("_index").asText(index);
+        } else {
+            for (JsonNode doc : body.path("docs")) {
+                ids.add(doc.path("_id").asText());
+                index = doc.path("_index").asText(index);
+                if (fields.isEmpty()) {
+                    doc.path("fields").forEach(field -> fields.add(field.asText()));
+                }
+            }
+        }
+
+        Index found = index == null ? null : indices.get(index);
+        ArrayNode docs = objectMapper.createArrayNode();
+        for (String id : ids) {
+            JsonNode source = found == null ? null : found.documents.get(id);
+            ObjectNode doc = docs.addObject()
+                    .put("_index", index)
+                    .put("_type", "_doc")
+                    .put("_id", id)
+                    .put("_version", 1)
+                    .put("found", source != null)
+                    .put("took", 0);
+            if (source == null) {
+                continue;
+            }
+            ObjectNode termVectors = doc.putObject("term_vectors");
+            Iterator<String> names = fields.isEmpty() ? source.fieldNames() : fields.iterator();
+            while (names.hasNext()) {
+                String field = names.next();
+                JsonNode value = source.get(field);
+                if (value == null) {
+                    continue;
+                }
+                Map<String, Integer> frequencies = new TreeMap<>();
+                for (String text : texts(value)) {
+                    for (Token token : tokenize(text)) {
+                        frequencies.merge(token.term, 1, Integer::sum);
+                    }
+                }
+                ObjectNode terms = termVectors.putObject(field).putObject("terms");
+                frequencies.forEach((term, frequency) -> terms.putObject(term).put("term_freq", frequency));
+            }
+        }
+        ObjectNode response = objectMapper.createObjectNode();
+        response.set("docs", docs);
+        return response;
+    }
+
+    private static List<String> texts(JsonNode value) {
+        List<String> texts = new ArrayList<>();
+        if (value.isArray()) {
+            value.forEach(element -> texts.add(element.asText()));
+        } else {
+            texts.add(value.asText());
+        }
+        return texts;
+    }
+
+    private static List<Token> tokenize(String text) {
+        List<Token> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean boundary = i == text.length() || Character.isWhitespace(text.charAt(i));
+            if (boundary && start >= 0) {
+                tokens.add(new Token(text.substring(start, i).toLowerCase(Locale.ROOT), start, i));
+                start = -1;
+            } else if (!boundary && start < 0) {
+                start = i;
+            }
+        }
+        return tokens;
+    }
+
+    //=========================== _settings =============================//
+
+    private ObjectNode settings(String index) {
+        ObjectNode response = objectMapper.createObjectNode();
+        if (index == null) {
+            indices.forEach((name, found) -> response.set(name, settingsOf(found)));
+            return response;
+        }
+        Index found = indices.get(index);
+        if (found != null) {
+            response.set(index, settingsOf(found));
+        }
+        return response;
+    }
+
+    private ObjectNode settingsOf(Index index) {
+        ObjectNode settings = objectMapper.createObjectNode();
+        ObjectNode indexSettings = settings.putObject("settings").putObject("index")
+                .put("number_of_shards", "1")
+                .put("number_of_replicas", "0")
+                .put("uuid", index.uuid);
+        index.settings.forEach(indexSettings::put);
+        return settings;
+    }
+
+    /**
+     * HLRC 는 {"index":{"refresh_interval":"-1"}} 처럼 중첩해서 보낸다. null 은 기본값으로 되돌린다는 뜻이다.
+     */
+    private void updateSettings(HttpResponse response, String index, JsonNode body) throws IOException {
+        Index found = index == null ? null : indices.get(index);
+        if (found == null) {
+            send(response, 404, error("index_not_found_exception", "no such index [" + index + "]", 404));
+            return;
+        }
+        Map<String, String> flat = new HashMap<>();
+        flatten("", body.has("settings") ? body.get("settings") : body, flat);
+        flat.forEach((name, value) -> {
+            String key = name.startsWith("index.") ? name.substring("index.".length()) : name;
+            if (value == null) {
+                found.settings.remove(key);
+            } else {
+                found.settings.put(key, value);
+            }
+        });
+        send(response, 200, objectMapper.createObjectNode().put("acknowledged", true));
+    }
+
+    private static void flatten(String prefix, JsonNode node, Map<String, String> flat) {
+        if (node.isObject()) {
+            node.fields().forEachRemaining(field -> flatten(prefix + field.getKey() + ".", field.getValue(), flat));
+            return;
+        }
+        String name = prefix.substring(0, prefix.length() - 1);
+        flat.put(name, node.isNull() ? null : node.asText());
+    }
+
+    //=========================== _reindex / _tasks =============================//
+
+    /**
+     * wait_for_completion=false 면 task 만 만들어 돌려주고 복사는 별도 스레드에서 한다.
+     * requests_per_second 를 주면 batch 마다 그만큼 쉬고, BULK 의 itemRejectRate 에 걸리면 거기서 멈추고 failures 에 남긴다.
+     */
+    private void reindex(HttpResponse response, Map<String, String> parameters, JsonNode body) throws IOException {
+        List<String> sources = texts(body.path("source").path("index"));
+        for (String source : sources) {
+            if (resolve(source) == null) {
+                send(response, 404, error("index_not_found_exception", "no such index [" + source + "]", 404));
+                return;
+            }
+        }
+        String dest = body.path("dest").path("index").asText();
+        int batchSize = body.path("source").path("size").asInt(1000);
+        float requestsPerSecond = Float.parseFloat(parameters.getOrDefault("requests_per_second", "-1"));
+
+        ReindexTask task = new ReindexTask(taskIds.incrementAndGet(), "reindex from " + sources + " to [" + dest + "]", requestsPerSecond);
+        tasks.put(task.id, task);
+        if ("false".equals(parameters.get("wait_for_completion"))) {
+            task.future = taskExecutor.submit(() -> copy(task, sources, dest, batchSize));
+            send(response, 200, objectMapper.createObjectNode().put("task", "stand-in:" + task.id));
+            return;
+        }
+        copy(task, sources, dest, batchSize);
+        send(response, 200, reindexStatus(task, true));
+    }
+
+    private void copy(ReindexTask task, List<String> sources, String dest, int batchSize) {
+        List<Map.Entry<String, JsonNode>> documents = new ArrayList<>();
+        for (String source : sources) {
+            documents.addAll(indices.get(resolve(source)).documents.entrySet());
+        }
+        Index target = indices.computeIfAbsent(dest, key -> new Index());
+        task.total.set(documents.size());
+        try {
+            for (int from = 0; from < documents.size() && !task.cancelled; from += batchSize) {
+                List<Map.Entry<String, JsonNode>> batch = documents.subList(from, Math.min(documents.size(), from + batchSize));
+                for (Map.Entry<String, JsonNode> document : batch) {
+                    if (fault(BULK).shouldRejectItem()) {
+                        task.failures.add(objectMapper.createObjectNode()
+                                .put("index", dest)
+                                .put("type", "_doc")
+                                .put("id", document.getKey())
+                                .put("status", 429)
+                                .set("cause", errorCause("es_rejected_execution_exception", "rejected execution of bulk item (stand-in)")));
+                        return;
+                    }
+                    boolean created = target.documents.put(document.getKey(), document.getValue().deepCopy()) == null;
+                    (created ? task.created : task.updated).incrementAndGet();
+                }
+                task.batches.incrementAndGet();
+                if (task.requestsPerSecond > 0 && Float.isFinite(task.requestsPerSecond)) {
+                    TimeUnit.MICROSECONDS.sleep((long) (batch.size() * 1_000_000L / task.requestsPerSecond));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            task.completed = true;
+        }
+    }
+
+    /**
+     * GET _tasks/{id} 와 POST _tasks/_cancel?task_id={id} (HLRC 가 취소할 때 쓰는 형태).
+     */
+    private void task(HttpResponse response, List<String> path, Map<String, String> parameters) throws IOException {
+        boolean cancel = path.contains("_cancel");
+        String taskId = cancel ? parameters.getOrDefault("task_id", path.get(1)) : path.get(path.size() - 1);
+        ReindexTask task = tasks.get(Long.parseLong(taskId.substring(taskId.indexOf(':') + 1)));
+        if (task == null) {
+            send(response, 404, error("resource_not_found_exception", "task [" + taskId + "] isn't running and hasn't stored its results", 404));
+            return;
+        }
+        if (cancel) {
+            task.cancelled = true;
+            Future<?> future = task.future;
+            if (future != null) {
+                future.cancel(true);
+            }
+            ObjectNode cancelled = objectMapper.createObjectNode();
+            cancelled.putObject("nodes");
+            send(response, 200, cancelled);
+            return;
+        }
+
+        boolean completed = task.completed;
+        ObjectNode body = objectMapper.createObjectNode().put("completed", completed);
+        body.putObject("task")
+                .put("node", "stand-in")
+                .put("id", task.id)
+                .put("type", "transport")
+                .put("action", "indices:data/write/reindex")
+                .put("description", task.description)
+                .put("start_time_in_millis", task.startMillis)
+                .put("running_time_in_nanos", TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis() - task.startMillis))
+                .put("cancellable", true)
+                .set("status", reindexStatus(task, false));
+        if (completed) {
+            body.set("response", reindexStatus(task, true));
+        }
+        send(response, 200, body);
+    }
+
+    private ObjectNode reindexStatus(ReindexTask task, boolean response) {
+        ObjectNode status = objectMapper.createObjectNode();
+        if (response) {
+            status.put("took", System.currentTimeMillis() - task.startMillis)
+                    .put("timed_out", false);
+        }
+        status.put("total", task.total.get())
+                .put("updated", task.updated.get())
+                .put("created", task.created.get())
+                .put("deleted", 0)
+                .put("batches", task.batches.get())
+                .put("version_conflicts", 0)
+                .put("noops", 0);
+        status.putObject("retries").put("bulk", 0).put("search", 0);
+        status.put("throttled_millis", 0)
+                .put("requests_per_second", task.requestsPerSecond)
+                .put("throttled_until_millis", 0);
+        if (task.cancelled) {
+            status.put("canceled", "by user request");
+        }
+        if (response) {
+            status.putArray("failures").addAll(task.failures);
+        }
+        return status;
+    }
+
+    //=========================== _cluster/health =============================//
+
+    private void clusterHealth(HttpResponse response, Map<String, String> parameters) throws IOException {
+        String status = clusterStatus;
+        String waitFor = parameters.get("wait_for_status");
+        boolean timedOut = waitFor != null && !waitFor.equals(status) && !("yellow".equals(waitFor) && "green".equals(status));
+        int shards = indices.size();
+        ObjectNode health = objectMapper.createObjectNode()
+                .put("cluster_name", "stand-in")
+                .put("status", status)
+                .put("timed_out", timedOut)
+                .put("number_of_nodes", dataNodes)
+                .put("number_of_data_nodes", dataNodes)
+                .put("active_primary_shards", shards)
+                .put("active_shards", shards)
+                .put("relocating_shards", 0)
+                .put("initializing_shards", 0)
+                .put("unassigned_shards", "green".equals(status) ? 0 : shards)
+                .put("delayed_unassigned_shards", 0)
+                .put("number_of_pending_tasks", 0)
+                .put("number_of_in_flight_fetch", 0)
+                .put("task_max_waiting_in_queue_millis", 0)
+                .put("active_shards_percent_as_number", "green".equals(status) ? 100.0 : 50.0);
+        send(response, timedOut ? 408 : 200, health);
+    }
+
+    //=========================== _mapping/field =============================//
+
+    private void fieldMapping(HttpResponse response, String index, String fields) throws IOException {
+        String target = resolve(index);
+        Index found = target == null ? null : indices.get(target);
+        if (found == null) {
+            send(response, 404, error("index_not_found_exception", "no such index [" + index + "]", 404));
+            return;
+        }
+        ObjectNode body = objectMapper.createObjectNode();
+        ObjectNode mappings = body.putObject(target).putObject("mappings");
+        for (String field : fields.split(",")) {
+            JsonNode mapping = found.mappings.get(field);
+            if (mapping != null) {
+                mappings.putObject(field)
+                        .put("full_name", field)
+                        .putObject("mapping").set(field, mapping);
+            }
+        }
+        send(response, 200, body);
+    }
+
+    //=========================== _aliases =============================//
+
+    /**
+     * 모든 action 을 먼저 검증한 뒤 한꺼번에 반영해서 Elasticsearch 와 같이 원자적으로 바뀐다.
+     */
+    private synchronized void updateAliases(HttpResponse response, JsonNode body) throws IOException {
+        List<String[]> adds = new ArrayList<>();
+        List<String[]> removes = new ArrayList<>();
+        for (JsonNode action : body.path("actions")) {
+            String type = action.fieldNames().next();
+            JsonNode spec = action.get(type);
+            for (String index : names(spec, "index", "indices")) {
+                for (String alias : names(spec, "alias", "aliases")) {
+                    if ("add".equals(type)) {
+                        if (!indices.containsKey(index)) {
+                            send(response, 404, error("index_not_found_exception", "no such index [" + index + "]", 404));
+                            return;
+                        }
+                        if (indices.containsKey(alias)) {
+                            send(response, 400, error("invalid_alias_name_exception",
+                                    "Invalid alias name [" + alias + "], an index exists with the same name as the alias", 400));
+                            return;
+                        }
+                        adds.add(new String[]{index, alias});
+                    } else {
+                        if (!aliases.getOrDefault(alias, Set.of()).contains(index)) {
+                            send(response, 404, error("aliases_not_found_exception", "aliases [" + alias + "] missing", 404));
+                            return;
+                        }
+                        removes.add(new String[]{index, alias});
+                    }
+                }
+            }
+        }
+        removes.forEach(remove -> aliases.computeIfPresent(remove[1], (alias, targets) -> {
+            targets.remove(remove[0]);
+            return targets.isEmpty() ? null : targets;
+        }));
+        adds.forEach(add -> aliases.computeIfAbsent(add[1], alias -> new TreeSet<>()).add(add[0]));
+        send(response, 200, objectMapper.createObjectNode().put("acknowledged", true));
+    }
+
+    private static List<String> names(JsonNode spec, String single, String plural) {
+        return spec.has(plural) ? texts(spec.get(plural)) : texts(spec.path(single));
+    }
+
+    private void getAlias(HttpResponse response, String alias) throws IOException {
+        Set<String> targets = aliasedIndices(alias);
+        if (targets.isEmpty()) {
+            send(response, 404, objectMapper.createObjectNode()
+                    .put("error", "alias [" + alias + "] missing")
+                    .put("status", 404));
+            return;
+        }
+        ObjectNode body = objectMapper.createObjectNode();
+        targets.forEach(index -> body.putObject(index).putObject("aliases").putObject(alias));
+        send(response, 200, body);
+    }
+
+    //== 인덱스 이름이면 그대로, alias 면 가리키는 첫 번째 인덱스, 둘 다 아니면 null ==//
+    private String resolve(String name) {
+        if (name == null || indices.containsKey(name)) {
+            return name;
+        }
+        Set<String> targets = aliases.get(name);
+        return targets == null || targets.isEmpty() ? null : targets.iterator().next();
+    }
+
+    //=========================== 공통 =============================//
+
+    private JsonNode readJson(HttpRequest request) throws IOException {
+        try (InputStream body = body(request)) {
+            byte[] bytes = body.readAllBytes();
+            return bytes.length == 0 ? objectMapper.createObjectNode() : objectMapper.readTree(bytes);
+        }
+    }
+
+    private static InputStream body(HttpRequest request) throws IOException {
+        HttpEntity entity = ((HttpEntityEnclosingRequest) request).getEntity();
+        return entity == null ? InputStream.nullInputStream() : entity.getContent();
+    }
+
+    private void send(HttpResponse response, int status, JsonNode body) throws IOException {
+        response.setStatusCode(status);
+        response.setEntity(new ByteArrayEntity(objectMapper.writeValueAsBytes(body), ContentType.APPLICATION_JSON));
+    }
+
+    private ObjectNode rejected() {
+        return error("es_rejected_execution_exception", "rejected execution (stand-in)", 429);
+    }
+
+    private ObjectNode error(String type, String reason, int status) {
+        ObjectNode error = objectMapper.createObjectNode();
+        ObjectNode cause = errorCause(type, reason);
+        cause.putArray("root_cause").add(errorCause(type, reason));
+        error.set("error", cause);
+        error.put("status", status);
+        return error;
+    }
+
+    private ObjectNode errorCause(String type, String reason) {
+        return objectMapper.createObjectNode()
+                .put("type", type)
+                .put("reason", reason);
+    }
+
+    private ObjectNode shards() {
+        return objectMapper.createObjectNode()
+                .put("total", 1)
+                .put("successful", 1)
+                .put("failed", 0);
+    }
+
+    private static String firstIndex(JsonNode index) {
+        String value = index.isArray() ? index.get(0).asText() : index.asText();
+        int comma = value.indexOf(',');
+        return comma < 0 ? value : value.substring(0, comma);
+    }
+
+    private static Map<String, String> parameters(URI uri) {
+        Map<String, String> parameters = new HashMap<>();
+        String query = uri.getRawQuery();
+        if (query == null) {
+            return parameters;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+
+    private static List<String> segments(URI uri) {
+        List<String> segments = new ArrayList<>();
+        for (String segment : uri.getPath().split("/")) {
+            if (!segment.isEmpty()) {
+                segments.add(segment);
+            }
+        }
+        return segments;
+    }
+
+    private static class Index {
+
+        private final String uuid = UUID.randomUUID().toString();
+        //== _id 순서로 정렬해서 search_after 위치를 정할 수 있게 한다. ==//
+        private final NavigableMap<String, JsonNode> documents = new ConcurrentSkipListMap<>();
+        //== 기본값 외에 지정한 index 설정("index." 제외) ==//
+        private final Map<String, String> settings = new ConcurrentHashMap<>();
+        //== 인덱스를 만들 때 받은 최상위 필드 매핑 ==//
+        private final Map<String, JsonNode> mappings = new ConcurrentHashMap<>();
+    }
+
+    private static class ReindexTask {
+
+        private final long id;
+        private final String description;
+        private final float requestsPerSecond;
+        private final long startMillis = System.currentTimeMillis();
+        private final AtomicLong total = new AtomicLong();
+        private final AtomicLong created = new AtomicLong();
+        private final AtomicLong updated = new AtomicLong();
+        private final AtomicLong batches = new AtomicLong();
+        private final List<JsonNode> failures = new CopyOnWriteArrayList<>();
+        private volatile boolean cancelled;
+        private volatile boolean completed;
+        private volatile Future<?> future;
+
+        private ReindexTask(long id, String description, float requestsPerSecond) {
+            this.id = id;
+            this.description = description;
+            this.requestsPerSecond = requestsPerSecond;
+        }
+    }
+
+    private static class Token {
+
+        private final String term;
+        private final int start;
+        private final int end;
+
+        private Token(String term, int start, int end) {
+            this.term = term;
+            this.start = start;
+            this.end = end;
+        }
+    }
+}
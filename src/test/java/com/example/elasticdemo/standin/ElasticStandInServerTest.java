@@ -0,0 +1,124 @@
+package com.example.elasticdemo.standin;
+
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.action.admin.indices.delete.DeleteIndexRequest;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.search.MultiSearchRequest;
+import org.elasticsearch.action.search.MultiSearchResponse;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestClient;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.client.core.MultiTermVectorsRequest;
+import org.elasticsearch.client.core.MultiTermVectorsResponse;
+import org.elasticsearch.client.core.TermVectorsRequest;
+import org.elasticsearch.client.core.TermVectorsResponse;
+import org.elasticsearch.client.indices.AnalyzeRequest;
+import org.elasticsearch.client.indices.AnalyzeResponse;
+import org.elasticsearch.client.indices.CreateIndexRequest;
+import org.elasticsearch.client.indices.GetIndexRequest;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ElasticStandInServerTest {
+
+    ElasticStandInServer server;
+    RestHighLevelClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = ElasticStandInServer.start();
+        client = new RestHighLevelClient(RestClient.builder(server.httpHost()));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        client.close();
+        server.close();
+    }
+
+    @DisplayName("RestHighLevelClient 가 색인, 검색, 분석, term vector 응답을 그대로 파싱할 수 있다.")
+    @Test
+    void speak_enough_elasticsearch() throws IOException {
+        client.indices().create(new CreateIndexRequest("standin"), RequestOptions.DEFAULT);
+        assertTrue(client.indices().exists(new GetIndexRequest("standin"), RequestOptions.DEFAULT));
+
+        BulkRequest bulkRequest = new BulkRequest();
+        bulkRequest.add(new IndexRequest("standin").id("1").source("{\"title\":\"Hello World hello\"}", XContentType.JSON));
+        bulkRequest.add(new IndexRequest("standin").id("2").source("{\"title\":\"bye\"}", XContentType.JSON));
+        BulkResponse bulkResponse = client.bulk(bulkRequest, RequestOptions.DEFAULT);
+        assertFalse(bulkResponse.hasFailures());
+
+        SearchResponse searchResponse = client.search(new SearchRequest("standin")
+                .source(new SearchSourceBuilder().size(1)), RequestOptions.DEFAULT);
+        assertEquals(2, searchResponse.getHits().getTotalHits().value);
+        assertEquals("1", searchResponse.getHits().getAt(0).getId());
+        assertEquals("Hello World hello", searchResponse.getHits().getAt(0).getSourceAsMap().get("title"));
+
+        MultiSearchResponse multiSearchResponse = client.msearch(new MultiSearchRequest()
+                .add(new SearchRequest("standin"))
+                .add(new SearchRequest("standin").source(new SearchSourceBuilder().from(1))), RequestOptions.DEFAULT);
+        assertEquals(2, multiSearchResponse.getResponses()[0].getResponse().getHits().getHits().length);
+        assertEquals("2", multiSearchResponse.getResponses()[1].getResponse().getHits().getAt(0).getId());
+
+        AnalyzeResponse analyzeResponse = client.indices().analyze(
+                AnalyzeRequest.withGlobalAnalyzer("whitespace", "Hello World", "bye"), RequestOptions.DEFAULT);
+        List<String> terms = analyzeResponse.getTokens().stream().map(AnalyzeResponse.AnalyzeToken::getTerm).collect(Collectors.toList());
+        assertEquals(List.of("hello", "world", "bye"), terms);
+        assertEquals(12, analyzeResponse.getTokens().get(2).getStartOffset());
+
+        TermVectorsRequest template = new TermVectorsRequest("standin", "1");
+        template.setFields("title");
+        MultiTermVectorsRequest termVectorsRequest = new MultiTermVectorsRequest(new String[]{"1", "2"}, template);
+        MultiTermVectorsResponse termVectorsResponse = client.mtermvectors(termVectorsRequest, RequestOptions.DEFAULT);
+        TermVectorsResponse first = termVectorsResponse.getTermVectorsResponses().get(0);
+        assertTrue(first.getFound());
+        assertEquals(2, first.getTermVectorsList().get(0).getTerms().stream()
+                .filter(term -> term.getTerm().equals("hello")).findFirst().orElseThrow().getTermFreq());
+
+        client.indices().delete(new DeleteIndexRequest("standin"), RequestOptions.DEFAULT);
+        assertEquals(0, server.documentCount("standin"));
+    }
+
+    @DisplayName("요청 단위 거절은 429 로, 연결 끊김은 IOException 으로 클라이언트에 전달된다.")
+    @Test
+    void inject_faults() {
+        server.fault(ElasticStandInServer.SEARCH).rejectRate(1);
+        ElasticsearchStatusException rejected = assertThrows(ElasticsearchStatusException.class,
+                () -> client.search(new SearchRequest("standin"), RequestOptions.DEFAULT));
+        assertEquals(RestStatus.TOO_MANY_REQUESTS, rejected.status());
+
+        server.fault(ElasticStandInServer.SEARCH).reset().dropRate(1);
+        assertThrows(IOException.class, () -> client.search(new SearchRequest("standin"), RequestOptions.DEFAULT));
+        assertEquals(2, server.requestCount(ElasticStandInServer.SEARCH));
+    }
+
+    @DisplayName("지연은 설정한 중앙값 근처에 모인다.")
+    @Test
+    void sample_latency() {
+        FaultProfile profile = new FaultProfile().latency(Duration.ofMillis(10), Duration.ofMillis(100));
+        long[] samples = new long[10_001];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = profile.sampleLatencyMicros();
+        }
+        Arrays.sort(samples);
+        assertEquals(10_000, samples[5_000], 1_000);
+        assertEquals(100_000, samples[9_900], 20_000);
+    }
+}
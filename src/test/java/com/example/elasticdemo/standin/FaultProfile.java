@@ -0,0 +1,82 @@
+package com.example.elasticdemo.standin;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 엔드포인트 하나에 주입할 지연과 장애.
+ * 지연은 중앙값과 p99 로 정한 로그 정규 분포를 따르고, 요청 단위 429 와 연결 끊김, bulk 문서 단위 429 를 확률로 발생시킨다.
+ */
+public class FaultProfile {
+
+    //== 표준 정규 분포의 99 백분위수 ==//
+    private static final double Z_99 = 2.326;
+
+    private volatile long medianMicros;
+    private volatile double sigma;
+    private volatile double rejectRate;
+    private volatile double dropRate;
+    private volatile double itemRejectRate;
+
+    public FaultProfile latency(Duration median, Duration p99) {
+        this.medianMicros = median.toNanos() / 1000;
+        this.sigma = median.isZero() || p99.compareTo(median) <= 0
+                ? 0
+                : Math.log((double) p99.toNanos() / median.toNanos()) / Z_99;
+        return this;
+    }
+
+    public FaultProfile latency(Duration fixed) {
+        return latency(fixed, fixed);
+    }
+
+    //== 요청 전체를 429 es_rejected_execution_exception 으로 거절할 확률 ==//
+    public FaultProfile rejectRate(double rate) {
+        this.rejectRate = rate;
+        return this;
+    }
+
+    //== 응답 없이 연결을 끊을 확률 ==//
+    public FaultProfile dropRate(double rate) {
+        this.dropRate = rate;
+        return this;
+    }
+
+    //== _bulk 에서 문서 하나를 429 로 거절할 확률 ==//
+    public FaultProfile itemRejectRate(double rate) {
+        this.itemRejectRate = rate;
+        return this;
+    }
+
+    public FaultProfile reset() {
+        medianMicros = 0;
+        sigma = 0;
+        rejectRate = 0;
+        dropRate = 0;
+        itemRejectRate = 0;
+        return this;
+    }
+
+    long sampleLatencyMicros() {
+        if (medianMicros == 0) {
+            return 0;
+        }
+        return (long) (medianMicros * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian()));
+    }
+
+    boolean shouldReject() {
+        return chance(rejectRate);
+    }
+
+    boolean shouldDrop() {
+        return chance(dropRate);
+    }
+
+    boolean shouldRejectItem() {
+        return chance(itemRejectRate);
+    }
+
+    private static boolean chance(double rate) {
+        return rate > 0 && ThreadLocalRandom.current().nextDouble() < rate;
+    }
+}
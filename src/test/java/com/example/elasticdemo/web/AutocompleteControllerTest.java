@@ -0,0 +1,40 @@
+package com.example.elasticdemo.web;
+
+import com.example.elasticdemo.autocomplete.AutocompleteService;
+import com.example.elasticdemo.autocomplete.Suggestion;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(AutocompleteController.class)
+class AutocompleteControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @MockBean
+    AutocompleteService autocompleteService;
+
+    @DisplayName("요청한 개수는 최대 50 개로 제한한다.")
+    @Test
+    void suggest() throws Exception {
+        given(autocompleteService.suggest("개발", 50))
+                .willReturn(List.of(new Suggestion("개발자", 50L), new Suggestion("개발", 30L)));
+
+        mockMvc.perform(get("/api/autocomplete").param("prefix", "개발").param("size", "1000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].term").value("개발자"))
+                .andExpect(jsonPath("$[0].frequency").value(50))
+                .andExpect(jsonPath("$.length()").value(2));
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.elasticdemo.web;
+
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.search.SearchHit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NdjsonHitWriterTest {
+
+    @DisplayName("_source 를 한 줄에 하나씩 그대로 쓰고, _source 가 없는 hit 는 건너뛴다.")
+    @Test
+    void write_sources_as_lines() throws Exception {
+        SearchHit first = new SearchHit(1).sourceRef(new BytesArray("{\"subject\":\"자바 개발자\"}"));
+        SearchHit noSource = new SearchHit(2);
+        SearchHit second = new SearchHit(3).sourceRef(new BytesArray("{\"subject\":\"인사 담당\"}"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = NdjsonHitWriter.write(List.of(first, noSource, second).iterator(), out);
+
+        assertEquals(2, count);
+        assertEquals("{\"subject\":\"자바 개발자\"}\n{\"subject\":\"인사 담당\"}\n", out.toString(StandardCharsets.UTF_8));
+    }
+}